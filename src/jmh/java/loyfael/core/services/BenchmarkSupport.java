@@ -0,0 +1,168 @@
+package loyfael.core.services;
+
+import loyfael.api.interfaces.ILevelsConfigService;
+import loyfael.api.interfaces.INotificationService;
+import loyfael.api.interfaces.IPlayerService.PlayerData;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Objets partagés par les benchmarks : stockage en mémoire, joueurs et blocs simulés,
+ * niveaux de mission, notifications sans effet. Aucun serveur Bukkit n'est nécessaire
+ */
+final class BenchmarkSupport {
+
+    static final int MAX_LEVEL = 50;
+
+    // Objectifs jamais atteints pendant une mesure : aucune récompense ni changement de niveau
+    static final int UNREACHABLE_AMOUNT = Integer.MAX_VALUE;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Stockage en mémoire connecté, sans latence ni erreur simulées
+     */
+    static InMemoryDatabaseService storage() {
+        InMemoryDatabaseService storage = new InMemoryDatabaseService(null);
+        storage.initialize();
+        return storage;
+    }
+
+    static UUID uuid(int index) {
+        return new UUID(0x4b4c000000000000L, index);
+    }
+
+    /**
+     * Profil au format de stockage (comme relu depuis la base)
+     */
+    static Map<String, Object> storedProfile(int index, Random random) {
+        UUID uuid = uuid(index);
+        PlayerData data = new PlayerData(uuid.toString(), "Bench" + index,
+            random.nextInt(MAX_LEVEL), 1_700_000_000_000L + random.nextInt(1_000_000), random.nextInt(100));
+        int missions = 1 + random.nextInt(6);
+        for (int i = 0; i < missions; i++) {
+            data.getMissionProgress().put("mission_" + (1 + random.nextInt(MAX_LEVEL)), random.nextInt(500));
+        }
+        return PlayerDataCodec.toCompactMap(data);
+    }
+
+    /**
+     * Joueur simulé : UUID, nom et connexion ; toute autre méthode retourne la valeur par défaut de son type
+     */
+    static Player player(UUID uuid, String name) {
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[]{Player.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getUniqueId": return uuid;
+                    case "getName": return name;
+                    case "isOnline": return true;
+                    case "equals": return proxy == args[0];
+                    case "hashCode": return System.identityHashCode(proxy);
+                    case "toString": return "BenchPlayer[" + name + "]";
+                    default: return defaultValue(method.getReturnType());
+                }
+            });
+    }
+
+    static Block block(Material material) {
+        return (Block) Proxy.newProxyInstance(Block.class.getClassLoader(), new Class<?>[]{Block.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getType": return material;
+                    case "equals": return proxy == args[0];
+                    case "hashCode": return System.identityHashCode(proxy);
+                    case "toString": return "BenchBlock[" + material + "]";
+                    default: return defaultValue(method.getReturnType());
+                }
+            });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0D;
+        if (type == float.class) return 0F;
+        if (type == char.class) return '\0';
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        return 0;
+    }
+
+    /**
+     * Niveaux : les niveaux pairs sont des missions de cassage de pierre, les impairs des achats
+     */
+    static ILevelsConfigService levels() {
+        TreeMap<Integer, LevelsConfigService.LevelConfig> levels = new TreeMap<>();
+        LevelsConfigService.RewardConfig rewards = new LevelsConfigService.RewardConfig(
+            Collections.emptyList(), Collections.emptyList(), false, Collections.emptyList());
+        for (int level = 1; level <= MAX_LEVEL; level++) {
+            LevelsConfigService.LevelType type = level % 2 == 0
+                ? new LevelsConfigService.LevelType("blockbreak", 0, "STONE", null, UNREACHABLE_AMOUNT)
+                : new LevelsConfigService.LevelType("currency", 1000, null, null, 0);
+            levels.put(level, new LevelsConfigService.LevelConfig(level, "Niveau " + level, Material.STONE,
+                false, "", type, rewards));
+        }
+        return new StaticLevels(levels);
+    }
+
+    private static final class StaticLevels implements ILevelsConfigService {
+        private final TreeMap<Integer, LevelsConfigService.LevelConfig> levels;
+
+        private StaticLevels(TreeMap<Integer, LevelsConfigService.LevelConfig> levels) {
+            this.levels = levels;
+        }
+
+        @Override public LevelsConfigService.LevelConfig getLevelConfig(int level) { return levels.get(level); }
+        @Override public Map<Integer, LevelsConfigService.LevelConfig> getAllLevels() { return levels; }
+        @Override public int getMaxLevel() { return levels.lastKey(); }
+        @Override public boolean levelExists(int level) { return levels.containsKey(level); }
+        @Override public int getTotalLevels() { return levels.size(); }
+        @Override public List<LevelsConfigService.LevelConfig> getSortedLevels() { return new ArrayList<>(levels.values()); }
+        @Override public void reload() { }
+
+        @Override
+        public List<LevelsConfigService.LevelConfig> getLevelsByType(String typeName) {
+            return levels.values().stream()
+                .filter(level -> level.getType().getName().equalsIgnoreCase(typeName))
+                .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<LevelsConfigService.LevelConfig> getCurrencyLevels() {
+            return levels.values().stream().filter(level -> level.getType().isCurrency()).collect(Collectors.toList());
+        }
+
+        @Override
+        public List<LevelsConfigService.LevelConfig> getMissionLevels() {
+            return levels.values().stream().filter(level -> level.getType().isMission()).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Notifications sans envoi : seul le coût du service mesuré compte
+     */
+    static final class NoopNotifications implements INotificationService {
+        @Override public void sendMessage(Player player, String messageKey, Object... placeholders) { }
+        @Override public void sendActionBar(Player player, String messageKey, Object... placeholders) { }
+        @Override public void queueProgressActionBar(Player player, String messageKey, int current, int target) { }
+        @Override public void queueProgressActionBar(UUID playerUuid, String messageKey, int current, int target) { }
+        @Override public void sendTitle(Player player, String titleKey, String subtitleKey, Object... placeholders) { }
+        @Override public void broadcast(String messageKey, Object... placeholders) { }
+        @Override public void logConsole(String messageKey, Object... placeholders) { }
+        @Override public String getMessage(String messageKey, Object... placeholders) { return ""; }
+        @Override public void reloadMessages() { }
+    }
+}
@@ -0,0 +1,51 @@
+package loyfael.core.services;
+
+import loyfael.api.interfaces.IPlayerService.PlayerData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CacheService : lecture d'un joueur connecté, cache générique, invalidation puis remise en cache
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Thread)
+public class CacheServiceBenchmark {
+
+    private static final long TTL_MS = TimeUnit.MINUTES.toMillis(30);
+
+    private int sequence;
+
+    @Benchmark
+    public PlayerData getPlayer(ProfilesState state) {
+        return state.cacheService.getPlayer(state.online[sequence++ % state.online.length]);
+    }
+
+    @Benchmark
+    public Optional<Object> getGeneric(ProfilesState state) {
+        return state.cacheService.get("stats_" + (sequence++ & 1023));
+    }
+
+    @Benchmark
+    public PlayerData invalidateAndPut(ProfilesState state) {
+        UUID uuid = state.online[sequence++ % state.online.length];
+        PlayerData data = state.cacheService.getPlayer(uuid);
+        state.cacheService.invalidatePlayer(uuid);
+        state.cacheService.putPlayer(uuid, data, TTL_MS);
+        return data;
+    }
+}
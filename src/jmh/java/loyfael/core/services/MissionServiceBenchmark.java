@@ -0,0 +1,121 @@
+package loyfael.core.services;
+
+import loyfael.api.interfaces.IMissionService.Mission;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MissionService.processEvent (mode synchrone) pour 1000 joueurs connectés, et incrément d'un compteur
+ * Missions :
+ * - idle : prochain niveau payant, l'événement ne concerne aucun objectif
+ * - level : prochain niveau = casser de la pierre
+ * - mixed : objectif de niveau + 19 missions assignées de types variés
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MissionServiceBenchmark {
+
+    private static final int ONLINE = 1000;
+    private static final int ASSIGNED_MISSIONS = 19;
+    private static final String[] MISSION_TYPES = {"blockbreak", "blockplace", "kills", "fish"};
+    private static final String[] MISSION_TARGETS = {"STONE", "DIRT", "ZOMBIE", null};
+
+    @Param({"idle", "level", "mixed"})
+    public String missions;
+
+    private CacheService cacheService;
+    private PlayerService playerService;
+    private MissionService missionService;
+    private MissionProgressStore progressStore;
+    private Player[] players;
+    private BlockBreakEvent[] events;
+    private MissionProgressStore.Slot[] slots;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryDatabaseService storage = BenchmarkSupport.storage();
+        Random random = new Random(42);
+        for (int i = 0; i < ONLINE; i++) {
+            storage.saveData("player_" + BenchmarkSupport.uuid(i), BenchmarkSupport.storedProfile(i, random));
+        }
+
+        cacheService = new CacheService();
+        playerService = new PlayerService(storage, cacheService);
+        missionService = new MissionService(playerService, new BenchmarkSupport.NoopNotifications(),
+            BenchmarkSupport.levels());
+        progressStore = new MissionProgressStore(playerService);
+
+        // Niveau pair : prochain niveau payant ; niveau impair : prochain niveau = mission de pierre
+        int level = "idle".equals(missions) ? 0 : 1;
+        Material stone = Material.STONE;
+
+        players = new Player[ONLINE];
+        events = new BlockBreakEvent[ONLINE];
+        slots = new MissionProgressStore.Slot[ONLINE];
+        for (int i = 0; i < ONLINE; i++) {
+            UUID uuid = BenchmarkSupport.uuid(i);
+            cacheService.setPinned(uuid, true);
+            playerService.setPlayerLevel(uuid.toString(), level);
+
+            if ("mixed".equals(missions)) {
+                for (int m = 0; m < ASSIGNED_MISSIONS; m++) {
+                    int type = m % MISSION_TYPES.length;
+                    missionService.assignMission(uuid.toString(), new Mission("bench_" + m, "Bench " + m,
+                        MISSION_TYPES[type], BenchmarkSupport.UNREACHABLE_AMOUNT, Collections.emptyMap(), "",
+                        MISSION_TARGETS[type]));
+                }
+            }
+            missionService.trackPlayer(uuid);
+
+            players[i] = BenchmarkSupport.player(uuid, "Bench" + i);
+            events[i] = new BlockBreakEvent(BenchmarkSupport.block(stone), players[i]);
+            slots[i] = progressStore.open(uuid, "mission_2", BenchmarkSupport.UNREACHABLE_AMOUNT);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        missionService.shutdown();
+        playerService.shutdown();
+        cacheService.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public void processBlockBreak(Cursor cursor) {
+        int i = cursor.next++ % ONLINE;
+        missionService.processEvent(players[i], events[i]);
+    }
+
+    @Benchmark
+    public int incrementProgress(Cursor cursor) {
+        return progressStore.increment(slots[cursor.next++ % ONLINE], 1);
+    }
+}
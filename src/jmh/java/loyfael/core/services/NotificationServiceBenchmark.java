@@ -0,0 +1,58 @@
+package loyfael.core.services;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NotificationService.getMessage sur le messages.yml livré avec le plugin
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationServiceBenchmark {
+
+    private NotificationService notificationService;
+    private int current;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        notificationService = new NotificationService(null);
+        try (Reader reader = new InputStreamReader(
+                NotificationServiceBenchmark.class.getResourceAsStream("/messages.yml"), StandardCharsets.UTF_8)) {
+            notificationService.loadMessages(YamlConfiguration.loadConfiguration(reader));
+        }
+    }
+
+    @Benchmark
+    public String withPlaceholders() {
+        return notificationService.getMessage("missions.progress", current++ & 1023, 1024);
+    }
+
+    @Benchmark
+    public String constant() {
+        return notificationService.getMessage("player-not-found");
+    }
+
+    @Benchmark
+    public String missing() {
+        return notificationService.getMessage("missions.unknown");
+    }
+}
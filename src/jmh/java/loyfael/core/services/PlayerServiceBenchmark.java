@@ -0,0 +1,102 @@
+package loyfael.core.services;
+
+import loyfael.api.interfaces.IPlayerService.PlayerData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PlayerService : lecture en cache, chargement depuis le stockage, classement, passage de niveau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Thread)
+public class PlayerServiceBenchmark {
+
+    private static final int LEVEL_READS = 1000;
+
+    private int sequence;
+    // Lectures du stockage observées après un passage de niveau (doit rester à 0)
+    private long readsAfterLevelUp;
+
+    /**
+     * Joueur connecté : données épinglées dans le cache
+     */
+    @Benchmark
+    public Optional<PlayerData> getPlayerDataCached(ProfilesState state) {
+        return state.playerService.getPlayerData(state.online[sequence++ % state.online.length]);
+    }
+
+    /**
+     * Profil absent du cache : lecture du stockage et désérialisation
+     */
+    @Benchmark
+    public Optional<PlayerData> getPlayerDataLoad(ProfilesState state) {
+        UUID uuid = state.anyPlayer(sequence++);
+        state.cacheService.invalidatePlayer(uuid);
+        return state.playerService.getPlayerData(uuid);
+    }
+
+    @Benchmark
+    public List<PlayerData> getTopPlayers(ProfilesState state) {
+        return state.playerService.getTopPlayers(10);
+    }
+
+    /**
+     * Passage de niveau d'un joueur connecté suivi de 1000 lectures de son niveau
+     * (chemin de chaque événement de mission) : aucune lecture du stockage
+     */
+    @Benchmark
+    public void levelUpThenReadLevels(ProfilesState state, Blackhole blackhole) {
+        levelUpThenRead(state, state.online[sequence++ % state.online.length], blackhole);
+    }
+
+    /**
+     * Même scénario pour un profil en cache non épinglé : l'entrée réécrite au passage de niveau
+     * ne doit pas devenir un échec de cache
+     */
+    @Benchmark
+    public void levelUpThenReadLevelsUnpinned(ProfilesState state, Blackhole blackhole) {
+        levelUpThenRead(state, state.unpinned, blackhole);
+    }
+
+    private void levelUpThenRead(ProfilesState state, UUID uuid, Blackhole blackhole) {
+        state.storage.resetCounters();
+        int level = state.playerService.getPlayerLevel(uuid);
+        state.playerService.setPlayerLevel(uuid.toString(), level < BenchmarkSupport.MAX_LEVEL ? level + 1 : 0);
+
+        for (int i = 0; i < LEVEL_READS; i++) {
+            blackhole.consume(state.playerService.getPlayerLevel(uuid));
+        }
+        readsAfterLevelUp += state.storageReads();
+    }
+
+    /**
+     * Échoue la mesure si un passage de niveau a provoqué une lecture du stockage
+     */
+    @TearDown(Level.Iteration)
+    public void checkNoStorageReads() {
+        long reads = readsAfterLevelUp;
+        readsAfterLevelUp = 0;
+        if (reads > 0) {
+            throw new IllegalStateException(reads + " lectures du stockage après un passage de niveau (attendu : 0)");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package loyfael.core.services;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Profils stockés (1k à 1M) et services joueurs/cache construits dessus
+ * Les ONLINE premiers profils sont « connectés » : épinglés et chargés dans le cache
+ * Un profil supplémentaire est chargé dans le cache sans être épinglé (expiration par TTL possible)
+ */
+@State(Scope.Benchmark)
+public class ProfilesState {
+
+    static final int ONLINE = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int players;
+
+    InMemoryDatabaseService storage;
+    CacheService cacheService;
+    PlayerService playerService;
+    UUID[] online;
+    UUID unpinned;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        storage = BenchmarkSupport.storage();
+        Random random = new Random(42);
+        for (int i = 0; i < players; i++) {
+            storage.saveData("player_" + BenchmarkSupport.uuid(i), BenchmarkSupport.storedProfile(i, random));
+        }
+
+        cacheService = new CacheService();
+        playerService = new PlayerService(storage, cacheService);
+        playerService.rebuildLeaderboard();
+
+        online = new UUID[Math.min(ONLINE, players)];
+        for (int i = 0; i < online.length; i++) {
+            online[i] = BenchmarkSupport.uuid(i);
+            cacheService.setPinned(online[i], true);
+            playerService.getPlayerData(online[i]);
+        }
+
+        unpinned = BenchmarkSupport.uuid(players);
+        storage.saveData("player_" + unpinned, BenchmarkSupport.storedProfile(players, random));
+        playerService.getPlayerData(unpinned);
+    }
+
+    /**
+     * Lectures du stockage (get, find, getAll) depuis le dernier resetCounters()
+     */
+    long storageReads() {
+        return storage.getCounters(InMemoryDatabaseService.Operation.GET).getCalls()
+            + storage.getCounters(InMemoryDatabaseService.Operation.FIND).getCalls()
+            + storage.getCounters(InMemoryDatabaseService.Operation.GET_ALL).getCalls();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        playerService.shutdown();
+        cacheService.shutdown();
+    }
+
+    /**
+     * UUID d'un profil stocké quelconque (pas forcément en cache)
+     */
+    UUID anyPlayer(int sequence) {
+        return BenchmarkSupport.uuid(Math.floorMod(sequence * 0x9E3779B1, players));
+    }
+}
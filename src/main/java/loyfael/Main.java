@@ -132,7 +132,7 @@ public final class Main extends JavaPlugin {
         configurationService = new ConfigurationService();
         serviceContainer.registerService(IConfigurationService.class, configurationService);
 
-        cacheService = new CacheService();
+        cacheService = new CacheService(configurationService);
         serviceContainer.registerService(ICacheService.class, cacheService);
 
         // 2. Services with basic dependencies
@@ -147,11 +147,11 @@ public final class Main extends JavaPlugin {
         serviceContainer.registerService(ILevelsConfigService.class, levelsConfigService);
 
         // 3. Business services (depend on base services)
-        playerService = new PlayerService(databaseService, cacheService);
+        playerService = new PlayerService(databaseService, cacheService, configurationService);
         serviceContainer.registerService(IPlayerService.class, playerService);
 
         // 4. Complex services (depend on business services)
-        missionService = new MissionService(playerService, notificationService, levelsConfigService);
+        missionService = new MissionService(playerService, notificationService, levelsConfigService, configurationService);
         serviceContainer.registerService(IMissionService.class, missionService);
 
         // 5. Modern GUI services (depend on business services)
@@ -170,7 +170,18 @@ public final class Main extends JavaPlugin {
      */
     private IDatabaseService createOptimalDatabaseService() {
         // Temporary use of Bukkit config for bootstrap
-        boolean useMongoDB = getConfig().getBoolean("database.use-mongodb", true);
+        String type = getConfig().getString("database.type", "");
+        if ("memory".equalsIgnoreCase(type)) {
+            return new InMemoryDatabaseService(configurationService);
+        }
+        if ("yaml".equalsIgnoreCase(type)) {
+            return new YamlDatabaseService(configurationService);
+        }
+        if ("journal".equalsIgnoreCase(type)) {
+            return new JournalDatabaseService(configurationService);
+        }
+
+        boolean useMongoDB = "mongodb".equalsIgnoreCase(type) || getConfig().getBoolean("database.use-mongodb", true);
 
         if (useMongoDB) {
             return new MongoDatabaseService(configurationService);
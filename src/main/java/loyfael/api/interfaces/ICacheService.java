@@ -1,6 +1,9 @@
 package loyfael.api.interfaces;
 
+import loyfael.api.interfaces.IPlayerService.PlayerData;
+
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Interface pour les services de cache
@@ -8,6 +11,18 @@ import java.util.Optional;
  */
 public interface ICacheService {
 
+    /**
+     * Applique la configuration (tailles maximales)
+     */
+    default void initialize() {
+    }
+
+    /**
+     * Arrête les tâches de maintenance du cache
+     */
+    default void shutdown() {
+    }
+
     /**
      * Met en cache une valeur
      */
@@ -28,6 +43,52 @@ public interface ICacheService {
      */
     void invalidatePlayer(String playerUuid);
 
+    /**
+     * Déclare (ou récupère) une région de cache typée : chaque espace de clés a un type de valeur déclaré
+     * Redéclarer une région existante avec d'autres types lève une IllegalStateException
+     */
+    <K, V> CacheRegion<K, V> region(String name, Class<K> keyType, Class<V> valueType, int maximumSize);
+
+    /**
+     * Invalide le cache d'un joueur en O(1)
+     */
+    void invalidatePlayer(UUID playerUuid);
+
+    /**
+     * Récupère les données d'un joueur depuis la région typée, ou null si absentes ou expirées
+     */
+    PlayerData getPlayer(UUID playerUuid);
+
+    /**
+     * Met en cache les données d'un joueur pour la durée indiquée (en millisecondes)
+     */
+    void putPlayer(UUID playerUuid, PlayerData data, long ttlMs);
+
+    /**
+     * Récupère l'existence connue d'un joueur en base, ou null si inconnue
+     */
+    Boolean getPlayerExists(UUID playerUuid);
+
+    /**
+     * Mémorise l'existence d'un joueur en base pour la durée indiquée (en millisecondes)
+     */
+    void putPlayerExists(UUID playerUuid, boolean exists, long ttlMs);
+
+    /**
+     * Épingle un joueur (connecté) : ses entrées ne sont jamais évincées par la taille du cache
+     */
+    void setPinned(UUID playerUuid, boolean pinned);
+
+    /**
+     * Enregistre la durée d'un chargement depuis la base de données suite à un défaut de cache
+     */
+    void recordLoad(long loadTimeNanos);
+
+    /**
+     * Récupère les compteurs du cache (succès, défauts, évictions, chargements)
+     */
+    CacheStats getCacheStats();
+
     /**
      * Vide complètement le cache
      */
@@ -56,4 +117,71 @@ public interface ICacheService {
         put(key, value);
         setTtl(key, 30000); // 30 secondes par défaut
     }
+
+    /**
+     * Région de cache typée : une insertion d'un type non déclaré échoue immédiatement
+     */
+    interface CacheRegion<K, V> {
+        /**
+         * Récupère une valeur, ou null si absente ou expirée
+         */
+        V get(K key);
+
+        /**
+         * Met en cache une valeur (IllegalArgumentException si la clé ou la valeur n'a pas le type déclaré)
+         */
+        void put(K key, V value, long ttlMs);
+
+        void invalidate(K key);
+
+        int size();
+
+        Class<V> getValueType();
+    }
+
+    /**
+     * Instantané des compteurs du cache
+     */
+    class CacheStats {
+        private final int playerEntries;
+        private final int maxPlayerEntries;
+        private final int pinnedPlayers;
+        private final int otherEntries;
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long loadCount;
+        private final long totalLoadTimeNanos;
+
+        public CacheStats(int playerEntries, int maxPlayerEntries, int pinnedPlayers, int otherEntries,
+                          long hitCount, long missCount, long evictionCount, long loadCount, long totalLoadTimeNanos) {
+            this.playerEntries = playerEntries;
+            this.maxPlayerEntries = maxPlayerEntries;
+            this.pinnedPlayers = pinnedPlayers;
+            this.otherEntries = otherEntries;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.loadCount = loadCount;
+            this.totalLoadTimeNanos = totalLoadTimeNanos;
+        }
+
+        public int getPlayerEntries() { return playerEntries; }
+        public int getMaxPlayerEntries() { return maxPlayerEntries; }
+        public int getPinnedPlayers() { return pinnedPlayers; }
+        public int getOtherEntries() { return otherEntries; }
+        public long getHitCount() { return hitCount; }
+        public long getMissCount() { return missCount; }
+        public long getEvictionCount() { return evictionCount; }
+        public long getLoadCount() { return loadCount; }
+
+        public double getHitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 1.0 : (double) hitCount / requests;
+        }
+
+        public double getAverageLoadMillis() {
+            return loadCount == 0 ? 0.0 : totalLoadTimeNanos / 1_000_000.0 / loadCount;
+        }
+    }
 }
@@ -1,7 +1,12 @@
 package loyfael.api.interfaces;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Interface pour les services de base de données
@@ -19,11 +24,37 @@ public interface IDatabaseService {
      */
     void saveData(String key, Object value);
 
+    /**
+     * Sauvegarde plusieurs données en un seul aller-retour
+     * Lève une exception si le lot n'a pas pu être écrit, pour permettre une nouvelle tentative
+     */
+    void saveAll(Map<String, Object> values);
+
+    /**
+     * Applique des mises à jour partielles ($set / $inc / $unset) à des entrées existantes
+     * Les chemins sont relatifs à la donnée stockée (ex: "missionProgress.mission_12")
+     * Lève une exception si le lot n'a pas pu être écrit, pour permettre une nouvelle tentative
+     */
+    void updateAll(Map<String, FieldUpdate> updates);
+
     /**
      * Récupère une donnée
      */
     Optional<Object> getData(String key);
 
+    /**
+     * Récupère une donnée ou constate son absence en un seul aller-retour
+     * Contrairement à getData, lève une exception en cas d'erreur : une panne ne doit pas passer pour une absence
+     */
+    default Optional<Object> find(String key) {
+        return getData(key);
+    }
+
+    /**
+     * Récupère plusieurs données en un seul aller-retour (les clés absentes sont omises)
+     */
+    Map<String, Object> getAll(Collection<String> keys);
+
     /**
      * Supprime une donnée
      */
@@ -39,6 +70,13 @@ public interface IDatabaseService {
      */
     Map<String, Object> getDataByPrefix(String prefix);
 
+    /**
+     * Récupère les N meilleures entrées d'un préfixe, triées par champ décroissant
+     * Départage par dernière connexion (décroissante) uniquement pour le tri par niveau
+     * Seuls les champs utiles au classement (uuid, name, level, lastSeen, buttonAmount) sont retournés
+     */
+    List<Map<String, Object>> findTop(String prefix, String sortField, int limit);
+
     /**
      * Ferme la connexion
      */
@@ -53,4 +91,36 @@ public interface IDatabaseService {
      * Effectue une sauvegarde complète
      */
     void backup();
+
+    /**
+     * Mise à jour partielle d'une entrée : champs modifiés, incrémentés ou supprimés
+     */
+    class FieldUpdate {
+        private final Map<String, Object> sets = new LinkedHashMap<>();
+        private final Map<String, Number> increments = new LinkedHashMap<>();
+        private final Set<String> unsets = new LinkedHashSet<>();
+
+        public FieldUpdate set(String field, Object value) {
+            sets.put(field, value);
+            return this;
+        }
+
+        public FieldUpdate inc(String field, Number delta) {
+            increments.put(field, delta);
+            return this;
+        }
+
+        public FieldUpdate unset(String field) {
+            unsets.add(field);
+            return this;
+        }
+
+        public Map<String, Object> getSets() { return sets; }
+        public Map<String, Number> getIncrements() { return increments; }
+        public Set<String> getUnsets() { return unsets; }
+
+        public boolean isEmpty() {
+            return sets.isEmpty() && increments.isEmpty() && unsets.isEmpty();
+        }
+    }
 }
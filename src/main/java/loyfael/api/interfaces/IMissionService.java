@@ -1,9 +1,13 @@
 package loyfael.api.interfaces;
 
+import loyfael.core.services.LevelsConfigService.MissionKind;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Interface pour les services de missions
@@ -66,6 +70,7 @@ public interface IMissionService {
         private final int targetAmount;
         private final Map<String, Object> rewards;
         private final String description; // Ajout de description
+        private final String target; // Matériau ou mob visé (null : tout, ex: pêche)
         private int currentProgress;
 
         public Mission(String id, String name, String type, int targetAmount, Map<String, Object> rewards) {
@@ -75,6 +80,7 @@ public interface IMissionService {
             this.targetAmount = targetAmount;
             this.rewards = rewards;
             this.description = "Mission: " + name; // Description par défaut
+            this.target = null;
             this.currentProgress = 0;
         }
 
@@ -86,6 +92,20 @@ public interface IMissionService {
             this.targetAmount = targetAmount;
             this.rewards = rewards;
             this.description = description != null ? description : "Mission: " + name;
+            this.target = null;
+            this.currentProgress = 0;
+        }
+
+        // Constructeur avec cible (matériau pour blockbreak/blockplace, mob pour kills)
+        public Mission(String id, String name, String type, int targetAmount, Map<String, Object> rewards,
+                       String description, String target) {
+            this.id = id;
+            this.name = name;
+            this.type = type;
+            this.targetAmount = targetAmount;
+            this.rewards = rewards;
+            this.description = description != null ? description : "Mission: " + name;
+            this.target = target;
             this.currentProgress = 0;
         }
 
@@ -96,6 +116,7 @@ public interface IMissionService {
         public int getTargetAmount() { return targetAmount; }
         public Map<String, Object> getRewards() { return rewards; }
         public String getDescription() { return description; } // Ajout du getter description
+        public String getTarget() { return target; }
         public int getCurrentProgress() { return currentProgress; }
         public void setCurrentProgress(int currentProgress) { this.currentProgress = currentProgress; }
 
@@ -123,4 +144,63 @@ public interface IMissionService {
     default void cleanupPlayerData(String playerUuid) {
         // Implémentation par défaut vide pour la compatibilité
     }
+
+    /**
+     * Lit la stratégie de sauvegarde et démarre le report périodique de la progression
+     */
+    default void initialize() {
+    }
+
+    /**
+     * Relit la stratégie de sauvegarde après un rechargement de la configuration
+     */
+    default void reloadSettings() {
+    }
+
+    /**
+     * Reporte et sauvegarde la progression en attente, puis arrête le report périodique
+     */
+    default void shutdown() {
+    }
+
+    /**
+     * Commence le suivi d'un joueur connecté dans la table de routage des missions
+     */
+    default void trackPlayer(UUID playerUuid) {
+    }
+
+    /**
+     * Attend le traitement des événements de mission déjà déposés (hors thread principal)
+     * Retourne false si le délai d'attente est écoulé
+     */
+    default boolean awaitPendingEvents() {
+        return true;
+    }
+
+    /**
+     * Retire un joueur déconnecté de la table de routage des missions
+     */
+    default void untrackPlayer(UUID playerUuid) {
+    }
+
+    /**
+     * Vérifie si le joueur a une mission active de ce type (ex: pêche)
+     */
+    default boolean isRelevant(UUID playerUuid, MissionKind kind) {
+        return true;
+    }
+
+    /**
+     * Vérifie si le joueur a une mission active de ce type portant sur ce matériau (cassage, pose)
+     */
+    default boolean isRelevant(UUID playerUuid, MissionKind kind, Material material) {
+        return true;
+    }
+
+    /**
+     * Vérifie si le joueur a une mission de kills active portant sur ce type d'entité
+     */
+    default boolean isRelevant(UUID playerUuid, EntityType entityType) {
+        return true;
+    }
 }
@@ -1,7 +1,10 @@
 package loyfael.api.interfaces;
 
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
+import java.util.UUID;
+
 /**
  * Interface pour les services de notification et messaging
  * Principe de responsabilité unique - centralisation des messages
@@ -18,6 +21,37 @@ public interface INotificationService {
      */
     void sendActionBar(Player player, String messageKey, Object... placeholders);
 
+    /**
+     * Met en attente une barre d'action de progression : seule la dernière valeur par joueur
+     * est envoyée, au plus une fois par intervalle
+     */
+    default void queueProgressActionBar(Player player, String messageKey, int current, int target) {
+        sendActionBar(player, messageKey, current, target);
+    }
+
+    /**
+     * Annule la barre d'action de progression en attente d'un joueur (ex: mission terminée)
+     */
+    default void cancelProgressActionBar(Player player) {
+    }
+
+    /**
+     * Met en attente une barre d'action de progression par UUID (appelable hors du thread principal) :
+     * le joueur n'est recherché qu'à l'envoi
+     */
+    default void queueProgressActionBar(UUID playerUuid, String messageKey, int current, int target) {
+        Player player = Bukkit.getPlayer(playerUuid);
+        if (player != null) {
+            queueProgressActionBar(player, messageKey, current, target);
+        }
+    }
+
+    /**
+     * Annule la barre d'action de progression en attente d'un joueur, par UUID
+     */
+    default void cancelProgressActionBar(UUID playerUuid) {
+    }
+
     /**
      * Envoie un titre à un joueur
      */
@@ -2,7 +2,9 @@ package loyfael.api.interfaces;
 
 import org.bukkit.entity.Player;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Interface pour les services de gestion des joueurs
@@ -15,16 +17,57 @@ public interface IPlayerService {
      */
     Optional<PlayerData> getPlayerData(String playerUuid);
 
+    /**
+     * Récupère les données d'un joueur (sans conversion de l'UUID en clé texte)
+     * Une seule requête au plus : un profil absent est mémorisé et n'est pas redemandé à la base
+     */
+    Optional<PlayerData> getPlayerData(UUID playerUuid);
+
+    /**
+     * Charge les données d'un joueur ou constate son absence
+     * Contrairement à getPlayerData, lève une exception en cas d'erreur de stockage (comme IDatabaseService.find) :
+     * une panne ne doit pas passer pour une absence
+     */
+    Optional<PlayerData> findPlayerData(UUID playerUuid);
+
+    /**
+     * Charge le profil d'un joueur, ou le crée si son absence est confirmée
+     * Lève une exception en cas d'erreur de stockage : créer un profil vierge écraserait le profil existant
+     */
+    PlayerData getOrCreatePlayer(UUID playerUuid, String playerName);
+
+    /**
+     * Oublie la version locale d'un joueur modifié par un autre serveur : le prochain chargement lit la base,
+     * fusionnée avec l'écriture locale en attente
+     */
+    void invalidateRemoteChange(UUID playerUuid);
+
+    /**
+     * Recharge les données d'un joueur modifiées par un autre serveur (lecture bloquante, hors thread principal)
+     * Une écriture locale en attente est fusionnée avec la version en base au lieu de la masquer
+     */
+    Optional<PlayerData> reloadPlayerData(UUID playerUuid);
+
     /**
      * Sauvegarde les données d'un joueur
      */
     void savePlayerData(String playerUuid, PlayerData data);
 
+    /**
+     * Sauvegarde les données de plusieurs joueurs en un seul lot
+     */
+    void saveAllPlayerData(Map<String, PlayerData> playersData);
+
     /**
      * Vérifie si un joueur existe dans la base de données
      */
     boolean playerExists(String playerUuid);
 
+    /**
+     * Vérifie si un joueur existe dans la base de données (charge le profil dans la même requête)
+     */
+    boolean playerExists(UUID playerUuid);
+
     /**
      * Crée un nouveau profil joueur
      */
@@ -35,11 +78,28 @@ public interface IPlayerService {
      */
     void updateLastSeen(String playerUuid);
 
+    /**
+     * Prépare le profil d'un joueur qui se connecte (hors thread principal) : une seule lecture,
+     * fusion avec la version locale, création si nécessaire, sans écriture (la connexion peut encore être refusée)
+     */
+    PlayerData preparePlayer(UUID playerUuid, String playerName);
+
+    /**
+     * Écrit le profil préparé une fois la connexion acceptée (PlayerJoinEvent), en une seule écriture
+     * Retourne false si aucun profil n'a été préparé pour ce joueur
+     */
+    boolean commitPreparedPlayer(UUID playerUuid);
+
     /**
      * Récup��re le niveau actuel d'un joueur
      */
     int getPlayerLevel(String playerUuid);
 
+    /**
+     * Récupère le niveau actuel d'un joueur (chemin rapide des événements)
+     */
+    int getPlayerLevel(UUID playerUuid);
+
     /**
      * Met à jour le niveau d'un joueur
      */
@@ -55,11 +115,47 @@ public interface IPlayerService {
      */
     List<PlayerData> getTopPlayers(int limit);
 
+    /**
+     * Récupère le rang d'un joueur dans le classement (1 = premier)
+     */
+    int getPlayerRank(String playerUuid);
+
+    /**
+     * Reconstruit l'index du classement depuis la base de données
+     */
+    void rebuildLeaderboard();
+
     /**
      * Récupère les statistiques d'un joueur
      */
     PlayerStats getPlayerStats(String playerUuid);
 
+    /**
+     * Enregistre un écouteur appelé avec le niveau connu d'un joueur à chaque chargement,
+     * sauvegarde ou changement de niveau (y compris les données rechargées depuis un autre serveur)
+     */
+    default void addLevelListener(java.util.function.ObjIntConsumer<UUID> listener) {
+    }
+
+    /**
+     * Démarre l'écriture différée des données joueurs (dépend de la configuration)
+     */
+    default void initialize() {
+    }
+
+    /**
+     * Écrit les sauvegardes en attente et arrête l'écriture différée
+     */
+    default void shutdown() {
+    }
+
+    /**
+     * Statistiques de persistance (file d'écriture, back-pressure)
+     */
+    default String getPersistenceStats() {
+        return "";
+    }
+
     /**
      * Classe représentant les données d'un joueur
      */
@@ -79,7 +175,7 @@ public interface IPlayerService {
             this.level = 0;
             this.lastSeen = System.currentTimeMillis();
             this.buttonAmount = 0;
-            this.missionProgress = new java.util.HashMap<>();
+            this.missionProgress = new java.util.concurrent.ConcurrentHashMap<>();
             this.customData = new java.util.HashMap<>();
         }
 
@@ -90,7 +186,7 @@ public interface IPlayerService {
             this.level = level;
             this.lastSeen = lastSeen;
             this.buttonAmount = buttonAmount;
-            this.missionProgress = new java.util.HashMap<>();
+            this.missionProgress = new java.util.concurrent.ConcurrentHashMap<>();
             this.customData = new java.util.HashMap<>();
         }
 
@@ -110,8 +206,25 @@ public interface IPlayerService {
         public int getButtonAmount() { return buttonAmount; }
         public void setButtonAmount(int buttonAmount) { this.buttonAmount = buttonAmount; }
 
+        /**
+         * Progression des missions : modifiée depuis plusieurs threads (thread principal, traitement
+         * des événements, report des compteurs), toujours une ConcurrentHashMap
+         * Copier avant de parcourir plusieurs fois (sérialisation)
+         */
         public java.util.Map<String, Integer> getMissionProgress() { return missionProgress; }
-        public void setMissionProgress(java.util.Map<String, Integer> missionProgress) { this.missionProgress = missionProgress; }
+        public void setMissionProgress(java.util.Map<String, Integer> missionProgress) {
+            if (missionProgress == null || missionProgress instanceof java.util.concurrent.ConcurrentHashMap) {
+                this.missionProgress = missionProgress;
+                return;
+            }
+            java.util.Map<String, Integer> concurrent = new java.util.concurrent.ConcurrentHashMap<>(Math.max(16, missionProgress.size() * 2));
+            missionProgress.forEach((key, value) -> {
+                if (key != null && value != null) {
+                    concurrent.put(key, value);
+                }
+            });
+            this.missionProgress = concurrent;
+        }
 
         public java.util.Map<String, Object> getCustomData() { return customData; }
         public void setCustomData(java.util.Map<String, Object> customData) { this.customData = customData; }
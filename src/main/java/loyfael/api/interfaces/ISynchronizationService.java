@@ -29,6 +29,18 @@ public interface ISynchronizationService {
      */
     CompletableFuture<Boolean> forceSync(String playerUuid);
 
+    /**
+     * Vérifie après la connexion que le profil lu à loadedAt est toujours le plus récent (écriture différée
+     * du serveur précédent arrivée depuis) et le recharge, fusionné, s'il a été modifié par un autre serveur
+     * Retourne true si le profil a été rechargé
+     */
+    CompletableFuture<Boolean> checkFreshness(String playerUuid, long loadedAt);
+
+    /**
+     * Oublie l'état de synchronisation d'un joueur déconnecté
+     */
+    void forgetPlayer(String playerUuid);
+
     /**
      * Notifie les autres serveurs d'un changement de données
      */
@@ -118,6 +118,7 @@ public final class ImprovedLevelsCMD implements CommandExecutor, TabCompleter {
             try {
                 configService.reload();
                 notificationService.reloadMessages();
+                missionService.reloadSettings();
 
                 // Reconnect to MongoDB if it's the active backend (ensures new host/port changes are applied)
                 try {
@@ -130,6 +131,15 @@ public final class ImprovedLevelsCMD implements CommandExecutor, TabCompleter {
                         String afterHost = (mongoDb.getLastHost() == null ? "?" : mongoDb.getLastHost());
                         int afterPort = mongoDb.getLastPort();
                         Utils.sendConsoleLog("&eReload MongoDB: before=" + beforeHost + ":" + beforePort + " -> after=" + afterHost + ":" + afterPort + " status=" + (ok?"OK":"FAIL"));
+                    } else if (db instanceof loyfael.core.services.InMemoryDatabaseService memoryDb) {
+                        // Simulated latency/errors change without losing the stored data
+                        memoryDb.loadSettings();
+                    } else if (db instanceof loyfael.core.services.YamlDatabaseService yamlDb) {
+                        // New write interval applies to the next scheduled write
+                        yamlDb.loadSettings();
+                    } else if (db instanceof loyfael.core.services.JournalDatabaseService journalDb) {
+                        // New fsync policy and compaction threshold apply without reopening the journal
+                        journalDb.loadSettings();
                     }
                 } catch (Exception ex) {
                     Utils.sendConsoleLog("&cErreur lors du rechargement MongoDB: " + ex.getMessage());
@@ -165,10 +175,13 @@ public final class ImprovedLevelsCMD implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        // Vérifier si le joueur existe, sinon le créer
+        // Vérifier si le joueur existe, sinon le créer (seulement si son absence est confirmée)
         String playerUuid = player.getUniqueId().toString();
-        if (!playerService.playerExists(playerUuid)) {
-            playerService.createPlayer(playerUuid, player.getName());
+        try {
+            playerService.getOrCreatePlayer(player.getUniqueId(), player.getName());
+        } catch (Exception e) {
+            player.sendMessage("§cImpossible de charger votre profil, réessayez dans quelques instants.");
+            return true;
         }
 
         // Utiliser le service GUI pour ouvrir le menu des niveaux
@@ -390,8 +403,11 @@ public final class ImprovedLevelsCMD implements CommandExecutor, TabCompleter {
         }
 
         String targetUuid = targetPlayer.getUniqueId().toString();
-        if (!playerService.playerExists(targetUuid)) {
-            playerService.createPlayer(targetUuid, targetPlayer.getName());
+        try {
+            playerService.getOrCreatePlayer(targetPlayer.getUniqueId(), targetPlayer.getName());
+        } catch (Exception e) {
+            sender.sendMessage("§cImpossible de charger le profil de " + targetPlayer.getName() + ", réessayez dans quelques instants.");
+            return true;
         }
 
         boolean rewarded = missionService.forceCompleteLevel(targetPlayer, targetLevel);
@@ -535,8 +551,15 @@ public final class ImprovedLevelsCMD implements CommandExecutor, TabCompleter {
         // Pour les tests, pas besoin de permission spéciale
         String playerUuid = player.getUniqueId().toString();
 
-        // S'assurer que le joueur a un profil
-        if (!playerService.playerExists(playerUuid)) {
+        // S'assurer que le joueur a un profil (création seulement si son absence est confirmée)
+        boolean created;
+        try {
+            created = playerService.findPlayerData(player.getUniqueId()).isEmpty();
+        } catch (Exception e) {
+            player.sendMessage("§cImpossible de charger votre profil, réessayez dans quelques instants.");
+            return true;
+        }
+        if (created) {
             playerService.createPlayer(playerUuid, player.getName());
 
             // Assigner automatiquement la mission pour passer niveau 1
@@ -804,8 +827,7 @@ public final class ImprovedLevelsCMD implements CommandExecutor, TabCompleter {
 
                 case "reload" -> {
                     // Vider le cache pour forcer le rechargement depuis la base
-                    String cacheKey = "player_" + playerUuid;
-                    cacheService.remove(cacheKey);
+                    cacheService.invalidatePlayer(playerUuid);
                     
                     player.sendMessage("§aDonnées rechargées depuis la base de données");
                     
@@ -1,11 +1,16 @@
 package loyfael.commands;
 
 import loyfael.Main;
+import loyfael.api.interfaces.ICacheService;
 import loyfael.api.interfaces.IPlayerService;
 import loyfael.api.interfaces.INotificationService;
 import loyfael.api.interfaces.ISynchronizationService;
 import loyfael.api.interfaces.IGuiService;
 import loyfael.api.interfaces.IPlayerService.PlayerData;
+import loyfael.core.services.InMemoryDatabaseService;
+import loyfael.core.services.JournalDatabaseService;
+import loyfael.core.services.YamlDatabaseService;
+import loyfael.utils.Utils;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -57,12 +62,53 @@ public class MissionCMD implements CommandExecutor, TabCompleter {
                 return handleTestSyncCommand(sender, args);
             case "player":
                 return handlePlayerCommand(sender, args);
+            case "cache":
+                return handleCacheCommand(sender, args);
             default:
                 showHelp(sender);
                 return true;
         }
     }
 
+    /**
+     * Affiche les statistiques du cache ou le vide
+     */
+    private boolean handleCacheCommand(CommandSender sender, String[] args) {
+        if (!hasPermissionForCommand(sender, "cache")) {
+            sender.sendMessage("§cVous n'avez pas la permission d'utiliser cette commande.");
+            return true;
+        }
+
+        String action = args.length > 1 ? args[1].toLowerCase() : "stats";
+        ICacheService cacheService = Main.getInstance().getCacheService();
+
+        switch (action) {
+            case "clear":
+                cacheService.clear();
+                sender.sendMessage("§aCache vidé.");
+                break;
+            case "stats":
+                sender.sendMessage(Utils.color(cacheService.getStats()));
+                sender.sendMessage(Utils.color(playerService.getPersistenceStats()));
+                if (Main.getInstance().getDatabaseService() instanceof InMemoryDatabaseService memoryDb) {
+                    memoryDb.getStats().forEach(line -> sender.sendMessage(Utils.color(line)));
+                } else if (Main.getInstance().getDatabaseService() instanceof YamlDatabaseService yamlDb) {
+                    sender.sendMessage(Utils.color(yamlDb.getStats()));
+                } else if (Main.getInstance().getDatabaseService() instanceof JournalDatabaseService journalDb) {
+                    sender.sendMessage(Utils.color(journalDb.getStats()));
+                }
+                break;
+            default:
+                if (sender instanceof Player) {
+                    notificationService.sendMessage((Player) sender, "commands.cache.usage");
+                } else {
+                    sender.sendMessage("§cUsage: /mission cache <clear|stats>");
+                }
+                break;
+        }
+        return true;
+    }
+
     /**
      * Ouvre le menu des missions
      */
@@ -79,10 +125,13 @@ public class MissionCMD implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        // Vérifier si le joueur existe, sinon le créer
+        // Vérifier si le joueur existe, sinon le créer (seulement si son absence est confirmée)
         String playerUuid = player.getUniqueId().toString();
-        if (!playerService.playerExists(playerUuid)) {
-            playerService.createPlayer(playerUuid, player.getName());
+        try {
+            playerService.getOrCreatePlayer(player.getUniqueId(), player.getName());
+        } catch (Exception e) {
+            player.sendMessage("§cImpossible de charger votre profil, réessayez dans quelques instants.");
+            return true;
         }
 
         // Utiliser le service GUI pour ouvrir le menu des niveaux/missions
@@ -108,6 +157,7 @@ public class MissionCMD implements CommandExecutor, TabCompleter {
             notificationService.sendMessage((Player) sender, "commands.help.set");
             notificationService.sendMessage((Player) sender, "commands.help.testsync");
             notificationService.sendMessage((Player) sender, "commands.help.player");
+            notificationService.sendMessage((Player) sender, "commands.help.cache");
         } else {
             sender.sendMessage("§6=== Commandes Missions ===");
             sender.sendMessage("§e/mission info §7- Affiche vos informations");
@@ -115,6 +165,7 @@ public class MissionCMD implements CommandExecutor, TabCompleter {
             sender.sendMessage("§e/mission set <joueur> <niveau> §7- Définit le niveau");
             sender.sendMessage("§e/mission testsync [info|force|status|clear] [joueur] §7- Test synchronisation");
             sender.sendMessage("§e/mission player <pseudo> [serveur] §7- Voir niveau par serveur");
+            sender.sendMessage("§e/mission cache <stats|clear> §7- Statistiques du cache");
         }
     }
 
@@ -457,7 +508,7 @@ public class MissionCMD implements CommandExecutor, TabCompleter {
 
         if (args.length == 1) {
             // Première suggestion : sous-commandes
-            List<String> subCommands = Arrays.asList("info", "reset", "set", "testsync", "player");
+            List<String> subCommands = Arrays.asList("info", "reset", "set", "testsync", "player", "cache");
             suggestions.addAll(subCommands.stream()
                 .filter(cmd -> cmd.toLowerCase().startsWith(args[0].toLowerCase()))
                 .collect(Collectors.toList()));
@@ -470,6 +521,10 @@ public class MissionCMD implements CommandExecutor, TabCompleter {
                     .map(Player::getName)
                     .filter(name -> name.toLowerCase().startsWith(args[1].toLowerCase()))
                     .collect(Collectors.toList()));
+            } else if ("cache".equals(subCommand)) {
+                suggestions.addAll(Arrays.asList("stats", "clear").stream()
+                    .filter(action -> action.startsWith(args[1].toLowerCase()))
+                    .collect(Collectors.toList()));
             } else if ("testsync".equals(subCommand)) {
                 List<String> syncActions = Arrays.asList("info", "force", "status", "clear");
                 suggestions.addAll(syncActions.stream()
@@ -508,6 +563,8 @@ public class MissionCMD implements CommandExecutor, TabCompleter {
                 return sender.hasPermission("krakenlevels.testsync");
             case "player":
                 return sender.hasPermission("krakenlevels.admin.player");
+            case "cache":
+                return sender.hasPermission("krakenlevels.admin.cache");
             default:
                 return false;
         }
@@ -65,7 +65,7 @@ public class ServiceContainer implements IServiceContainer {
         // 2. Cache
         if (hasService(ICacheService.class)) {
             logger.info("[KrakenLevels] Initialisation du service de cache...");
-            // Le cache n'a pas besoin d'initialisation particulière
+            getService(ICacheService.class).initialize();
         }
 
         // 3. Base de données (dépend de la configuration)
@@ -80,6 +80,23 @@ public class ServiceContainer implements IServiceContainer {
             // Le LevelsConfigService s'initialise dans son constructeur, pas besoin d'appeler initialize()
         }
 
+        // 4.2. Écriture différée des données joueurs (dépend de la configuration et de la base de données)
+        if (hasService(IPlayerService.class)) {
+            getService(IPlayerService.class).initialize();
+        }
+
+        // 4.3. Progression des missions (dépend de la configuration et des données joueurs)
+        if (hasService(IMissionService.class)) {
+            getService(IMissionService.class).initialize();
+        }
+
+        // 4.5. Index du classement (dépend de la base de données, construit une seule fois)
+        if (hasService(IPlayerService.class) && hasService(IDatabaseService.class)
+                && getService(IDatabaseService.class).isConnected()) {
+            logger.info("[KrakenLevels] Construction de l'index du classement...");
+            getService(IPlayerService.class).rebuildLeaderboard();
+        }
+
         // 5. Service de synchronisation (dépend de la base de données et de la configuration)
         if (hasService(ISynchronizationService.class)) {
             logger.info("[KrakenLevels] Initialisation du service de synchronisation...");
@@ -101,19 +118,26 @@ public class ServiceContainer implements IServiceContainer {
 
     @Override
     public void shutdownServices() {
-        services.values().forEach(service -> {
-            try {
-                if (service instanceof ISynchronizationService) {
-                    ((ISynchronizationService) service).stop();
-                } else if (service instanceof IConfigurationService) {
-                    ((IConfigurationService) service).shutdown();
-                } else if (service instanceof IDatabaseService) {
-                    ((IDatabaseService) service).disconnect();
-                }
-            } catch (Exception e) {
-                logger.warning("Erreur lors de l'arrêt du service " + service.getClass().getSimpleName() + ": " + e.getMessage());
-            }
-        });
+        // Ordre explicite : les écritures en attente doivent partir avant la déconnexion de la base
+        shutdownService(ISynchronizationService.class, ISynchronizationService::stop);
+        shutdownService(IMissionService.class, IMissionService::shutdown);
+        shutdownService(IPlayerService.class, IPlayerService::shutdown);
+        shutdownService(IConfigurationService.class, IConfigurationService::shutdown);
+        shutdownService(IDatabaseService.class, IDatabaseService::disconnect);
+        shutdownService(ICacheService.class, ICacheService::shutdown);
+    }
+
+    private <T> void shutdownService(Class<T> serviceInterface, java.util.function.Consumer<T> shutdownAction) {
+        if (!hasService(serviceInterface)) {
+            return;
+        }
+
+        T service = getService(serviceInterface);
+        try {
+            shutdownAction.accept(service);
+        } catch (Exception e) {
+            logger.warning("Erreur lors de l'arrêt du service " + service.getClass().getSimpleName() + ": " + e.getMessage());
+        }
     }
 
     @Override
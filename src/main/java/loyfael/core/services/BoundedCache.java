@@ -0,0 +1,377 @@
+package loyfael.core.services;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Cache borné avec politique d'éviction inspirée de W-TinyLFU
+ * Une petite fenêtre LRU accueille les nouvelles entrées ; à sa sortie, une entrée n'entre
+ * dans la zone principale que si elle est plus fréquente que la victime LRU de celle-ci
+ * (fréquences estimées par un count-min sketch vieillissant). Les entrées épinglées (joueurs
+ * connectés) ne sont jamais évincées, ni par la taille ni par leur TTL : seule une invalidation
+ * explicite les retire
+ */
+final class BoundedCache<K, V> {
+
+    private static final int WINDOW_PERCENT = 1;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Predicate<K> pinned;
+
+    // Listes LRU (tête = moins récemment utilisé), protégées par evictionLock
+    private final Node<K, V> window = Node.sentinel();
+    private final Node<K, V> main = Node.sentinel();
+    private int windowSize;
+    private int mainSize;
+
+    private volatile int maximumSize;
+    private FrequencySketch sketch;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    BoundedCache(int maximumSize, Predicate<K> pinned) {
+        this.pinned = pinned;
+        setMaximumSize(maximumSize);
+    }
+
+    /**
+     * Modifie la taille maximale (les entrées en trop sont évincées immédiatement)
+     */
+    void setMaximumSize(int maximumSize) {
+        evictionLock.lock();
+        try {
+            this.maximumSize = Math.max(1, maximumSize);
+            this.sketch = new FrequencySketch(this.maximumSize);
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    V get(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (isExpired(node, System.currentTimeMillis())) {
+            remove(key, node);
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        // Réordonnancement opportuniste : un lecteur ne bloque jamais sur le verrou d'éviction
+        if (evictionLock.tryLock()) {
+            try {
+                sketch.increment(key);
+                if (node.queue != null) {
+                    node.unlink();
+                    node.queue.linkLast(node);
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    /**
+     * Lecture sans effet sur les statistiques ni sur l'ordre d'éviction
+     */
+    V peek(K key) {
+        Node<K, V> node = data.get(key);
+        return node != null && !isExpired(node, System.currentTimeMillis()) ? node.value : null;
+    }
+
+    boolean containsKey(K key) {
+        return peek(key) != null;
+    }
+
+    void put(K key, V value, long ttlMs) {
+        long expirationTime = System.currentTimeMillis() + ttlMs;
+
+        evictionLock.lock();
+        try {
+            sketch.increment(key);
+            Node<K, V> existing = data.get(key);
+            if (existing != null) {
+                existing.value = value;
+                existing.expirationTime = expirationTime;
+                existing.unlink();
+                existing.queue.linkLast(existing);
+                return;
+            }
+
+            Node<K, V> node = new Node<>(key, value, expirationTime);
+            data.put(key, node);
+            node.queue = window;
+            window.linkLast(node);
+            windowSize++;
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    void setExpiration(K key, long expirationTime) {
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            node.expirationTime = expirationTime;
+        }
+    }
+
+    void remove(K key) {
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            remove(key, node);
+        }
+    }
+
+    private void remove(K key, Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            if (data.remove(key, node)) {
+                detach(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    void clear() {
+        evictionLock.lock();
+        try {
+            data.clear();
+            window.prev = window.next = window;
+            main.prev = main.next = main;
+            windowSize = 0;
+            mainSize = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Supprime les entrées expirées
+     */
+    void cleanUp() {
+        long now = System.currentTimeMillis();
+        data.forEach((key, node) -> {
+            if (isExpired(node, now)) {
+                remove(key, node);
+            }
+        });
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return node.expirationTime < now && !pinned.test(node.key);
+    }
+
+    int size() {
+        return data.size();
+    }
+
+    int getMaximumSize() {
+        return maximumSize;
+    }
+
+    long getHits() { return hits.get(); }
+    long getMisses() { return misses.get(); }
+    long getEvictions() { return evictions.get(); }
+
+    /**
+     * Applique la politique d'éviction (appelé sous evictionLock)
+     */
+    private void evict() {
+        int windowMax = Math.max(1, maximumSize * WINDOW_PERCENT / 100);
+        int mainMax = Math.max(1, maximumSize - windowMax);
+
+        // Les entrées qui sortent de la fenêtre sont candidates à la zone principale
+        int attempts = windowSize + mainSize;
+        while (windowSize > windowMax && attempts-- > 0) {
+            Node<K, V> candidate = window.next;
+            candidate.unlink();
+            windowSize--;
+
+            if (mainSize < mainMax) {
+                admit(candidate);
+                continue;
+            }
+
+            Node<K, V> victim = firstUnpinned(main);
+            if (victim == null) {
+                if (pinned.test(candidate.key)) {
+                    admit(candidate); // Tout est épinglé : dépassement toléré
+                } else {
+                    evictNode(candidate);
+                }
+                continue;
+            }
+
+            if (pinned.test(candidate.key) || sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                victim.unlink();
+                mainSize--;
+                evictNode(victim);
+                admit(candidate);
+            } else {
+                evictNode(candidate);
+            }
+        }
+
+        // Réduction de taille maximale : purger la zone principale
+        while (mainSize > mainMax) {
+            Node<K, V> victim = firstUnpinned(main);
+            if (victim == null) {
+                break;
+            }
+            victim.unlink();
+            mainSize--;
+            evictNode(victim);
+        }
+    }
+
+    private Node<K, V> firstUnpinned(Node<K, V> queue) {
+        for (Node<K, V> node = queue.next; node != queue; node = node.next) {
+            if (!pinned.test(node.key)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private void admit(Node<K, V> node) {
+        node.queue = main;
+        main.linkLast(node);
+        mainSize++;
+    }
+
+    private void evictNode(Node<K, V> node) {
+        node.queue = null;
+        if (data.remove(node.key, node)) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void detach(Node<K, V> node) {
+        if (node.queue == window) {
+            windowSize--;
+        } else if (node.queue == main) {
+            mainSize--;
+        }
+        if (node.queue != null) {
+            node.unlink();
+            node.queue = null;
+        }
+    }
+
+    /**
+     * Nœud de liste doublement chaînée
+     */
+    private static final class Node<K, V> {
+        private final K key;
+        private volatile V value;
+        private volatile long expirationTime;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+        private Node<K, V> queue;
+
+        private Node(K key, V value, long expirationTime) {
+            this.key = key;
+            this.value = value;
+            this.expirationTime = expirationTime;
+        }
+
+        private static <K, V> Node<K, V> sentinel() {
+            Node<K, V> sentinel = new Node<>(null, null, Long.MAX_VALUE);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        private void linkLast(Node<K, V> node) {
+            node.prev = prev;
+            node.next = this;
+            prev.next = node;
+            prev = node;
+        }
+
+        private void unlink() {
+            if (prev != null) {
+                prev.next = next;
+                next.prev = prev;
+                prev = null;
+                next = null;
+            }
+        }
+    }
+
+    /**
+     * Count-min sketch à compteurs 4 bits, divisés par deux périodiquement (vieillissement)
+     */
+    private static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = { 0x97cb3127, 0x5c6b1d5f, 0x3b7c9a1d, 0x7f4a7c15 };
+
+        private final byte[] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int maximumSize) {
+            int width = Integer.highestOneBit(Math.max(16, maximumSize * 4) - 1) << 1;
+            this.counters = new byte[width * DEPTH];
+            this.mask = width - 1;
+            this.sampleSize = Math.max(64, maximumSize * 10);
+        }
+
+        private void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                int index = indexOf(hash, i);
+                if (counters[index] < 15) {
+                    counters[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < DEPTH; i++) {
+                frequency = Math.min(frequency, counters[indexOf(hash, i)]);
+            }
+            return frequency;
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+            h ^= h >>> 16;
+            return row * (mask + 1) + (h & mask);
+        }
+
+        private void reset() {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] = (byte) (counters[i] >>> 1);
+            }
+            additions /= 2;
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 17;
+            hash *= 0xed5ad4bb;
+            hash ^= hash >>> 11;
+            return hash;
+        }
+    }
+}
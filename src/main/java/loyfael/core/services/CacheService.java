@@ -1,45 +1,114 @@
 package loyfael.core.services;
 
 import loyfael.api.interfaces.ICacheService;
+import loyfael.api.interfaces.IConfigurationService;
+import loyfael.api.interfaces.IPlayerService.PlayerData;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
- * Service de cache thread-safe avec expiration automatique
+ * Service de cache thread-safe, borné en taille, avec expiration automatique
  * Principe de responsabilité unique : gestion du cache uniquement
  */
 public class CacheService implements ICacheService {
 
-    private final ConcurrentMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(30); // 30 minutes par défaut
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final int DEFAULT_MAX_PLAYERS = 2000;
+
+    // Espaces de clés réservés aux régions typées : interdits dans le cache générique
+    private static final String PLAYERS_REGION = "player_";
+    private static final String EXISTS_REGION = "exists_";
+
+    private final IConfigurationService configService;
+
+    // Joueurs connectés : jamais évincés par la taille
+    private final Set<UUID> pinnedPlayers = ConcurrentHashMap.newKeySet();
+
+    private final BoundedCache<String, Object> cache = new BoundedCache<>(DEFAULT_MAX_ENTRIES, key -> false);
+
+    // Régions typées déclarées, par nom
+    private final Map<String, TypedRegion<?, ?>> regions = new ConcurrentHashMap<>();
+
+    // Région typée des données joueurs : clé UUID, valeur PlayerData sans conversion à la lecture
+    @SuppressWarnings("unchecked")
+    private final TypedRegion<UUID, PlayerData> players =
+        (TypedRegion<UUID, PlayerData>) region(PLAYERS_REGION, UUID.class, PlayerData.class, DEFAULT_MAX_PLAYERS);
+    @SuppressWarnings("unchecked")
+    private final TypedRegion<UUID, Boolean> existence =
+        (TypedRegion<UUID, Boolean>) region(EXISTS_REGION, UUID.class, Boolean.class, DEFAULT_MAX_PLAYERS);
+
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong totalLoadTimeNanos = new AtomicLong();
+
     private final ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
 
     public CacheService() {
+        this(null);
+    }
+
+    public CacheService(IConfigurationService configService) {
+        this.configService = configService;
         // Nettoyage automatique toutes les 5 minutes
         cleanupExecutor.scheduleAtFixedRate(this::cleanupExpiredEntries, 5, 5, TimeUnit.MINUTES);
     }
 
     @Override
-    public void put(String key, Object value) {
-        cache.put(key, new CacheEntry(value, System.currentTimeMillis()));
+    public void initialize() {
+        if (configService == null) {
+            return;
+        }
+
+        int maxEntries = configService.getConfig().getInt("system.cache.max-entries", DEFAULT_MAX_ENTRIES);
+        int maxPlayers = configService.getConfig().getInt("system.cache.max-players", DEFAULT_MAX_PLAYERS);
+        cache.setMaximumSize(maxEntries);
+        players.entries.setMaximumSize(maxPlayers);
+        existence.entries.setMaximumSize(maxPlayers);
     }
 
     @Override
-    public Optional<Object> get(String key) {
-        CacheEntry entry = cache.get(key);
-        if (entry != null && !entry.isExpired()) {
-            return Optional.of(entry.getValue());
+    @SuppressWarnings("unchecked")
+    public <K, V> CacheRegion<K, V> region(String name, Class<K> keyType, Class<V> valueType, int maximumSize) {
+        TypedRegion<?, ?> region = regions.computeIfAbsent(name, regionName -> {
+            // Les régions indexées par UUID contiennent des données joueurs : épinglage des joueurs connectés
+            java.util.function.Predicate<K> pinned = keyType == UUID.class
+                ? key -> pinnedPlayers.contains(key)
+                : key -> false;
+            return new TypedRegion<>(keyType, valueType, new BoundedCache<>(maximumSize, pinned));
+        });
+
+        if (region.keyType != keyType || region.valueType != valueType) {
+            throw new IllegalStateException("Région de cache '" + name + "' déjà déclarée avec les types <"
+                + region.keyType.getSimpleName() + ", " + region.valueType.getSimpleName() + ">");
         }
+        return (CacheRegion<K, V>) region;
+    }
 
-        // Supprimer l'entrée expirée
-        if (entry != null && entry.isExpired()) {
-            cache.remove(key);
+    @Override
+    public void put(String key, Object value) {
+        checkGenericKey(key);
+        cache.put(key, value, DEFAULT_TTL);
+    }
+
+    /**
+     * Les clés des régions typées ne doivent pas transiter par le cache générique (non typé)
+     */
+    private void checkGenericKey(String key) {
+        if (key != null && regions.keySet().stream().anyMatch(key::startsWith)) {
+            throw new IllegalArgumentException("La clé '" + key + "' appartient à une région de cache typée");
         }
+    }
 
-        return Optional.empty();
+    @Override
+    public Optional<Object> get(String key) {
+        return Optional.ofNullable(cache.get(key));
     }
 
     @Override
@@ -49,35 +118,112 @@ public class CacheService implements ICacheService {
 
     @Override
     public void invalidatePlayer(String playerUuid) {
-        cache.entrySet().removeIf(entry -> {
-            String key = entry.getKey();
-            return key.startsWith(playerUuid + "_") || key.equals("exists_" + playerUuid);
-        });
+        try {
+            invalidatePlayer(UUID.fromString(playerUuid));
+        } catch (IllegalArgumentException e) {
+            // Identifiant non-UUID : aucune entrée joueur ne peut lui correspondre
+        }
+    }
+
+    @Override
+    public void invalidatePlayer(UUID playerUuid) {
+        players.invalidate(playerUuid);
+        existence.invalidate(playerUuid);
+    }
+
+    @Override
+    public PlayerData getPlayer(UUID playerUuid) {
+        return players.get(playerUuid);
+    }
+
+    @Override
+    public void putPlayer(UUID playerUuid, PlayerData data, long ttlMs) {
+        players.put(playerUuid, data, ttlMs);
+    }
+
+    @Override
+    public Boolean getPlayerExists(UUID playerUuid) {
+        Boolean exists = existence.entries.peek(playerUuid);
+        if (exists == null) {
+            // Des données en cache impliquent que le joueur existe
+            return players.entries.containsKey(playerUuid) ? Boolean.TRUE : null;
+        }
+        return exists;
+    }
+
+    @Override
+    public void putPlayerExists(UUID playerUuid, boolean exists, long ttlMs) {
+        existence.put(playerUuid, exists, ttlMs);
+    }
+
+    @Override
+    public void setPinned(UUID playerUuid, boolean pinned) {
+        if (pinned) {
+            pinnedPlayers.add(playerUuid);
+        } else {
+            pinnedPlayers.remove(playerUuid);
+        }
+    }
+
+    @Override
+    public void recordLoad(long loadTimeNanos) {
+        loadCount.incrementAndGet();
+        totalLoadTimeNanos.addAndGet(loadTimeNanos);
     }
 
     @Override
     public void clear() {
         cache.clear();
+        regions.values().forEach(region -> region.entries.clear());
     }
 
     @Override
     public boolean contains(String key) {
-        CacheEntry entry = cache.get(key);
-        return entry != null && !entry.isExpired();
+        return cache.containsKey(key);
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        long hitCount = cache.getHits();
+        long missCount = cache.getMisses();
+        long evictionCount = cache.getEvictions();
+        int otherEntries = cache.size();
+        for (Map.Entry<String, TypedRegion<?, ?>> region : regions.entrySet()) {
+            BoundedCache<?, ?> entries = region.getValue().entries;
+            hitCount += entries.getHits();
+            missCount += entries.getMisses();
+            evictionCount += entries.getEvictions();
+            if (!PLAYERS_REGION.equals(region.getKey())) {
+                otherEntries += entries.size();
+            }
+        }
+
+        return new CacheStats(
+            players.size(),
+            players.entries.getMaximumSize(),
+            pinnedPlayers.size(),
+            otherEntries,
+            hitCount,
+            missCount,
+            evictionCount,
+            loadCount.get(),
+            totalLoadTimeNanos.get()
+        );
     }
 
     @Override
     public String getStats() {
-        cleanupExpiredEntries(); // Nettoyer avant de compter
-        return "&7Cache: " + cache.size() + " entrées actives";
+        CacheStats stats = getCacheStats();
+        return String.format(java.util.Locale.ROOT,
+            "&7Cache: %d/%d joueurs (%d épinglés), %d autres entrées | hit %.1f%% (%d/%d), %d évictions, %d chargements (moy. %.2fms)",
+            stats.getPlayerEntries(), stats.getMaxPlayerEntries(), stats.getPinnedPlayers(), stats.getOtherEntries(),
+            stats.getHitRate() * 100, stats.getHitCount(), stats.getHitCount() + stats.getMissCount(),
+            stats.getEvictionCount(), stats.getLoadCount(), stats.getAverageLoadMillis());
     }
 
     @Override
     public void setTtl(String key, long ttlMs) {
-        CacheEntry entry = cache.get(key);
-        if (entry != null) {
-            entry.setExpirationTime(System.currentTimeMillis() + ttlMs);
-        }
+        cache.setExpiration(key, System.currentTimeMillis() + ttlMs);
     }
 
     /**
@@ -85,16 +231,17 @@ public class CacheService implements ICacheService {
      * Utilisé pour les données critiques qui doivent être synchronisées rapidement
      */
     public void putWithShortTtl(String key, Object value) {
-        cache.put(key, new CacheEntry(value, System.currentTimeMillis()));
+        checkGenericKey(key);
         // TTL court pour synchronisation entre serveurs : 30 secondes au lieu de 30 minutes
-        setTtl(key, TimeUnit.SECONDS.toMillis(30));
+        cache.put(key, value, TimeUnit.SECONDS.toMillis(30));
     }
 
     private void cleanupExpiredEntries() {
-        long currentTime = System.currentTimeMillis();
-        cache.entrySet().removeIf(entry -> entry.getValue().isExpired(currentTime));
+        cache.cleanUp();
+        regions.values().forEach(region -> region.entries.cleanUp());
     }
 
+    @Override
     public void shutdown() {
         cleanupExecutor.shutdown();
         try {
@@ -108,34 +255,53 @@ public class CacheService implements ICacheService {
     }
 
     /**
-     * Classe interne pour les entrées du cache avec expiration
+     * Région typée : vérifie les types à chaque insertion pour échouer immédiatement
      */
-    private static class CacheEntry {
-        private final Object value;
-        private final long creationTime;
-        private long expirationTime;
-        private static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(30); // 30 minutes par défaut
-
-        public CacheEntry(Object value, long creationTime) {
-            this.value = value;
-            this.creationTime = creationTime;
-            this.expirationTime = creationTime + DEFAULT_TTL;
+    private static final class TypedRegion<K, V> implements CacheRegion<K, V> {
+        private final Class<K> keyType;
+        private final Class<V> valueType;
+        private final BoundedCache<K, V> entries;
+
+        private TypedRegion(Class<K> keyType, Class<V> valueType, BoundedCache<K, V> entries) {
+            this.keyType = keyType;
+            this.valueType = valueType;
+            this.entries = entries;
+        }
+
+        @Override
+        public V get(K key) {
+            return entries.get(key);
+        }
+
+        @Override
+        public void put(K key, V value, long ttlMs) {
+            // Vérification à l'exécution : protège aussi des appels non typés (raw types, casts)
+            if (!keyType.isInstance(key)) {
+                throw new IllegalArgumentException("Clé de type " + typeName(key) + " au lieu de " + keyType.getSimpleName());
+            }
+            if (!valueType.isInstance(value)) {
+                throw new IllegalArgumentException("Valeur de type " + typeName(value) + " au lieu de " + valueType.getSimpleName());
+            }
+            entries.put(key, value, ttlMs);
         }
 
-        public Object getValue() {
-            return value;
+        @Override
+        public void invalidate(K key) {
+            entries.remove(key);
         }
 
-        public boolean isExpired() {
-            return isExpired(System.currentTimeMillis());
+        @Override
+        public int size() {
+            return entries.size();
         }
 
-        public boolean isExpired(long currentTime) {
-            return currentTime > expirationTime;
+        @Override
+        public Class<V> getValueType() {
+            return valueType;
         }
 
-        public void setExpirationTime(long expirationTime) {
-            this.expirationTime = expirationTime;
+        private static String typeName(Object value) {
+            return value == null ? "null" : value.getClass().getSimpleName();
         }
     }
 }
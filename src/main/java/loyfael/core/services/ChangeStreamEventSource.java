@@ -0,0 +1,179 @@
+package loyfael.core.services;
+
+import loyfael.utils.Utils;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Source de changements basée sur les Change Streams MongoDB (replica set ou cluster shardé)
+ * Les événements émis par ce serveur sont filtrés côté MongoDB et le resume token est persisté
+ * pour reprendre le flux sans perte après un redémarrage
+ */
+public class ChangeStreamEventSource implements SynchronizationService.ChangeEventSource {
+
+    private final MongoCollection<Document> collection;
+    private final MongoCollection<Document> stateCollection;
+    private final String serverName;
+    private final long maxAwaitMs;
+
+    private volatile boolean running = false;
+    private Thread listenerThread;
+    private BsonDocument lastPersistedToken;
+
+    public ChangeStreamEventSource(MongoCollection<Document> collection, MongoCollection<Document> stateCollection,
+                                   String serverName, long maxAwaitMs) {
+        this.collection = collection;
+        this.stateCollection = stateCollection;
+        this.serverName = serverName;
+        this.maxAwaitMs = Math.max(100L, maxAwaitMs);
+    }
+
+    @Override
+    public void start(Consumer<SynchronizationService.ChangeEvent> listener, Consumer<Exception> onFailure) {
+        running = true;
+        listenerThread = new Thread(() -> listen(listener, onFailure), "KrakenLevels-ChangeStream");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            try {
+                listenerThread.join(maxAwaitMs * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            listenerThread = null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "change-stream";
+    }
+
+    private void listen(Consumer<SynchronizationService.ChangeEvent> listener, Consumer<Exception> onFailure) {
+        try {
+            BsonDocument resumeToken = loadResumeToken();
+            try {
+                consume(openStream(resumeToken), listener);
+            } catch (Exception e) {
+                if (!running || resumeToken == null) {
+                    throw e;
+                }
+                // Token trop ancien (sorti de l'oplog) : reprendre depuis maintenant
+                Utils.sendConsoleLog("&eResume token de synchronisation invalide, reprise du flux depuis maintenant");
+                lastPersistedToken = null;
+                consume(openStream(null), listener);
+            }
+        } catch (Exception e) {
+            if (running) {
+                running = false;
+                onFailure.accept(e);
+            }
+        }
+    }
+
+    private ChangeStreamIterable<Document> openStream(BsonDocument resumeToken) {
+        List<Bson> pipeline = List.of(
+            Aggregates.match(Filters.and(
+                Filters.in("operationType", "insert", "replace", "update"),
+                Filters.ne("fullDocument.metadata.lastModifiedBy", serverName))),
+            // Seules les métadonnées sont nécessaires : le document complet est rechargé à la demande
+            Aggregates.project(Projections.include("operationType", "documentKey", "fullDocument.metadata"))
+        );
+
+        ChangeStreamIterable<Document> stream = collection.watch(pipeline)
+            .fullDocument(FullDocument.UPDATE_LOOKUP)
+            .maxAwaitTime(maxAwaitMs, TimeUnit.MILLISECONDS);
+
+        return resumeToken != null ? stream.resumeAfter(resumeToken) : stream;
+    }
+
+    private void consume(ChangeStreamIterable<Document> stream, Consumer<SynchronizationService.ChangeEvent> listener) {
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change == null) {
+                    // Aucun événement pendant maxAwaitMs : moment opportun pour persister le token
+                    persistResumeToken(cursor.getResumeToken());
+                    continue;
+                }
+
+                SynchronizationService.ChangeEvent event = toChangeEvent(change);
+                if (event != null) {
+                    listener.accept(event);
+                }
+            }
+            persistResumeToken(cursor.getResumeToken());
+        }
+    }
+
+    private SynchronizationService.ChangeEvent toChangeEvent(ChangeStreamDocument<Document> change) {
+        BsonDocument documentKey = change.getDocumentKey();
+        if (documentKey == null || !documentKey.isString("_id")) {
+            return null;
+        }
+
+        Document fullDocument = change.getFullDocument();
+        Document metadata = fullDocument != null ? fullDocument.get("metadata", Document.class) : null;
+        Object lastModified = metadata != null ? metadata.get("lastModified") : null;
+
+        return new SynchronizationService.ChangeEvent(
+            documentKey.getString("_id").getValue(),
+            lastModified instanceof Number ? ((Number) lastModified).longValue() : System.currentTimeMillis(),
+            metadata != null ? metadata.getString("lastModifiedBy") : null);
+    }
+
+    private BsonDocument loadResumeToken() {
+        try {
+            Document state = stateCollection.find(new Document("_id", stateId())).first();
+            if (state != null) {
+                Document token = state.get("resumeToken", Document.class);
+                if (token != null) {
+                    lastPersistedToken = BsonDocument.parse(token.toJson());
+                    return lastPersistedToken;
+                }
+            }
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&eImpossible de lire le resume token de synchronisation: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private void persistResumeToken(BsonDocument token) {
+        if (token == null || token.equals(lastPersistedToken)) {
+            return;
+        }
+
+        try {
+            Document state = new Document("_id", stateId())
+                .append("resumeToken", Document.parse(token.toJson()))
+                .append("updatedAt", System.currentTimeMillis());
+            stateCollection.replaceOne(new Document("_id", stateId()), state, new ReplaceOptions().upsert(true));
+            lastPersistedToken = token;
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&eImpossible de persister le resume token de synchronisation: " + e.getMessage());
+        }
+    }
+
+    private String stateId() {
+        return "resume_" + serverName;
+    }
+}
@@ -0,0 +1,478 @@
+package loyfael.core.services;
+
+import loyfael.api.interfaces.IConfigurationService;
+import loyfael.utils.Utils;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Implémentation en mémoire du service de base de données, destinée aux tests de charge
+ * Latence, gigue, taux d'erreur et débit maximal sont simulés (database.memory.*) pour reproduire
+ * localement une base lente ou en panne ; les erreurs simulées suivent la même politique que MongoDB
+ * (lectures et écritures unitaires journalisées, lots et find en exception)
+ * Chaque opération est comptée, avec le temps passé sur le thread principal
+ */
+public class InMemoryDatabaseService extends AbstractDatabaseService {
+
+    /**
+     * Opérations comptées (un lot compte pour un seul aller-retour)
+     */
+    public enum Operation {
+        SAVE, SAVE_ALL, UPDATE_ALL, GET, FIND, GET_ALL, DELETE, EXISTS, PREFIX_SCAN, FIND_TOP, BACKUP
+    }
+
+    // Entrées triées par clé : les recherches par préfixe sont des parcours de sous-intervalle
+    // Les valeurs sont des copies immuables, comme un document relu depuis la base
+    private final ConcurrentSkipListMap<String, Object> entries = new ConcurrentSkipListMap<>();
+    private final Map<Operation, OperationCounters> counters = new EnumMap<>(Operation.class);
+
+    // Simulation, lue à l'initialisation (ou fixée par configure)
+    private volatile long latencyNanos;
+    private volatile long jitterNanos;
+    private volatile double errorRate;
+    private volatile long permitIntervalNanos;
+    private final AtomicLong nextPermitNanos = new AtomicLong();
+
+    private volatile Map<String, Object> lastBackup = Collections.emptyMap();
+
+    public InMemoryDatabaseService(IConfigurationService configService) {
+        super(configService);
+        for (Operation operation : Operation.values()) {
+            counters.put(operation, new OperationCounters());
+        }
+    }
+
+    @Override
+    protected boolean doInitialize() {
+        loadSettings();
+        Utils.sendConsoleLog("&eStockage en mémoire (tests de charge) : " + entries.size() + " entrées, "
+            + "latence " + TimeUnit.NANOSECONDS.toMicros(latencyNanos) / 1000.0 + "ms ± "
+            + TimeUnit.NANOSECONDS.toMicros(jitterNanos) / 1000.0 + "ms, erreurs " + errorRate * 100 + "%, "
+            + (permitIntervalNanos > 0 ? TimeUnit.SECONDS.toNanos(1) / permitIntervalNanos + " op/s max" : "débit illimité"));
+        return true;
+    }
+
+    @Override
+    protected void doDisconnect() {
+        // Les données sont conservées jusqu'à l'arrêt du serveur, comme celles d'une base externe
+    }
+
+    /**
+     * Relit la simulation depuis la configuration (database.memory.*)
+     */
+    public void loadSettings() {
+        FileConfiguration config = configService != null ? configService.getConfig() : null;
+        if (config == null) {
+            return;
+        }
+        configure(config.getDouble("database.memory.latency-ms", 0),
+            config.getDouble("database.memory.jitter-ms", 0),
+            config.getDouble("database.memory.error-rate", 0),
+            config.getInt("database.memory.max-ops-per-second", 0));
+    }
+
+    /**
+     * Fixe la simulation : latence de base et gigue aléatoire (ms), part d'opérations en échec (0 à 1),
+     * nombre maximal d'opérations par seconde (0 = illimité)
+     */
+    public void configure(double latencyMs, double jitterMs, double errorRate, int maxOpsPerSecond) {
+        this.latencyNanos = Math.max(0L, (long) (latencyMs * 1_000_000));
+        this.jitterNanos = Math.max(0L, (long) (jitterMs * 1_000_000));
+        this.errorRate = Math.max(0D, Math.min(1D, errorRate));
+        this.permitIntervalNanos = maxOpsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxOpsPerSecond : 0L;
+    }
+
+    @Override
+    public void saveData(String key, Object value) {
+        validateKey(key);
+        ensureConnected();
+
+        long start = begin();
+        try {
+            simulate(Operation.SAVE);
+            entries.put(key, StoredDocuments.freeze(value));
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la sauvegarde en mémoire: " + e.getMessage());
+        } finally {
+            end(Operation.SAVE, start);
+        }
+    }
+
+    @Override
+    public void saveAll(Map<String, Object> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Les valeurs ne peuvent pas être null");
+        }
+        ensureConnected();
+        if (values.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> frozen = new HashMap<>(values.size() * 2);
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            validateKey(entry.getKey());
+            frozen.put(entry.getKey(), StoredDocuments.freeze(entry.getValue()));
+        }
+
+        long start = begin();
+        try {
+            simulate(Operation.SAVE_ALL);
+            entries.putAll(frozen);
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la sauvegarde groupée de " + frozen.size() + " entrées en mémoire: " + e.getMessage());
+            throw new IllegalStateException("Échec de la sauvegarde groupée en mémoire", e);
+        } finally {
+            end(Operation.SAVE_ALL, start);
+        }
+    }
+
+    @Override
+    public void updateAll(Map<String, FieldUpdate> updates) {
+        if (updates == null) {
+            throw new IllegalArgumentException("Les mises à jour ne peuvent pas être null");
+        }
+        ensureConnected();
+        updates.keySet().forEach(this::validateKey);
+        if (updates.values().stream().allMatch(update -> update == null || update.isEmpty())) {
+            return;
+        }
+
+        long start = begin();
+        try {
+            simulate(Operation.UPDATE_ALL);
+            updates.forEach((key, update) -> {
+                if (update != null && !update.isEmpty()) {
+                    // Sans création : une entrée absente est ignorée (pas d'upsert)
+                    entries.computeIfPresent(key, (k, value) -> StoredDocuments.applyUpdate(value, update));
+                }
+            });
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de l'application de " + updates.size() + " mises à jour partielles en mémoire: " + e.getMessage());
+            throw new IllegalStateException("Échec de la mise à jour groupée en mémoire", e);
+        } finally {
+            end(Operation.UPDATE_ALL, start);
+        }
+    }
+
+    @Override
+    public Optional<Object> getData(String key) {
+        validateKey(key);
+        ensureConnected();
+
+        long start = begin();
+        try {
+            simulate(Operation.GET);
+            return Optional.ofNullable(entries.get(key));
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la lecture en mémoire: " + e.getMessage());
+            return Optional.empty();
+        } finally {
+            end(Operation.GET, start);
+        }
+    }
+
+    @Override
+    public Optional<Object> find(String key) {
+        validateKey(key);
+        ensureConnected();
+
+        long start = begin();
+        try {
+            simulate(Operation.FIND);
+            return Optional.ofNullable(entries.get(key));
+        } finally {
+            end(Operation.FIND, start);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getAll(Collection<String> keys) {
+        if (keys == null) {
+            throw new IllegalArgumentException("Les clés ne peuvent pas être null");
+        }
+        ensureConnected();
+
+        Map<String, Object> results = new HashMap<>();
+        if (keys.isEmpty()) {
+            return results;
+        }
+
+        long start = begin();
+        try {
+            simulate(Operation.GET_ALL);
+            for (String key : keys) {
+                Object value = entries.get(key);
+                if (value != null) {
+                    results.put(key, value);
+                }
+            }
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la lecture groupée en mémoire: " + e.getMessage());
+        } finally {
+            end(Operation.GET_ALL, start);
+        }
+        return results;
+    }
+
+    @Override
+    public boolean deleteData(String key) {
+        validateKey(key);
+        ensureConnected();
+
+        long start = begin();
+        try {
+            simulate(Operation.DELETE);
+            return entries.remove(key) != null;
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la suppression en mémoire: " + e.getMessage());
+            return false;
+        } finally {
+            end(Operation.DELETE, start);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        validateKey(key);
+        ensureConnected();
+
+        long start = begin();
+        try {
+            simulate(Operation.EXISTS);
+            return entries.containsKey(key);
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la vérification d'existence en mémoire: " + e.getMessage());
+            return false;
+        } finally {
+            end(Operation.EXISTS, start);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getDataByPrefix(String prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Le préfixe ne peut pas être null");
+        }
+        ensureConnected();
+
+        long start = begin();
+        try {
+            simulate(Operation.PREFIX_SCAN);
+            return new HashMap<>(withPrefix(prefix));
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la lecture par préfixe en mémoire: " + e.getMessage());
+            return new HashMap<>();
+        } finally {
+            end(Operation.PREFIX_SCAN, start);
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> findTop(String prefix, String sortField, int limit) {
+        if (prefix == null || sortField == null) {
+            throw new IllegalArgumentException("Le préfixe et le champ de tri ne peuvent pas être null");
+        }
+        ensureConnected();
+
+        long start = begin();
+        try {
+            simulate(Operation.FIND_TOP);
+
+            return StoredDocuments.top(withPrefix(prefix).values(), sortField, limit);
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la lecture du classement en mémoire: " + e.getMessage());
+            return new ArrayList<>();
+        } finally {
+            end(Operation.FIND_TOP, start);
+        }
+    }
+
+    @Override
+    public void backup() {
+        ensureConnected();
+
+        long start = begin();
+        try {
+            simulate(Operation.BACKUP);
+            // Les valeurs sont immuables : une copie de l'index suffit
+            lastBackup = Collections.unmodifiableMap(new HashMap<>(entries));
+            Utils.sendConsoleLog("&aSauvegarde en mémoire créée: " + lastBackup.size() + " entrées");
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la sauvegarde en mémoire: " + e.getMessage());
+        } finally {
+            end(Operation.BACKUP, start);
+        }
+    }
+
+    /**
+     * Dernière sauvegarde (backup) effectuée
+     */
+    public Map<String, Object> getLastBackup() {
+        return lastBackup;
+    }
+
+    /**
+     * Nombre d'entrées stockées
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Compteurs d'une opération (appels, échecs simulés, latence simulée, temps sur le thread principal)
+     */
+    public OperationCounters getCounters(Operation operation) {
+        return counters.get(operation);
+    }
+
+    /**
+     * Remet tous les compteurs à zéro (ex: entre deux phases d'un test de charge)
+     */
+    public void resetCounters() {
+        counters.values().forEach(OperationCounters::reset);
+    }
+
+    /**
+     * Statistiques des opérations effectuées, une ligne par opération utilisée
+     */
+    public List<String> getStats() {
+        List<String> lines = new ArrayList<>();
+        lines.add("&7Stockage en mémoire: " + entries.size() + " entrées");
+        for (Map.Entry<Operation, OperationCounters> entry : counters.entrySet()) {
+            OperationCounters counter = entry.getValue();
+            long calls = counter.getCalls();
+            if (calls == 0) {
+                continue;
+            }
+            lines.add("&7" + entry.getKey().name().toLowerCase(Locale.ROOT) + ": " + calls + " appels, "
+                + counter.getErrors() + " échecs, latence simulée " + formatMs(counter.getSimulatedNanos()) + ", "
+                + "thread principal " + counter.getMainThreadCalls() + " appels / " + formatMs(counter.getMainThreadNanos()));
+        }
+        return lines;
+    }
+
+    private static String formatMs(long nanos) {
+        return String.format("%.1fms", nanos / 1_000_000.0);
+    }
+
+    // ==================== Simulation et mesure ====================
+
+    private long begin() {
+        return System.nanoTime();
+    }
+
+    private void end(Operation operation, long start) {
+        OperationCounters counter = counters.get(operation);
+        counter.calls.increment();
+        if (isMainThread()) {
+            counter.mainThreadCalls.increment();
+            counter.mainThreadNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private static boolean isMainThread() {
+        // Hors serveur (benchmarks, simulateur), aucun thread n'est le thread principal
+        return Bukkit.getServer() != null && Bukkit.isPrimaryThread();
+    }
+
+    /**
+     * Attend le créneau de débit puis la latence simulée, et échoue selon le taux d'erreur
+     */
+    private void simulate(Operation operation) {
+        OperationCounters counter = counters.get(operation);
+        long start = System.nanoTime();
+
+        long interval = permitIntervalNanos;
+        if (interval > 0) {
+            sleepUntil(reservePermit(interval));
+        }
+
+        long delay = latencyNanos;
+        long jitter = jitterNanos;
+        if (jitter > 0) {
+            delay += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        if (delay > 0) {
+            sleepUntil(System.nanoTime() + delay);
+        }
+        counter.simulatedNanos.add(System.nanoTime() - start);
+
+        double rate = errorRate;
+        if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+            counter.errors.increment();
+            throw new IllegalStateException("Erreur simulée (" + operation.name().toLowerCase(Locale.ROOT) + ")");
+        }
+    }
+
+    /**
+     * Réserve le prochain créneau libre : les opérations sont espacées d'au moins un intervalle
+     */
+    private long reservePermit(long interval) {
+        while (true) {
+            long next = nextPermitNanos.get();
+            long slot = Math.max(next, System.nanoTime());
+            if (nextPermitNanos.compareAndSet(next, slot + interval)) {
+                return slot;
+            }
+        }
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // ==================== Données ====================
+
+    private ConcurrentNavigableMap<String, Object> withPrefix(String prefix) {
+        return StoredDocuments.withPrefix(entries, prefix);
+    }
+
+    /**
+     * Compteurs cumulés d'une opération
+     */
+    public static final class OperationCounters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder simulatedNanos = new LongAdder();
+        private final LongAdder mainThreadCalls = new LongAdder();
+        private final LongAdder mainThreadNanos = new LongAdder();
+
+        public long getCalls() { return calls.sum(); }
+        public long getErrors() { return errors.sum(); }
+        public long getSimulatedNanos() { return simulatedNanos.sum(); }
+        public long getMainThreadCalls() { return mainThreadCalls.sum(); }
+        public long getMainThreadNanos() { return mainThreadNanos.sum(); }
+
+        private void reset() {
+            calls.reset();
+            errors.reset();
+            simulatedNanos.reset();
+            mainThreadCalls.reset();
+            mainThreadNanos.reset();
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package loyfael.core.services;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Format binaire du journal et des snapshots du stockage local
+ *
+ * Enregistrement : [longueur int][CRC32C int][type][clé][valeur], la longueur et le CRC portant sur
+ * ce qui suit. Un enregistrement tronqué ou altéré (arrêt brutal pendant une écriture) est détecté
+ * à la relecture : la relecture s'arrête au dernier enregistrement valide
+ *
+ * Fichier : [magie int][version int][génération long] puis les enregistrements. Un snapshot se
+ * termine par un enregistrement END portant le nombre d'entrées
+ */
+final class JournalCodec {
+
+    static final int JOURNAL_MAGIC = 0x4B4C4A4C; // "KLJL"
+    static final int SNAPSHOT_MAGIC = 0x4B4C534E; // "KLSN"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    // Types d'enregistrement
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final byte END = 3;
+
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    // Types de valeur
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_STRING = 1;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_LONG = 3;
+    private static final int TYPE_DOUBLE = 4;
+    private static final int TYPE_BOOLEAN = 5;
+    private static final int TYPE_LIST = 6;
+    private static final int TYPE_MAP = 7;
+    private static final int TYPE_BYTES = 8;
+
+    private JournalCodec() {
+    }
+
+    // Encodage
+
+    static ByteBuffer header(int magic, long generation) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(magic).putInt(VERSION).putLong(generation).flip();
+        return header;
+    }
+
+    /**
+     * Enregistrement complet (en-tête compris), prêt à être écrit
+     * Lève IllegalArgumentException pour une valeur non encodable, avant toute écriture
+     */
+    static ByteBuffer put(String key, Object value) {
+        Writer out = new Writer(64);
+        out.writeByte(PUT);
+        out.writeString(key);
+        writeValue(out, value);
+        return out.toRecord();
+    }
+
+    static ByteBuffer delete(String key) {
+        Writer out = new Writer(key.length() + 8);
+        out.writeByte(DELETE);
+        out.writeString(key);
+        return out.toRecord();
+    }
+
+    static ByteBuffer end(long entries) {
+        Writer out = new Writer(16);
+        out.writeByte(END);
+        out.writeString("");
+        out.writeVarlong(entries);
+        return out.toRecord();
+    }
+
+    private static void writeValue(Writer out, Object value) {
+        if (value == null) {
+            out.writeVarint(TYPE_NULL);
+        } else if (value instanceof String) {
+            out.writeVarint(TYPE_STRING);
+            out.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeVarint(TYPE_INT);
+            out.writeVarint(zigZag(((Number) value).intValue()));
+        } else if (value instanceof Long) {
+            out.writeVarint(TYPE_LONG);
+            out.writeVarlong(zigZag((Long) value));
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeVarint(TYPE_DOUBLE);
+            out.writeLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Boolean) {
+            out.writeVarint(TYPE_BOOLEAN);
+            out.writeVarint((Boolean) value ? 1 : 0);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.writeVarint(TYPE_BYTES);
+            out.writeVarint(bytes.length);
+            out.writeBytes(bytes);
+        } else if (value instanceof Collection) {
+            Collection<?> list = (Collection<?>) value;
+            out.writeVarint(TYPE_LIST);
+            out.writeVarint(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeVarint(TYPE_MAP);
+            out.writeVarint(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                out.writeString(String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Valeur non stockable dans le journal: " + value.getClass().getSimpleName());
+        }
+    }
+
+    // Décodage
+
+    /**
+     * Vérifie l'en-tête d'un fichier et retourne sa génération
+     */
+    static long readHeader(DataInputStream in, int expectedMagic) throws IOException {
+        int magic = in.readInt();
+        int version = in.readInt();
+        if (magic != expectedMagic) {
+            throw new IOException("Fichier non reconnu (en-tête invalide)");
+        }
+        if (version != VERSION) {
+            throw new IOException("Version de format inconnue: " + version);
+        }
+        return in.readLong();
+    }
+
+    /**
+     * Lit l'enregistrement suivant, ou null en fin de fichier propre
+     * Lève CorruptRecordException pour un enregistrement tronqué ou altéré
+     */
+    static Record readRecord(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        try {
+            int checksum = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_SIZE) {
+                throw new CorruptRecordException("longueur invalide (" + length + ")");
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+
+            CRC32C crc = new CRC32C();
+            crc.update(payload, 0, payload.length);
+            if ((int) crc.getValue() != checksum) {
+                throw new CorruptRecordException("somme de contrôle invalide");
+            }
+            return decode(payload, RECORD_HEADER_SIZE + length);
+        } catch (EOFException e) {
+            throw new CorruptRecordException("enregistrement tronqué");
+        }
+    }
+
+    private static Record decode(byte[] payload, int size) throws CorruptRecordException {
+        try {
+            Reader in = new Reader(payload);
+            byte type = in.readByte();
+            String key = in.readString();
+            switch (type) {
+                case PUT:
+                    return new Record(type, key, readValue(in), 0L, size);
+                case DELETE:
+                    return new Record(type, key, null, 0L, size);
+                case END:
+                    return new Record(type, key, null, in.readVarlong(), size);
+                default:
+                    throw new CorruptRecordException("type d'enregistrement inconnu (" + type + ")");
+            }
+        } catch (IllegalArgumentException e) {
+            throw new CorruptRecordException(e.getMessage());
+        }
+    }
+
+    /**
+     * Les valeurs relues sont directement immuables, comme celles de l'index
+     */
+    private static Object readValue(Reader in) {
+        int type = in.readVarint();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return in.readString();
+            case TYPE_INT:
+                return unZigZag(in.readVarint());
+            case TYPE_LONG:
+                return unZigZag(in.readVarlong());
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(in.readLong());
+            case TYPE_BOOLEAN:
+                return in.readVarint() != 0;
+            case TYPE_BYTES:
+                return in.readBytes(in.readVarint());
+            case TYPE_LIST: {
+                int size = in.readVarint();
+                List<Object> list = new ArrayList<>(Math.min(size, 1024));
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return Collections.unmodifiableList(list);
+            }
+            case TYPE_MAP: {
+                int size = in.readVarint();
+                Map<String, Object> map = new LinkedHashMap<>(Math.max(16, Math.min(size, 1024) * 2));
+                for (int i = 0; i < size; i++) {
+                    map.put(in.readString(), readValue(in));
+                }
+                return Collections.unmodifiableMap(map);
+            }
+            default:
+                throw new IllegalArgumentException("type de valeur inconnu (" + type + ")");
+        }
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Enregistrement relu : type, clé, valeur (PUT) ou nombre d'entrées (END), taille sur disque
+     */
+    static final class Record {
+        final byte type;
+        final String key;
+        final Object value;
+        final long entries;
+        final int size;
+
+        private Record(byte type, String key, Object value, long entries, int size) {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+            this.entries = entries;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Enregistrement tronqué ou altéré : la relecture s'arrête à l'enregistrement précédent
+     */
+    static final class CorruptRecordException extends IOException {
+        CorruptRecordException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Tampon d'écriture extensible ; la place de l'en-tête d'enregistrement est réservée dès le départ
+     */
+    private static final class Writer {
+        private byte[] buffer;
+        private int position = RECORD_HEADER_SIZE;
+
+        private Writer(int capacity) {
+            this.buffer = new byte[RECORD_HEADER_SIZE + Math.max(16, capacity)];
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        void writeByte(byte value) {
+            ensure(1);
+            buffer[position++] = value;
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            writeBytes(utf8);
+        }
+
+        /**
+         * Complète l'en-tête (longueur et CRC du contenu) et retourne l'enregistrement à écrire
+         */
+        ByteBuffer toRecord() {
+            int length = position - RECORD_HEADER_SIZE;
+            CRC32C crc = new CRC32C();
+            crc.update(buffer, RECORD_HEADER_SIZE, length);
+            ByteBuffer record = ByteBuffer.wrap(buffer, 0, position);
+            record.putInt(0, length).putInt(4, (int) crc.getValue());
+            return record;
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        private Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            return next();
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = next();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("varint invalide");
+        }
+
+        long readVarlong() {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                byte b = next();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("varlong invalide");
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (next() & 0xFF);
+            }
+            return value;
+        }
+
+        byte[] readBytes(int length) {
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("données tronquées");
+            }
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        String readString() {
+            int length = readVarint();
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("chaîne tronquée");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private byte next() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("données tronquées");
+            }
+            return buffer[position++];
+        }
+    }
+}
@@ -0,0 +1,947 @@
+package loyfael.core.services;
+
+import loyfael.Main;
+import loyfael.api.interfaces.IConfigurationService;
+import loyfael.utils.Utils;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stockage local sur fichiers : journal en ajout seul + snapshot périodique, sans MongoDB
+ *
+ * - Les données vivantes sont dans un index en mémoire (lectures sans accès disque)
+ * - Chaque modification est ajoutée au journal (journal-N.log) sous forme d'enregistrement binaire
+ *   préfixé par sa longueur : coût d'écriture indépendant du nombre de joueurs
+ * - Un seul thread écrit le journal : les enregistrements en attente sont écrits ensemble
+ *   (écriture groupée), puis synchronisés sur disque selon database.journal.fsync
+ * - Au-delà d'une taille, le journal est compacté en arrière-plan : nouveau journal, puis snapshot
+ *   (snapshot.dat) écrit depuis l'index et renommé atomiquement, puis suppression des anciens journaux
+ * - Au démarrage, le snapshot est chargé puis les journaux rejoués ; un dernier enregistrement
+ *   tronqué (arrêt brutal) est écarté
+ */
+public class JournalDatabaseService extends AbstractDatabaseService {
+
+    private static final String SNAPSHOT_FILE = "snapshot.dat";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final int SNAPSHOT_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Synchronisation du journal sur disque
+     * ALWAYS : avant le retour de chaque écriture (une synchronisation par groupe)
+     * INTERVAL : au plus une fois par intervalle (perte possible de l'intervalle en cas de panne système)
+     * NEVER : laissée au système
+     */
+    public enum FsyncPolicy {
+        ALWAYS, INTERVAL, NEVER
+    }
+
+    // Index vivant : valeurs immuables triées par clé, comme le stockage en mémoire
+    private final ConcurrentSkipListMap<String, Object> entries = new ConcurrentSkipListMap<>();
+    private final File configuredDirectory;
+    private File directory;
+
+    // Modifications de l'index et ajout au journal sous le même verrou : l'ordre du journal est celui de l'index
+    private final Object appendLock = new Object();
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private boolean running;
+
+    // Thread d'écriture du journal (seul à manipuler le canal)
+    private Thread committer;
+    private FileChannel channel;
+    private volatile long generation;
+    private volatile long journalBytes;
+    private long lastSyncNanos;
+    private boolean unsynced;
+
+    private ExecutorService compactor;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    // Réglages (database.journal.*)
+    private volatile FsyncPolicy fsyncPolicy = FsyncPolicy.INTERVAL;
+    private volatile long fsyncIntervalNanos = TimeUnit.SECONDS.toNanos(1);
+    private volatile long compactionThresholdBytes = 64L * 1024 * 1024;
+
+    // Métriques
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong groups = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    // Écritures ou synchronisations échouées, et combien d'entre elles un snapshot a depuis rendues durables
+    private final AtomicLong unsafeWrites = new AtomicLong();
+    private volatile long recoveredUnsafeWrites;
+    private volatile long lastCompactionMillis;
+    private volatile long snapshotBytes;
+
+    public JournalDatabaseService(IConfigurationService configService) {
+        this(configService, null);
+    }
+
+    /**
+     * Dossier explicite (hors serveur) ; par défaut, database.journal.directory dans le dossier du plugin
+     */
+    public JournalDatabaseService(IConfigurationService configService, File directory) {
+        super(configService);
+        this.configuredDirectory = directory;
+    }
+
+    @Override
+    protected boolean doInitialize() {
+        loadSettings();
+        try {
+            directory = configuredDirectory != null ? configuredDirectory : defaultDirectory();
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Impossible de créer le dossier " + directory.getPath());
+            }
+
+            long start = System.currentTimeMillis();
+            entries.clear();
+            recover();
+
+            synchronized (appendLock) {
+                queue.clear();
+                running = true;
+            }
+            lastSyncNanos = System.nanoTime();
+            committer = new Thread(this::commitLoop, "KrakenLevels-Journal");
+            committer.setDaemon(true);
+            committer.start();
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "KrakenLevels-JournalCompactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            Utils.sendConsoleLog("&aJournal chargé: " + entries.size() + " entrées en "
+                + (System.currentTimeMillis() - start) + "ms (génération " + generation + ", fsync "
+                + fsyncPolicy.name().toLowerCase(Locale.ROOT) + ")");
+
+            if (journalBytes > compactionThresholdBytes) {
+                requestCompaction();
+            }
+            return true;
+
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de l'initialisation du journal: " + e.getMessage());
+            closeChannel();
+            return false;
+        }
+    }
+
+    @Override
+    protected void doDisconnect() {
+        // Compaction en cours terminée d'abord : elle attend le thread d'écriture
+        ExecutorService executor = compactor;
+        compactor = null;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                    Utils.sendConsoleLog("&cLa compaction du journal ne s'est pas terminée à temps.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Dernier snapshot si des écritures échouées n'ont pas encore été rendues durables
+        if (hasUnsafeWrites() && committer != null) {
+            compacting.set(true);
+            runCompaction();
+        }
+
+        // Le thread d'écriture vide la file, synchronise et ferme le journal
+        synchronized (appendLock) {
+            running = false;
+            appendLock.notifyAll();
+        }
+        Thread thread = committer;
+        committer = null;
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Utils.sendConsoleLog("&eJournal fermé (" + entries.size() + " entrées).");
+    }
+
+    /**
+     * Relit les réglages depuis la configuration (database.journal.*)
+     */
+    public void loadSettings() {
+        FileConfiguration config = configService != null ? configService.getConfig() : null;
+        if (config == null) {
+            return;
+        }
+        String policy = config.getString("database.journal.fsync", "interval");
+        try {
+            fsyncPolicy = FsyncPolicy.valueOf(policy.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Utils.sendConsoleLog("&cPolitique fsync inconnue '" + policy + "', utilisation de 'interval'");
+            fsyncPolicy = FsyncPolicy.INTERVAL;
+        }
+        fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, config.getLong("database.journal.fsync-interval-ms", 1000L)));
+        compactionThresholdBytes = Math.max(1L, config.getLong("database.journal.compaction-threshold-mb", 64L)) * 1024 * 1024;
+    }
+
+    private File defaultDirectory() {
+        String name = configService != null && configService.getConfig() != null
+            ? configService.getConfig().getString("database.journal.directory", "journal")
+            : "journal";
+        return new File(Main.getInstance().getDataFolder(), name);
+    }
+
+    // ==================== Opérations ====================
+
+    @Override
+    public void saveData(String key, Object value) {
+        validateKey(key);
+        ensureConnected();
+
+        try {
+            Object frozen = StoredDocuments.freeze(value);
+            ByteBuffer record = JournalCodec.put(key, frozen);
+            CompletableFuture<Void> written = fsyncPolicy == FsyncPolicy.ALWAYS ? new CompletableFuture<>() : null;
+            synchronized (appendLock) {
+                enqueue(new Pending(record, written));
+                entries.put(key, frozen);
+            }
+            if (written != null) {
+                await(written);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la sauvegarde dans le journal: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void saveAll(Map<String, Object> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Les valeurs ne peuvent pas être null");
+        }
+        ensureConnected();
+        if (values.isEmpty()) {
+            return;
+        }
+
+        // Encodage hors du verrou : une valeur non stockable rejette le lot avant toute modification
+        List<String> keys = new ArrayList<>(values.size());
+        List<Object> frozen = new ArrayList<>(values.size());
+        List<ByteBuffer> encoded = new ArrayList<>(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            validateKey(entry.getKey());
+            Object value = StoredDocuments.freeze(entry.getValue());
+            keys.add(entry.getKey());
+            frozen.add(value);
+            encoded.add(JournalCodec.put(entry.getKey(), value));
+        }
+
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        synchronized (appendLock) {
+            for (int i = 0; i < keys.size(); i++) {
+                enqueue(new Pending(encoded.get(i), i == keys.size() - 1 ? written : null));
+                entries.put(keys.get(i), frozen.get(i));
+            }
+        }
+        awaitBatch(written, "Échec de la sauvegarde groupée dans le journal");
+    }
+
+    @Override
+    public void updateAll(Map<String, FieldUpdate> updates) {
+        if (updates == null) {
+            throw new IllegalArgumentException("Les mises à jour ne peuvent pas être null");
+        }
+        ensureConnected();
+        updates.keySet().forEach(this::validateKey);
+        if (updates.values().stream().allMatch(update -> update == null || update.isEmpty())) {
+            return;
+        }
+
+        // Lecture-modification-écriture sous le verrou : le journal reçoit la valeur complète résultante
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        synchronized (appendLock) {
+            for (Map.Entry<String, FieldUpdate> entry : updates.entrySet()) {
+                FieldUpdate update = entry.getValue();
+                Object current = update == null || update.isEmpty() ? null : entries.get(entry.getKey());
+                if (current == null) {
+                    continue; // Sans création : une entrée absente est ignorée (pas d'upsert)
+                }
+                Object updated = StoredDocuments.applyUpdate(current, update);
+                enqueue(new Pending(JournalCodec.put(entry.getKey(), updated), null));
+                entries.put(entry.getKey(), updated);
+            }
+            // Marqueur de fin de lot : complété une fois les enregistrements précédents écrits
+            enqueue(new Pending(null, written));
+        }
+        awaitBatch(written, "Échec de la mise à jour groupée dans le journal");
+    }
+
+    @Override
+    public Optional<Object> getData(String key) {
+        validateKey(key);
+        ensureConnected();
+        return Optional.ofNullable(entries.get(key));
+    }
+
+    @Override
+    public Map<String, Object> getAll(Collection<String> keys) {
+        if (keys == null) {
+            throw new IllegalArgumentException("Les clés ne peuvent pas être null");
+        }
+        ensureConnected();
+
+        Map<String, Object> results = new HashMap<>();
+        for (String key : keys) {
+            Object value = entries.get(key);
+            if (value != null) {
+                results.put(key, value);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public boolean deleteData(String key) {
+        validateKey(key);
+        ensureConnected();
+
+        ByteBuffer record = JournalCodec.delete(key);
+        CompletableFuture<Void> written = fsyncPolicy == FsyncPolicy.ALWAYS ? new CompletableFuture<>() : null;
+        boolean removed = false;
+        try {
+            // Comme saveData : un journal fermé est signalé dans la console, sans exception
+            synchronized (appendLock) {
+                if (!entries.containsKey(key)) {
+                    return false;
+                }
+                enqueue(new Pending(record, written));
+                entries.remove(key);
+                removed = true;
+            }
+            if (written != null) {
+                await(written);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la suppression dans le journal: " + e.getMessage());
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        validateKey(key);
+        ensureConnected();
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public Map<String, Object> getDataByPrefix(String prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Le préfixe ne peut pas être null");
+        }
+        ensureConnected();
+        return new HashMap<>(StoredDocuments.withPrefix(entries, prefix));
+    }
+
+    @Override
+    public List<Map<String, Object>> findTop(String prefix, String sortField, int limit) {
+        if (prefix == null || sortField == null) {
+            throw new IllegalArgumentException("Le préfixe et le champ de tri ne peuvent pas être null");
+        }
+        ensureConnected();
+        return StoredDocuments.top(StoredDocuments.withPrefix(entries, prefix).values(), sortField, limit);
+    }
+
+    @Override
+    public void backup() {
+        ensureConnected();
+
+        try {
+            File backupDir = new File(directory, "backups");
+            if (!backupDir.exists() && !backupDir.mkdirs()) {
+                throw new IOException("Impossible de créer le dossier de sauvegarde");
+            }
+            File backupFile = new File(backupDir, "snapshot_backup_" + System.currentTimeMillis() + ".dat");
+            long count = writeSnapshot(backupFile.toPath(), generation);
+            Utils.sendConsoleLog("&aSauvegarde du journal créée: " + backupFile.getName() + " (" + count + " entrées)");
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la sauvegarde du journal: " + e.getMessage());
+        }
+    }
+
+    // ==================== File d'écriture ====================
+
+    /**
+     * Enregistrement à écrire (ou rotation du journal), avec la complétion attendue par l'appelant
+     */
+    private static final class Pending {
+        private final ByteBuffer record;
+        private final CompletableFuture<Void> completion;
+        private final boolean rotation;
+
+        Pending(ByteBuffer record, CompletableFuture<Void> completion) {
+            this(record, completion, false);
+        }
+
+        Pending(ByteBuffer record, CompletableFuture<Void> completion, boolean rotation) {
+            this.record = record;
+            this.completion = completion;
+            this.rotation = rotation;
+        }
+    }
+
+    /**
+     * Appelé sous appendLock
+     */
+    private void enqueue(Pending pending) {
+        if (!running) {
+            throw new IllegalStateException("Journal fermé");
+        }
+        queue.add(pending);
+        if (queue.size() == 1) {
+            appendLock.notifyAll();
+        }
+    }
+
+    private void await(CompletableFuture<Void> written) throws Exception {
+        try {
+            written.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private void awaitBatch(CompletableFuture<Void> written, String failureMessage) {
+        try {
+            await(written);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(failureMessage, e);
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&c" + failureMessage + ": " + e.getMessage());
+            throw new IllegalStateException(failureMessage, e);
+        }
+    }
+
+    /**
+     * Boucle du thread d'écriture : tout ce qui s'est accumulé pendant l'écriture précédente
+     * est écrit en un seul appel (écriture groupée)
+     */
+    private void commitLoop() {
+        List<Pending> group = new ArrayList<>();
+        while (true) {
+            boolean stop;
+            synchronized (appendLock) {
+                while (queue.isEmpty() && running && !isSyncDue()) {
+                    try {
+                        if (unsynced && fsyncPolicy == FsyncPolicy.INTERVAL) {
+                            long remaining = fsyncIntervalNanos - (System.nanoTime() - lastSyncNanos);
+                            appendLock.wait(Math.max(1L, TimeUnit.NANOSECONDS.toMillis(remaining)));
+                        } else {
+                            appendLock.wait();
+                        }
+                    } catch (InterruptedException e) {
+                        // L'arrêt passe par running : on termine la file avant de sortir
+                    }
+                }
+                stop = !running && queue.isEmpty();
+                drain(group);
+            }
+
+            if (!group.isEmpty()) {
+                commit(group);
+                group.clear();
+            }
+            if (isSyncDue()) {
+                sync();
+            }
+            if (stop) {
+                break;
+            }
+        }
+
+        if (unsynced) {
+            sync();
+        }
+        closeChannel();
+    }
+
+    /**
+     * Retire les éléments en attente jusqu'à la prochaine rotation (traitée seule)
+     */
+    private void drain(List<Pending> group) {
+        Pending next;
+        while ((next = queue.peek()) != null) {
+            if (next.rotation && !group.isEmpty()) {
+                return;
+            }
+            group.add(queue.poll());
+            if (next.rotation) {
+                return;
+            }
+        }
+    }
+
+    private void commit(List<Pending> group) {
+        if (group.get(0).rotation) {
+            rotate(group.get(0).completion);
+            return;
+        }
+
+        List<ByteBuffer> buffers = new ArrayList<>(group.size());
+        long bytes = 0;
+        for (Pending pending : group) {
+            if (pending.record != null) {
+                buffers.add(pending.record);
+                bytes += pending.record.remaining();
+            }
+        }
+
+        long position = journalBytes;
+        try {
+            ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+            long written = 0;
+            while (written < bytes) {
+                written += channel.write(array);
+            }
+            journalBytes = position + bytes;
+            unsynced |= bytes > 0;
+            records.addAndGet(buffers.size());
+            groups.incrementAndGet();
+            if (fsyncPolicy == FsyncPolicy.ALWAYS && unsynced) {
+                force();
+            }
+            complete(group, null);
+        } catch (IOException | RuntimeException e) {
+            failedWrites.incrementAndGet();
+            unsafeWrites.incrementAndGet();
+            Utils.sendConsoleLog("&cErreur d'écriture du journal: " + e.getMessage());
+            discardPartialWrite(position);
+            // L'index, déjà à jour, fait foi : le lot n'est pas signalé en échec (il serait renvoyé et ses
+            // incréments appliqués deux fois), le snapshot demandé ci-dessous le rend à nouveau durable
+            complete(group, null);
+        }
+
+        if (journalBytes > compactionThresholdBytes || hasUnsafeWrites()) {
+            requestCompaction();
+        }
+    }
+
+    private void complete(List<Pending> group, Exception failure) {
+        for (Pending pending : group) {
+            if (pending.completion != null) {
+                if (failure == null) {
+                    pending.completion.complete(null);
+                } else {
+                    pending.completion.completeExceptionally(failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retire un groupe partiellement écrit, pour que les enregistrements suivants restent relisibles
+     */
+    private void discardPartialWrite(long position) {
+        try {
+            channel.truncate(position);
+            channel.position(position);
+            journalBytes = position;
+        } catch (IOException e) {
+            Utils.sendConsoleLog("&cImpossible de tronquer le journal après une erreur: " + e.getMessage());
+        }
+    }
+
+    private boolean isSyncDue() {
+        return unsynced && fsyncPolicy == FsyncPolicy.INTERVAL
+            && System.nanoTime() - lastSyncNanos >= fsyncIntervalNanos;
+    }
+
+    private void sync() {
+        try {
+            force();
+        } catch (IOException e) {
+            failedWrites.incrementAndGet();
+            unsafeWrites.incrementAndGet();
+            Utils.sendConsoleLog("&cErreur de synchronisation du journal: " + e.getMessage());
+        }
+    }
+
+    private void force() throws IOException {
+        channel.force(false);
+        unsynced = false;
+        lastSyncNanos = System.nanoTime();
+        syncs.incrementAndGet();
+    }
+
+    /**
+     * Passe au journal suivant (thread d'écriture) : l'ancien est synchronisé puis fermé
+     */
+    private void rotate(CompletableFuture<Void> completion) {
+        try {
+            FileChannel next = openJournal(generation + 1, true);
+            force();
+            channel.close();
+            channel = next;
+            generation++;
+            journalBytes = JournalCodec.HEADER_SIZE;
+            completion.complete(null);
+        } catch (IOException | RuntimeException e) {
+            failedWrites.incrementAndGet();
+            Utils.sendConsoleLog("&cErreur lors du changement de journal: " + e.getMessage());
+            completion.completeExceptionally(e);
+        }
+    }
+
+    private FileChannel openJournal(long journalGeneration, boolean create) throws IOException {
+        Path path = journalPath(journalGeneration);
+        FileChannel opened = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (create || opened.size() < JournalCodec.HEADER_SIZE) {
+                opened.truncate(0);
+                ByteBuffer header = JournalCodec.header(JournalCodec.JOURNAL_MAGIC, journalGeneration);
+                while (header.hasRemaining()) {
+                    opened.write(header, JournalCodec.HEADER_SIZE - header.remaining());
+                }
+                opened.force(true);
+            }
+            opened.position(opened.size());
+            return opened;
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+    }
+
+    private void closeChannel() {
+        FileChannel current = channel;
+        channel = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                Utils.sendConsoleLog("&cErreur lors de la fermeture du journal: " + e.getMessage());
+            }
+        }
+    }
+
+    // ==================== Compaction ====================
+
+    private void requestCompaction() {
+        ExecutorService executor = compactor;
+        if (executor == null || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::runCompaction);
+        } catch (RejectedExecutionException e) {
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Nouveau journal, puis snapshot de l'index, puis suppression des journaux couverts
+     * Les écritures continuent pendant le snapshot : celles qui suivent la rotation sont dans le
+     * nouveau journal, dont la relecture (PUT / DELETE de valeurs complètes) corrige le snapshot
+     */
+    private void runCompaction() {
+        long start = System.currentTimeMillis();
+        // Échecs antérieurs à la rotation : leurs valeurs sont dans l'index, donc dans ce snapshot
+        long coveredUnsafeWrites = unsafeWrites.get();
+        try {
+            CompletableFuture<Void> rotated = new CompletableFuture<>();
+            synchronized (appendLock) {
+                enqueue(new Pending(null, rotated, true));
+            }
+            await(rotated);
+            long snapshotGeneration = generation;
+
+            Path snapshot = new File(directory, SNAPSHOT_FILE).toPath();
+            Path temp = new File(directory, SNAPSHOT_FILE + ".tmp").toPath();
+            long count = writeSnapshot(temp, snapshotGeneration);
+            try {
+                Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+            }
+            syncDirectory();
+            snapshotBytes = Files.size(snapshot);
+
+            int deleted = 0;
+            for (long journal : listJournals()) {
+                if (journal < snapshotGeneration && Files.deleteIfExists(journalPath(journal))) {
+                    deleted++;
+                }
+            }
+
+            recoveredUnsafeWrites = Math.max(recoveredUnsafeWrites, coveredUnsafeWrites);
+            compactions.incrementAndGet();
+            lastCompactionMillis = System.currentTimeMillis() - start;
+            Utils.sendConsoleLog("&aJournal compacté: " + count + " entrées, " + snapshotBytes / 1024 + " Ko, "
+                + deleted + " journaux supprimés en " + lastCompactionMillis + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la compaction du journal: " + e.getMessage());
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Des écritures échouées ne sont pas encore couvertes par un snapshot
+     */
+    private boolean hasUnsafeWrites() {
+        return unsafeWrites.get() > recoveredUnsafeWrites;
+    }
+
+    /**
+     * Écrit toutes les entrées de l'index (valeurs immuables, parcours sans verrou) puis synchronise le fichier
+     */
+    private long writeSnapshot(Path path, long snapshotGeneration) throws IOException {
+        long count = 0;
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            List<ByteBuffer> chunk = new ArrayList<>();
+            long chunkBytes = 0;
+            chunk.add(JournalCodec.header(JournalCodec.SNAPSHOT_MAGIC, snapshotGeneration));
+
+            for (Map.Entry<String, Object> entry : entries.entrySet()) {
+                ByteBuffer record = JournalCodec.put(entry.getKey(), entry.getValue());
+                chunk.add(record);
+                chunkBytes += record.remaining();
+                count++;
+                if (chunkBytes >= SNAPSHOT_CHUNK_SIZE) {
+                    writeFully(out, chunk);
+                    chunk.clear();
+                    chunkBytes = 0;
+                }
+            }
+            chunk.add(JournalCodec.end(count));
+            writeFully(out, chunk);
+            out.force(true);
+        }
+        return count;
+    }
+
+    private static void writeFully(FileChannel out, List<ByteBuffer> buffers) throws IOException {
+        ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+        long remaining = 0;
+        for (ByteBuffer buffer : array) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= out.write(array);
+        }
+    }
+
+    /**
+     * Rend le renommage durable (sans effet sur les systèmes qui ne permettent pas d'ouvrir un dossier)
+     */
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Windows : le renommage est déjà durable
+        }
+    }
+
+    // ==================== Reprise ====================
+
+    /**
+     * Charge le snapshot puis rejoue les journaux qui le suivent, et rouvre le dernier journal en ajout
+     */
+    private void recover() throws IOException {
+        Files.deleteIfExists(new File(directory, SNAPSHOT_FILE + ".tmp").toPath());
+
+        long snapshotGeneration = 0;
+        File snapshot = new File(directory, SNAPSHOT_FILE);
+        if (snapshot.exists()) {
+            snapshotGeneration = loadSnapshot(snapshot.toPath());
+            snapshotBytes = snapshot.length();
+        }
+
+        List<Long> journals = listJournals();
+        long replayed = 0;
+        long current = Math.max(1L, snapshotGeneration);
+        for (int i = 0; i < journals.size(); i++) {
+            long journal = journals.get(i);
+            if (journal < snapshotGeneration) {
+                // Déjà couvert par le snapshot (compaction interrompue avant la suppression)
+                Files.deleteIfExists(journalPath(journal));
+                continue;
+            }
+            replayed += replay(journal, i == journals.size() - 1);
+            current = journal;
+        }
+
+        generation = current;
+        channel = openJournal(current, false);
+        journalBytes = channel.size();
+        if (replayed > 0) {
+            Utils.sendConsoleLog("&e" + replayed + " enregistrements du journal rejoués.");
+        }
+    }
+
+    private long loadSnapshot(Path path) throws IOException {
+        try (DataInputStream in = open(path)) {
+            long snapshotGeneration = JournalCodec.readHeader(in, JournalCodec.SNAPSHOT_MAGIC);
+            long count = 0;
+            JournalCodec.Record record;
+            while ((record = JournalCodec.readRecord(in)) != null) {
+                if (record.type == JournalCodec.END) {
+                    if (record.entries != count) {
+                        throw new IOException("snapshot incomplet (" + count + " entrées sur " + record.entries + ")");
+                    }
+                    return snapshotGeneration;
+                }
+                if (record.type == JournalCodec.PUT) {
+                    entries.put(record.key, record.value);
+                    count++;
+                }
+            }
+            // Un snapshot n'est renommé qu'une fois complet : l'absence de fin est une altération
+            throw new IOException("snapshot sans enregistrement de fin");
+        } catch (IOException e) {
+            throw new IOException("snapshot illisible (" + path.getFileName() + "): " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rejoue un journal ; un enregistrement invalide arrête la relecture de ce fichier
+     * (dernier journal : la fin tronquée est retirée pour que les ajouts suivants restent relisibles)
+     */
+    private long replay(long journal, boolean last) throws IOException {
+        Path path = journalPath(journal);
+        long valid = JournalCodec.HEADER_SIZE;
+        long count = 0;
+        try (DataInputStream in = open(path)) {
+            if (Files.size(path) < JournalCodec.HEADER_SIZE) {
+                return 0; // Arrêt pendant la création : l'en-tête sera réécrit
+            }
+            long headerGeneration = JournalCodec.readHeader(in, JournalCodec.JOURNAL_MAGIC);
+            if (headerGeneration != journal) {
+                throw new IOException("génération " + headerGeneration + " dans " + path.getFileName());
+            }
+
+            JournalCodec.Record record;
+            while ((record = JournalCodec.readRecord(in)) != null) {
+                if (record.type == JournalCodec.PUT) {
+                    entries.put(record.key, record.value);
+                } else if (record.type == JournalCodec.DELETE) {
+                    entries.remove(record.key);
+                }
+                valid += record.size;
+                count++;
+            }
+        } catch (JournalCodec.CorruptRecordException e) {
+            long size = Files.size(path);
+            Utils.sendConsoleLog("&c" + path.getFileName() + ": " + e.getMessage() + " à l'octet " + valid
+                + ", " + (size - valid) + " octets ignorés");
+            if (last) {
+                try (FileChannel truncate = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    truncate.truncate(valid);
+                    truncate.force(true);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static DataInputStream open(Path path) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(path), SNAPSHOT_CHUNK_SIZE));
+    }
+
+    private List<Long> listJournals() {
+        List<Long> journals = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(JOURNAL_PREFIX) && name.endsWith(JOURNAL_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                try {
+                    journals.add(Long.parseLong(name.substring(JOURNAL_PREFIX.length(), name.length() - JOURNAL_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Fichier étranger au journal
+                }
+            }
+        }
+        journals.sort(Long::compare);
+        return journals;
+    }
+
+    private Path journalPath(long journalGeneration) {
+        return new File(directory, JOURNAL_PREFIX + journalGeneration + JOURNAL_SUFFIX).toPath();
+    }
+
+    // ==================== Métriques ====================
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public long getJournalBytes() {
+        return journalBytes;
+    }
+
+    /**
+     * Enregistrements en attente d'écriture
+     */
+    public int getPendingRecords() {
+        synchronized (appendLock) {
+            return queue.size();
+        }
+    }
+
+    public long getCompactionCount() {
+        return compactions.get();
+    }
+
+    public String getStats() {
+        long groupCount = groups.get();
+        return "&7Journal: " + entries.size() + " entrées, génération " + generation + ", "
+            + journalBytes / 1024 + " Ko (snapshot " + snapshotBytes / 1024 + " Ko), "
+            + getPendingRecords() + " en attente, " + records.get() + " enregistrements en " + groupCount + " écritures"
+            + (groupCount > 0 ? String.format(Locale.ROOT, " (%.1f/écriture)", records.get() / (double) groupCount) : "")
+            + ", " + syncs.get() + " fsync (" + fsyncPolicy.name().toLowerCase(Locale.ROOT) + "), "
+            + compactions.get() + " compactions" + (compactions.get() > 0 ? " (dernière " + lastCompactionMillis + "ms)" : "")
+            + ", " + failedWrites.get() + " échecs" + (hasUnsafeWrites() ? " (snapshot en attente)" : "");
+    }
+}
@@ -0,0 +1,282 @@
+package loyfael.core.services;
+
+import loyfael.api.interfaces.IPlayerService.PlayerData;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index du classement maintenu en mémoire (treap à statistiques d'ordre)
+ * Trié par niveau décroissant, puis dernière connexion décroissante, puis UUID :
+ * top N et rang d'un joueur en O(log n) sans accès à la base de données
+ */
+public final class LeaderboardIndex {
+
+    private final Map<String, Node> nodesByUuid = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+    private volatile boolean ready = false;
+
+    /**
+     * Reconstruit entièrement l'index (appelé une seule fois au démarrage)
+     */
+    public void rebuild(Collection<PlayerData> players) {
+        lock.writeLock().lock();
+        try {
+            root = null;
+            nodesByUuid.clear();
+            for (PlayerData data : players) {
+                upsert(data);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Insère ou repositionne un joueur dans l'index
+     */
+    public void update(PlayerData data) {
+        if (data == null || data.getUuid() == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            upsert(data);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire un joueur de l'index
+     */
+    public void remove(String playerUuid) {
+        lock.writeLock().lock();
+        try {
+            Node existing = nodesByUuid.remove(playerUuid);
+            if (existing != null) {
+                root = remove(root, existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Récupère les N premiers joueurs du classement
+     */
+    public List<PlayerData> top(int limit) {
+        lock.readLock().lock();
+        try {
+            int max = Math.min(Math.max(1, limit), size(root));
+            List<PlayerData> result = new ArrayList<>(max);
+            Deque<Node> stack = new ArrayDeque<>();
+            Node current = root;
+
+            // Parcours infixe itératif interrompu dès que la limite est atteinte
+            while ((current != null || !stack.isEmpty()) && result.size() < max) {
+                while (current != null) {
+                    stack.push(current);
+                    current = current.left;
+                }
+                current = stack.pop();
+                result.add(current.toPlayerData());
+                current = current.right;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Récupère le rang (1-indexé) d'un joueur, ou 0 s'il n'est pas indexé
+     */
+    public int rank(String playerUuid) {
+        lock.readLock().lock();
+        try {
+            Node target = nodesByUuid.get(playerUuid);
+            if (target == null) {
+                return 0;
+            }
+
+            int before = 0;
+            Node current = root;
+            while (current != null) {
+                int cmp = compare(target, current);
+                if (cmp < 0) {
+                    current = current.left;
+                } else if (cmp > 0) {
+                    before += size(current.left) + 1;
+                    current = current.right;
+                } else {
+                    return before + size(current.left) + 1;
+                }
+            }
+            return 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Nombre de joueurs indexés
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indique si l'index a été construit au moins une fois
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    private void upsert(PlayerData data) {
+        Node existing = nodesByUuid.get(data.getUuid());
+        if (existing != null) {
+            if (existing.level == data.getLevel() && existing.lastSeen == data.getLastSeen()) {
+                // Position inchangée : mise à jour sur place
+                existing.name = data.getName();
+                existing.buttonAmount = data.getButtonAmount();
+                return;
+            }
+            root = remove(root, existing);
+        }
+
+        Node node = new Node(data);
+        nodesByUuid.put(node.uuid, node);
+        root = insert(root, node);
+    }
+
+    private static Node insert(Node tree, Node node) {
+        if (tree == null) {
+            return node;
+        }
+        if (node.priority > tree.priority) {
+            Node[] parts = split(tree, node);
+            node.left = parts[0];
+            node.right = parts[1];
+            node.updateSize();
+            return node;
+        }
+        if (compare(node, tree) < 0) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        tree.updateSize();
+        return tree;
+    }
+
+    private static Node remove(Node tree, Node node) {
+        if (tree == null) {
+            return null;
+        }
+        int cmp = compare(node, tree);
+        if (cmp == 0) {
+            return merge(tree.left, tree.right);
+        }
+        if (cmp < 0) {
+            tree.left = remove(tree.left, node);
+        } else {
+            tree.right = remove(tree.right, node);
+        }
+        tree.updateSize();
+        return tree;
+    }
+
+    /**
+     * Sépare l'arbre en deux : les nœuds avant la clé, et ceux après
+     */
+    private static Node[] split(Node tree, Node key) {
+        if (tree == null) {
+            return new Node[] { null, null };
+        }
+        if (compare(tree, key) < 0) {
+            Node[] parts = split(tree.right, key);
+            tree.right = parts[0];
+            tree.updateSize();
+            return new Node[] { tree, parts[1] };
+        }
+        Node[] parts = split(tree.left, key);
+        tree.left = parts[1];
+        tree.updateSize();
+        return new Node[] { parts[0], tree };
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.updateSize();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.updateSize();
+        return right;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int compare(Node a, Node b) {
+        if (a.level != b.level) {
+            return Integer.compare(b.level, a.level);
+        }
+        if (a.lastSeen != b.lastSeen) {
+            return Long.compare(b.lastSeen, a.lastSeen);
+        }
+        return a.uuid.compareTo(b.uuid);
+    }
+
+    /**
+     * Nœud du treap, contenant uniquement les champs utiles au classement
+     */
+    private static final class Node {
+        private final String uuid;
+        private final int level;
+        private final long lastSeen;
+        private final int priority;
+        private String name;
+        private int buttonAmount;
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(PlayerData data) {
+            this.uuid = data.getUuid();
+            this.name = data.getName();
+            this.level = data.getLevel();
+            this.lastSeen = data.getLastSeen();
+            this.buttonAmount = data.getButtonAmount();
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+
+        private void updateSize() {
+            size = 1 + LeaderboardIndex.size(left) + LeaderboardIndex.size(right);
+        }
+
+        private PlayerData toPlayerData() {
+            return new PlayerData(uuid, name, level, lastSeen, buttonAmount);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import loyfael.api.interfaces.ILevelsConfigService;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.EntityType;
 
 import java.io.File;
 import java.util.*;
@@ -131,7 +132,18 @@ public class LevelsConfigService implements ILevelsConfigService {
         String mob = typeSection.getString("mob");
         int amount = typeSection.getInt("amount", 0);
 
-        return new LevelType(typeName, cost, material, mob, amount);
+        LevelType levelType = new LevelType(typeName, cost, material, mob, amount);
+        MissionMatcher matcher = levelType.getMatcher();
+        if (matcher.getKind() == MissionKind.UNKNOWN) {
+            Main.getInstance().getLogger().warning("Type de niveau inconnu: " + typeName);
+        } else if ((matcher.getKind() == MissionKind.BLOCK_BREAK || matcher.getKind() == MissionKind.BLOCK_PLACE)
+                && matcher.getMaterials().isEmpty()) {
+            Main.getInstance().getLogger().warning("Matériau de mission invalide: " + material + " (la mission ne pourra pas progresser)");
+        } else if (matcher.getKind() == MissionKind.KILLS && matcher.getEntityTypes().isEmpty()) {
+            Main.getInstance().getLogger().warning("Mob de mission invalide: " + mob + " (la mission ne pourra pas progresser)");
+        }
+
+        return levelType;
     }
 
     /**
@@ -275,6 +287,7 @@ public class LevelsConfigService implements ILevelsConfigService {
         private final String material;
         private final String mob;
         private final int amount;
+        private final MissionMatcher matcher;
 
         public LevelType(String name, double cost, String material, String mob, int amount) {
             this.name = name;
@@ -282,6 +295,7 @@ public class LevelsConfigService implements ILevelsConfigService {
             this.material = material;
             this.mob = mob;
             this.amount = amount;
+            this.matcher = MissionMatcher.compile(name, material, mob);
         }
 
         // Getters
@@ -290,14 +304,125 @@ public class LevelsConfigService implements ILevelsConfigService {
         public String getMaterial() { return material; }
         public String getMob() { return mob; }
         public int getAmount() { return amount; }
+        public MissionMatcher getMatcher() { return matcher; }
+
+        public boolean isCurrency() { return matcher.getKind() == MissionKind.CURRENCY; }
+        public boolean isMission() { return matcher.getKind().isMission(); }
+    }
+
+    /**
+     * Types de niveau reconnus
+     */
+    public enum MissionKind {
+        CURRENCY,
+        BLOCK_BREAK,
+        BLOCK_PLACE,
+        KILLS,
+        FISH,
+        UNKNOWN;
+
+        public static MissionKind fromName(String name) {
+            if (name == null) {
+                return UNKNOWN;
+            }
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "currency": return CURRENCY;
+                case "blockbreak": return BLOCK_BREAK;
+                case "blockplace": return BLOCK_PLACE;
+                case "kills": return KILLS;
+                case "fish": return FISH;
+                default: return UNKNOWN;
+            }
+        }
 
-        public boolean isCurrency() { return "currency".equalsIgnoreCase(name); }
         public boolean isMission() {
-            // Reconnaître tous les types de mission valides
-            return "kills".equalsIgnoreCase(name) ||
-                   "blockbreak".equalsIgnoreCase(name) ||
-                   "blockplace".equalsIgnoreCase(name) ||
-                   "fish".equalsIgnoreCase(name);
+            return this != CURRENCY && this != UNKNOWN;
         }
     }
+
+    /**
+     * Critères d'une mission compilés au chargement de levels.yml
+     * La vérification d'un événement se limite à des recherches dans des EnumSet, sans allocation
+     */
+    public static final class MissionMatcher {
+        private static final String DEEPSLATE_PREFIX = "DEEPSLATE_";
+        private static final Set<Material> CROPS = EnumSet.of(
+            Material.WHEAT, Material.CARROTS, Material.POTATOES, Material.BEETROOTS,
+            Material.NETHER_WART, Material.COCOA, Material.SWEET_BERRY_BUSH);
+
+        private final MissionKind kind;
+        private final Set<Material> materials;
+        private final Set<EntityType> entityTypes;
+        private final boolean requiresMatureCrop;
+
+        private MissionMatcher(MissionKind kind, Set<Material> materials, Set<EntityType> entityTypes) {
+            this.kind = kind;
+            this.materials = materials;
+            this.entityTypes = entityTypes;
+            this.requiresMatureCrop = materials.stream().anyMatch(CROPS::contains);
+        }
+
+        /**
+         * Compile les critères d'une mission : matériau cible et ses variantes deepslate,
+         * types d'entité dont le nom contient le mob configuré
+         */
+        public static MissionMatcher compile(String typeName, String materialName, String mobName) {
+            MissionKind kind = MissionKind.fromName(typeName);
+
+            EnumSet<Material> materials = EnumSet.noneOf(Material.class);
+            if (materialName != null && (kind == MissionKind.BLOCK_BREAK || kind == MissionKind.BLOCK_PLACE)) {
+                Material target = materialOrNull(materialName.toUpperCase(Locale.ROOT));
+                if (target != null) {
+                    materials.add(target);
+                    // Les minerais deepslate comptent pour le minerai normal, et inversement (cassage uniquement)
+                    if (kind == MissionKind.BLOCK_BREAK) {
+                        String name = target.name();
+                        Material variant = name.startsWith(DEEPSLATE_PREFIX)
+                            ? materialOrNull(name.substring(DEEPSLATE_PREFIX.length()))
+                            : materialOrNull(DEEPSLATE_PREFIX + name);
+                        if (variant != null) {
+                            materials.add(variant);
+                        }
+                    }
+                }
+            }
+
+            EnumSet<EntityType> entityTypes = EnumSet.noneOf(EntityType.class);
+            if (mobName != null && kind == MissionKind.KILLS) {
+                String mob = mobName.toLowerCase(Locale.ROOT);
+                for (EntityType entityType : EntityType.values()) {
+                    if (entityType.name().toLowerCase(Locale.ROOT).contains(mob)) {
+                        entityTypes.add(entityType);
+                    }
+                }
+            }
+
+            return new MissionMatcher(kind, materials, entityTypes);
+        }
+
+        private static Material materialOrNull(String name) {
+            try {
+                return Material.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        public MissionKind getKind() { return kind; }
+        public Set<Material> getMaterials() { return Collections.unmodifiableSet(materials); }
+        public Set<EntityType> getEntityTypes() { return Collections.unmodifiableSet(entityTypes); }
+
+        public boolean matchesMaterial(Material material) {
+            return materials.contains(material);
+        }
+
+        public boolean matchesEntity(EntityType entityType) {
+            return entityTypes.contains(entityType);
+        }
+
+        /**
+         * Une culture ne compte que si elle est arrivée à maturité
+         */
+        public boolean requiresMatureCrop() { return requiresMatureCrop; }
+    }
 }
@@ -0,0 +1,137 @@
+package loyfael.core.services;
+
+import loyfael.utils.Utils;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Message de messages.yml compilé au chargement : morceaux de texte (codes couleur déjà traduits)
+ * entrecoupés d'emplacements {i}, rendu en un seul StringBuilder
+ */
+final class MessageTemplate {
+
+    private static final LegacyComponentSerializer SECTION_SERIALIZER = LegacyComponentSerializer.legacySection();
+
+    // literals.length == slots.length + 1
+    private final String[] literals;
+    private final int[] slots;
+    private final int literalLength;
+    private final String constantText;
+    private final Component constantComponent;
+
+    private MessageTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+        // Sans emplacement, le texte et le composant sont calculés une seule fois
+        this.constantText = slots.length == 0 ? literals[0] : null;
+        this.constantComponent = slots.length == 0 ? SECTION_SERIALIZER.deserialize(literals[0]) : null;
+    }
+
+    /**
+     * Compile un message brut (codes couleur '&')
+     */
+    static MessageTemplate compile(String raw) {
+        String colored = Utils.colorize(raw);
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+
+        int literalStart = 0;
+        int open = colored.indexOf('{');
+        while (open >= 0) {
+            int close = colored.indexOf('}', open + 1);
+            if (close < 0) {
+                break;
+            }
+            int index = parseIndex(colored, open + 1, close);
+            if (index >= 0) {
+                literals.add(colored.substring(literalStart, open));
+                slots.add(index);
+                literalStart = close + 1;
+                open = colored.indexOf('{', literalStart);
+            } else {
+                open = colored.indexOf('{', open + 1);
+            }
+        }
+        literals.add(colored.substring(literalStart));
+
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+        }
+        return new MessageTemplate(literals.toArray(new String[0]), slotArray);
+    }
+
+    /**
+     * Index d'un emplacement {i}, -1 si le contenu des accolades n'est pas un entier positif
+     */
+    private static int parseIndex(String text, int start, int end) {
+        if (start == end || end - start > 3 || (end - start > 1 && text.charAt(start) == '0')) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    /**
+     * Message vide (rien à envoyer)
+     */
+    boolean isEmpty() {
+        return slots.length == 0 && literals[0].isEmpty();
+    }
+
+    /**
+     * Rend le message ; un emplacement sans valeur fournie reste tel quel ({i})
+     */
+    String render(Object... placeholders) {
+        if (constantText != null) {
+            return constantText;
+        }
+
+        StringBuilder builder = new StringBuilder(literalLength + slots.length * 8);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+            int index = slots[i];
+            if (placeholders != null && index < placeholders.length) {
+                appendValue(builder, placeholders[index]);
+            } else {
+                builder.append('{').append(index).append('}');
+            }
+        }
+        return builder.append(literals[slots.length]).toString();
+    }
+
+    /**
+     * Rend le message en composant Adventure (mis en cache pour un message sans emplacement)
+     */
+    Component toComponent(Object... placeholders) {
+        if (constantComponent != null) {
+            return constantComponent;
+        }
+        return SECTION_SERIALIZER.deserialize(render(placeholders));
+    }
+
+    private static void appendValue(StringBuilder builder, Object value) {
+        if (value instanceof Integer) {
+            builder.append(((Integer) value).intValue());
+            return;
+        }
+        String text = String.valueOf(value);
+        // Les valeurs peuvent contenir des codes couleur (ex: noms de niveaux de levels.yml)
+        builder.append(text.indexOf('&') >= 0 ? Utils.colorize(text) : text);
+    }
+}
@@ -0,0 +1,177 @@
+package loyfael.core.services;
+
+import loyfael.core.services.LevelsConfigService.MissionKind;
+import loyfael.utils.Utils;
+
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Traitement des événements de mission hors du thread principal
+ * Le thread principal dépose un instantané immuable de l'événement dans une file sans verrou ;
+ * un unique thread consommateur le traite, de sorte que l'accès aux données joueur
+ * (et donc à la base) ne pèse jamais sur le tick
+ */
+final class MissionEventWorker {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Consumer<MissionEvent> handler;
+    // Événements et barrières d'attente (CountDownLatch), traités dans l'ordre de dépôt
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private volatile int maxPending = 10000;
+    private volatile boolean running;
+    private volatile boolean waiting;
+    private Thread thread;
+
+    MissionEventWorker(Consumer<MissionEvent> handler) {
+        this.handler = handler;
+    }
+
+    void setMaxPending(int maxPending) {
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    /**
+     * Démarre le thread consommateur (sans effet s'il tourne déjà)
+     */
+    synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "KrakenLevels-MissionEvents");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Arrête le thread après avoir traité les événements déjà déposés
+     */
+    void shutdown() {
+        Thread worker;
+        synchronized (this) {
+            worker = thread;
+            thread = null;
+            running = false;
+        }
+        if (worker == null) {
+            return;
+        }
+        LockSupport.unpark(worker);
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Dépose un événement ; false si le thread est arrêté ou la file pleine (l'appelant traite alors lui-même)
+     */
+    boolean submit(MissionEvent event) {
+        Thread worker = thread;
+        if (!running || worker == null) {
+            return false;
+        }
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            return false;
+        }
+        queue.offer(event);
+        if (waiting) {
+            LockSupport.unpark(worker);
+        }
+        return true;
+    }
+
+    int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Attend que les événements déjà déposés soient traités (file FIFO, consommateur unique : une barrière suffit)
+     * Ne jamais appeler depuis le thread consommateur ; false si le délai est écoulé
+     */
+    boolean awaitProcessed(long timeout, TimeUnit unit) {
+        Thread worker = thread;
+        if (worker == null || Thread.currentThread() == worker) {
+            return true;
+        }
+        CountDownLatch barrier = new CountDownLatch(1);
+        queue.offer(barrier);
+        LockSupport.unpark(worker);
+        try {
+            return barrier.await(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            Object next = queue.poll();
+            if (next == null) {
+                // Annoncer l'attente avant de revérifier la file : aucun réveil ne peut être perdu
+                waiting = true;
+                if (running && queue.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                waiting = false;
+                continue;
+            }
+
+            if (next instanceof CountDownLatch) {
+                ((CountDownLatch) next).countDown();
+                continue;
+            }
+
+            pending.decrementAndGet();
+            try {
+                handler.accept((MissionEvent) next);
+            } catch (Exception e) {
+                Utils.sendConsoleLog("&cErreur lors du traitement d'un événement de mission: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Instantané immuable d'un événement pris sur le thread principal : aucun objet Bukkit n'est transmis,
+     * le joueur est recherché par son UUID sur le thread principal (barre de progression, récompenses)
+     */
+    static final class MissionEvent {
+        private final UUID playerUuid;
+        private final MissionKind kind;
+        private final Object key;
+        private final boolean cropMature;
+
+        MissionEvent(UUID playerUuid, MissionKind kind, Object key, boolean cropMature) {
+            this.playerUuid = playerUuid;
+            this.kind = kind;
+            this.key = key;
+            this.cropMature = cropMature;
+        }
+
+        UUID getPlayerUuid() { return playerUuid; }
+        MissionKind getKind() { return kind; }
+
+        /**
+         * Matériau, type d'entité ou ObjectiveIndex.ANY_KEY
+         */
+        Object getKey() { return key; }
+
+        /**
+         * Culture cassée à maturité (toujours vrai pour un bloc qui n'est pas une culture)
+         */
+        boolean isCropMature() { return cropMature; }
+    }
+}
@@ -0,0 +1,320 @@
+package loyfael.core.services;
+
+import loyfael.api.interfaces.IPlayerService;
+import loyfael.api.interfaces.IPlayerService.PlayerData;
+import loyfael.utils.Utils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compteurs de progression des objectifs actifs des joueurs connectés
+ * L'incrément sur le thread d'événement est un simple compteur atomique (sans allocation) ;
+ * un thread dédié reporte périodiquement les compteurs modifiés dans les données joueur
+ * et les sauvegarde selon la stratégie configurée (immédiate ou différée)
+ */
+final class MissionProgressStore {
+
+    static final int UNKNOWN = -1;
+
+    private final IPlayerService playerService;
+    // Par joueur, compteurs indexés par clé de progression (ex: mission_5)
+    private final Map<UUID, Map<String, Slot>> slots = new ConcurrentHashMap<>();
+
+    // Sauvegarde différée : joueurs modifiés et nombre d'actions depuis la dernière sauvegarde
+    private final Set<String> modifiedPlayers = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> actionsSinceSave = new ConcurrentHashMap<>();
+
+    // Stratégie de sauvegarde, lue au chargement/rechargement de la configuration
+    private volatile boolean saveImmediately = true;
+    private volatile int maxActionsBeforeSave = 50;
+
+    private ScheduledExecutorService flusher;
+
+    MissionProgressStore(IPlayerService playerService) {
+        this.playerService = playerService;
+    }
+
+    /**
+     * Applique la stratégie de sauvegarde
+     */
+    void configure(boolean saveImmediately, int maxActionsBeforeSave) {
+        this.saveImmediately = saveImmediately;
+        this.maxActionsBeforeSave = Math.max(1, maxActionsBeforeSave);
+    }
+
+    /**
+     * Démarre le report périodique des compteurs
+     */
+    synchronized void start(long flushIntervalMs) {
+        if (flusher != null) {
+            return;
+        }
+        long interval = Math.max(50L, flushIntervalMs);
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "KrakenLevels-MissionProgress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Arrête le report périodique puis reporte et sauvegarde tout ce qui reste
+     */
+    void shutdown() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = flusher;
+            flusher = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        saveAllModified();
+    }
+
+    /**
+     * Ouvre le compteur d'un objectif (le compteur précédent de même clé est abandonné)
+     */
+    Slot open(UUID playerUuid, String progressKey, int requiredAmount) {
+        Slot slot = new Slot(playerUuid, progressKey, requiredAmount);
+        Slot previous = slots.computeIfAbsent(playerUuid, uuid -> new ConcurrentHashMap<>()).put(progressKey, slot);
+        if (previous != null) {
+            previous.retire();
+        }
+        return slot;
+    }
+
+    /**
+     * Ferme le compteur d'un objectif (objectif terminé ou remplacé)
+     */
+    void close(UUID playerUuid, String progressKey) {
+        Map<String, Slot> playerSlots = slots.get(playerUuid);
+        Slot slot = playerSlots != null ? playerSlots.remove(progressKey) : null;
+        if (slot != null) {
+            slot.retire();
+        }
+    }
+
+    /**
+     * Ferme tous les compteurs d'un joueur (après avoir reporté sa progression)
+     */
+    void closeAll(UUID playerUuid) {
+        Map<String, Slot> playerSlots = slots.remove(playerUuid);
+        if (playerSlots != null) {
+            playerSlots.values().forEach(Slot::retire);
+        }
+    }
+
+    Slot get(UUID playerUuid, String progressKey) {
+        Map<String, Slot> playerSlots = slots.get(playerUuid);
+        return playerSlots != null ? playerSlots.get(progressKey) : null;
+    }
+
+    /**
+     * Ajoute du progrès et retourne la nouvelle valeur (UNKNOWN si les données joueur sont introuvables)
+     */
+    int increment(Slot slot, int amount) {
+        if (slot.progress.get() == UNKNOWN && !load(slot)) {
+            return UNKNOWN;
+        }
+        int progress = slot.progress.addAndGet(amount);
+        slot.unflushedActions.incrementAndGet();
+        return progress;
+    }
+
+    /**
+     * Valeur initiale du compteur : progression enregistrée dans les données joueur
+     */
+    private boolean load(Slot slot) {
+        PlayerData playerData = playerService.getPlayerData(slot.playerUuid).orElse(null);
+        if (playerData == null) {
+            return false;
+        }
+        slot.progress.compareAndSet(UNKNOWN, playerData.getMissionProgress().getOrDefault(slot.progressKey, 0));
+        return true;
+    }
+
+    /**
+     * Enregistre une modification faite directement dans les données joueur et la sauvegarde selon la stratégie
+     */
+    void recordChange(String playerUuid, PlayerData playerData, int actions) {
+        if (saveDue(playerUuid, actions)) {
+            playerService.savePlayerData(playerUuid, playerData);
+            clearModified(playerUuid);
+        }
+    }
+
+    private boolean saveDue(String playerUuid, int actions) {
+        if (saveImmediately) {
+            return true;
+        }
+        modifiedPlayers.add(playerUuid);
+        return actionsSinceSave.merge(playerUuid, actions, Integer::sum) >= maxActionsBeforeSave;
+    }
+
+    private void clearModified(String playerUuid) {
+        modifiedPlayers.remove(playerUuid);
+        actionsSinceSave.remove(playerUuid);
+    }
+
+    private void flushSafely() {
+        try {
+            flushAll();
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors du report de la progression des missions: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reporte tous les compteurs modifiés dans les données joueur (sauvegardes dues en un seul lot)
+     */
+    synchronized void flushAll() {
+        Map<String, PlayerData> batch = new HashMap<>();
+        for (Map<String, Slot> playerSlots : slots.values()) {
+            for (Slot slot : playerSlots.values()) {
+                flush(slot, batch);
+            }
+        }
+        if (!batch.isEmpty()) {
+            playerService.saveAllPlayerData(batch);
+            batch.keySet().forEach(this::clearModified);
+        }
+    }
+
+    /**
+     * Reporte les compteurs d'un joueur dans ses données
+     */
+    synchronized void flush(UUID playerUuid) {
+        Map<String, Slot> playerSlots = slots.get(playerUuid);
+        if (playerSlots == null) {
+            return;
+        }
+        Map<String, PlayerData> batch = new HashMap<>(2);
+        for (Slot slot : playerSlots.values()) {
+            flush(slot, batch);
+        }
+        if (!batch.isEmpty()) {
+            playerService.saveAllPlayerData(batch);
+            batch.keySet().forEach(this::clearModified);
+        }
+    }
+
+    private void flush(Slot slot, Map<String, PlayerData> batch) {
+        int actions = slot.unflushedActions.getAndSet(0);
+        if (actions == 0) {
+            return;
+        }
+
+        // Lecture hors du verrou du compteur : un chargement peut notifier les écouteurs de niveau
+        PlayerData playerData = playerService.getPlayerData(slot.playerUuid).orElse(null);
+        if (playerData == null) {
+            return;
+        }
+        synchronized (slot) {
+            if (slot.retired) {
+                return; // Mission terminée ou niveau changé entre-temps : progression obsolète
+            }
+            // Table concurrente : le thread principal et le traitement des événements la modifient aussi
+            playerData.getMissionProgress().put(slot.progressKey, slot.progress.get());
+        }
+
+        String playerKey = slot.playerUuid.toString();
+        if (saveDue(playerKey, actions)) {
+            batch.put(playerKey, playerData);
+        }
+    }
+
+    /**
+     * Sauvegarde les données d'un joueur si elles ont été modifiées
+     */
+    void saveIfModified(String playerUuid) {
+        if (modifiedPlayers.contains(playerUuid)) {
+            playerService.getPlayerData(playerUuid).ifPresent(playerData -> {
+                playerService.savePlayerData(playerUuid, playerData);
+                clearModified(playerUuid);
+            });
+        }
+    }
+
+    /**
+     * Reporte tous les compteurs puis sauvegarde en un seul lot toutes les données modifiées
+     */
+    void saveAllModified() {
+        flushAll();
+
+        Map<String, PlayerData> batch = new HashMap<>();
+        for (String playerUuid : new HashSet<>(modifiedPlayers)) {
+            playerService.getPlayerData(playerUuid).ifPresent(data -> batch.put(playerUuid, data));
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        playerService.saveAllPlayerData(batch);
+        batch.keySet().forEach(this::clearModified);
+    }
+
+    /**
+     * Oublie l'état de sauvegarde différée d'un joueur
+     */
+    void forget(String playerUuid) {
+        clearModified(playerUuid);
+    }
+
+    /**
+     * Compteur d'un objectif actif d'un joueur
+     */
+    static final class Slot {
+        private final UUID playerUuid;
+        private final String progressKey;
+        private final int requiredAmount;
+        private final AtomicInteger progress = new AtomicInteger(UNKNOWN);
+        private final AtomicInteger unflushedActions = new AtomicInteger();
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+        private boolean retired;
+
+        private Slot(UUID playerUuid, String progressKey, int requiredAmount) {
+            this.playerUuid = playerUuid;
+            this.progressKey = progressKey;
+            this.requiredAmount = requiredAmount;
+        }
+
+        String getProgressKey() { return progressKey; }
+        int getRequiredAmount() { return requiredAmount; }
+
+        /**
+         * Progression courante (UNKNOWN tant que le compteur n'a pas été chargé)
+         */
+        int getProgress() { return progress.get(); }
+
+        /**
+         * Réserve la complétion de l'objectif : true pour un seul appelant
+         */
+        boolean markCompleted() {
+            return completed.compareAndSet(false, true);
+        }
+
+        private synchronized void retire() {
+            retired = true;
+        }
+    }
+}
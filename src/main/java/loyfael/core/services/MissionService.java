@@ -1,5 +1,6 @@
 package loyfael.core.services;
 
+import loyfael.api.interfaces.IConfigurationService;
 import loyfael.api.interfaces.IMissionService;
 import loyfael.api.interfaces.IPlayerService;
 import loyfael.api.interfaces.INotificationService;
@@ -7,18 +8,21 @@ import loyfael.api.interfaces.ILevelsConfigService;
 import loyfael.Main;
 import loyfael.utils.Utils;
 import loyfael.utils.RewardExecutor;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.player.PlayerFishEvent;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.data.Ageable;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service de missions centralisé utilisant totalement levels.yml
@@ -30,71 +34,175 @@ public class MissionService implements IMissionService {
     private final IPlayerService playerService;
     private final INotificationService notificationService;
     private final ILevelsConfigService levelsConfigService;
+    private final IConfigurationService configService;
     private final Map<String, List<Mission>> playerMissions = new ConcurrentHashMap<>();
 
-    // Cache pour optimiser les performances - ne traite les événements que si nécessaire
-    private volatile boolean hasActiveBlockBreakMissions = false;
-    private volatile boolean hasActiveBlockPlaceMissions = false;
-    private volatile boolean hasActiveKillMissions = false;
-    private volatile boolean hasActiveFishMissions = false;
+    // Table de routage : objectifs actifs de chaque joueur connecté, indexés par (type d'événement, clé)
+    // Mise à jour à la connexion/déconnexion, à chaque changement de niveau et à chaque assignation
+    private final Map<UUID, Route> routes = new ConcurrentHashMap<>();
 
-    // Gestion de la sauvegarde différée
-    private final Set<String> modifiedPlayers = ConcurrentHashMap.newKeySet();
-    private final Map<String, Integer> playerActionCounts = new ConcurrentHashMap<>();
+    // Compteurs de progression des objectifs actifs, reportés en arrière-plan
+    private final MissionProgressStore progressStore;
+
+    // Traitement asynchrone des événements (mode "async") : le tick ne dépend plus de la latence du stockage
+    private final MissionEventWorker eventWorker = new MissionEventWorker(this::dispatch);
+    private volatile boolean asyncProcessing = false;
 
     public MissionService(IPlayerService playerService, INotificationService notificationService,
                          ILevelsConfigService levelsConfigService) {
+        this(playerService, notificationService, levelsConfigService, null);
+    }
+
+    public MissionService(IPlayerService playerService, INotificationService notificationService,
+                         ILevelsConfigService levelsConfigService, IConfigurationService configService) {
         this.playerService = playerService;
         this.notificationService = notificationService;
         this.levelsConfigService = levelsConfigService;
+        this.configService = configService;
+        this.progressStore = new MissionProgressStore(playerService);
         loadMissionsFromConfig();
-        updateActiveMissionsCache();
+
+        // Les changements de niveau (quelle qu'en soit l'origine) mettent à jour la route du joueur
+        playerService.addLevelListener(this::updateRoute);
     }
 
-    /**
-     * Met à jour le cache des missions actives pour optimiser les performances
-     * Ne traite les événements QUE si au moins un joueur connecté a une mission active de ce type
-     */
-    private void updateActiveMissionsCache() {
-        hasActiveBlockBreakMissions = false;
-        hasActiveBlockPlaceMissions = false;
-        hasActiveKillMissions = false;
-        hasActiveFishMissions = false;
+    @Override
+    public void initialize() {
+        reloadSettings();
+        long flushInterval = configService != null
+            ? configService.getConfig().getLong("system.save-strategy.flush-interval", 1000L)
+            : 1000L;
+        progressStore.start(flushInterval);
+
+        // Joueurs déjà connectés (rechargement du plugin)
+        for (Player onlinePlayer : Bukkit.getOnlinePlayers()) {
+            trackPlayer(onlinePlayer.getUniqueId());
+        }
+    }
+
+    @Override
+    public void reloadSettings() {
+        if (configService == null) {
+            return; // Sauvegarde immédiate par défaut
+        }
 
-        // Parcourir tous les joueurs connectés pour voir qui a des missions actives
-        for (Player onlinePlayer : Main.getInstance().getServer().getOnlinePlayers()) {
-            String playerUuid = onlinePlayer.getUniqueId().toString();
-            int currentLevel = playerService.getPlayerLevel(playerUuid);
-            int nextLevel = currentLevel + 1;
+        String saveMode = configService.getConfig().getString("system.save-strategy.mode", "immediate");
+        int maxActions = configService.getConfig().getInt("system.save-strategy.max-actions-before-save", 50);
+        progressStore.configure("immediate".equals(saveMode), maxActions);
 
-            // Vérifier si ce joueur a une mission active pour le prochain niveau
-            LevelsConfigService.LevelConfig nextLevelConfig = levelsConfigService.getLevelConfig(nextLevel);
+        String processingMode = configService.getConfig().getString("system.mission-processing.mode", "sync");
+        eventWorker.setMaxPending(configService.getConfig().getInt("system.mission-processing.max-pending", 10000));
+        asyncProcessing = "async".equalsIgnoreCase(processingMode);
+        if (asyncProcessing) {
+            eventWorker.start();
+        }
+    }
 
-            if (nextLevelConfig != null && nextLevelConfig.getType().isMission()) {
-                String missionType = nextLevelConfig.getType().getName().toLowerCase();
-
-                switch (missionType) {
-                    case "blockbreak":
-                        hasActiveBlockBreakMissions = true;
-                        break;
-                    case "blockplace":
-                        hasActiveBlockPlaceMissions = true;
-                        break;
-                    case "kills":
-                        hasActiveKillMissions = true;
-                        break;
-                    case "fish":
-                        hasActiveFishMissions = true;
-                        break;
-                }
+    @Override
+    public void shutdown() {
+        // Traiter les événements en attente avant le dernier report des compteurs
+        asyncProcessing = false;
+        eventWorker.shutdown();
+        progressStore.shutdown();
+    }
 
-                // Optimisation : si tous les types sont actifs, pas besoin de continuer
-                if (hasActiveBlockBreakMissions && hasActiveBlockPlaceMissions &&
-                    hasActiveKillMissions && hasActiveFishMissions) {
-                    break;
+    @Override
+    public void trackPlayer(UUID playerUuid) {
+        int level = playerService.getPlayerLevel(playerUuid);
+        routes.computeIfAbsent(playerUuid, uuid -> {
+            // Missions assignées avant la connexion
+            ObjectiveIndex objectives = ObjectiveIndex.EMPTY;
+            for (Mission mission : playerMissions.getOrDefault(uuid.toString(), Collections.emptyList())) {
+                Objective objective = assignedObjective(uuid, mission);
+                if (objective != null) {
+                    objectives = objectives.with(objective);
                 }
             }
+            return new Route(Route.UNKNOWN_LEVEL, objectives);
+        });
+        updateRoute(playerUuid, level);
+    }
+
+    @Override
+    public boolean awaitPendingEvents() {
+        return eventWorker.awaitProcessed(5, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void untrackPlayer(UUID playerUuid) {
+        routes.remove(playerUuid);
+        progressStore.closeAll(playerUuid);
+    }
+
+    @Override
+    public boolean isRelevant(UUID playerUuid, LevelsConfigService.MissionKind kind) {
+        Route route = routes.get(playerUuid);
+        return route != null && route.objectives.hasKind(kind);
+    }
+
+    @Override
+    public boolean isRelevant(UUID playerUuid, LevelsConfigService.MissionKind kind, Material material) {
+        Route route = routes.get(playerUuid);
+        return route != null && route.objectives.lookup(kind, material) != null;
+    }
+
+    @Override
+    public boolean isRelevant(UUID playerUuid, EntityType entityType) {
+        Route route = routes.get(playerUuid);
+        return route != null && route.objectives.lookup(LevelsConfigService.MissionKind.KILLS, entityType) != null;
+    }
+
+    /**
+     * Recalcule l'objectif de niveau d'un joueur suivi (sans effet pour un joueur non connecté)
+     * Les missions assignées sont conservées telles quelles
+     */
+    private void updateRoute(UUID playerUuid, int level) {
+        routes.computeIfPresent(playerUuid, (uuid, previous) -> {
+            if (previous.level == level) {
+                return previous;
+            }
+
+            ObjectiveIndex objectives = previous.objectives;
+            if (previous.level != Route.UNKNOWN_LEVEL) {
+                // L'ancien compteur n'a plus lieu d'être reporté
+                String previousKey = levelProgressKey(previous.level + 1);
+                objectives = objectives.without(previousKey);
+                progressStore.close(uuid, previousKey);
+            }
+
+            // Mission pour atteindre le niveau suivant
+            LevelsConfigService.LevelConfig nextLevelConfig = levelsConfigService.getLevelConfig(level + 1);
+            if (nextLevelConfig != null && nextLevelConfig.getType().isMission()) {
+                String progressKey = levelProgressKey(nextLevelConfig.getLevelNumber());
+                MissionProgressStore.Slot slot = progressStore.open(uuid, progressKey, nextLevelConfig.getType().getAmount());
+                objectives = objectives.with(new Objective(progressKey, nextLevelConfig.getType().getMatcher(), slot,
+                    player -> completeMission(player, nextLevelConfig)));
+            }
+            return new Route(level, objectives);
+        });
+    }
+
+    private static String levelProgressKey(int level) {
+        return "mission_" + level;
+    }
+
+    private static String assignedProgressKey(Mission mission) {
+        return "objective_" + mission.getId();
+    }
+
+    /**
+     * Objectif d'une mission assignée (null si son type ne correspond à aucun événement)
+     */
+    private Objective assignedObjective(UUID playerUuid, Mission mission) {
+        LevelsConfigService.MissionMatcher matcher =
+            LevelsConfigService.MissionMatcher.compile(mission.getType(), mission.getTarget(), mission.getTarget());
+        if (!matcher.getKind().isMission()) {
+            return null;
         }
+
+        String progressKey = assignedProgressKey(mission);
+        MissionProgressStore.Slot slot = progressStore.open(playerUuid, progressKey, mission.getTargetAmount());
+        return new Objective(progressKey, matcher, slot, player -> completeAssignedMission(player, mission));
     }
 
     /**
@@ -104,141 +212,189 @@ public class MissionService implements IMissionService {
         // Les missions sont chargées à la volée via levelsConfigService
     }
 
+    /**
+     * Extrait sur le thread principal un instantané de l'événement (clé, maturité de la culture),
+     * puis le traite directement (mode "sync") ou le confie au thread de traitement (mode "async")
+     */
     @Override
     public void processEvent(Player player, Event event) {
         if (player == null) return;
 
-        String playerUuid = player.getUniqueId().toString();
+        Route route = routes.get(player.getUniqueId());
+        if (route == null) {
+            return; // Joueur non suivi
+        }
 
-        // Obtenir le niveau actuel du joueur
-        int currentLevel = playerService.getPlayerLevel(playerUuid);
-        int targetLevel = currentLevel + 1; // Mission pour atteindre le niveau suivant
+        LevelsConfigService.MissionKind kind;
+        Object key;
+        Block brokenBlock = null;
+
+        if (event instanceof BlockBreakEvent) {
+            BlockBreakEvent breakEvent = (BlockBreakEvent) event;
+            // Vérifier que c'est bien le bon joueur qui casse le bloc
+            if (!breakEvent.getPlayer().equals(player)) return;
+            kind = LevelsConfigService.MissionKind.BLOCK_BREAK;
+            brokenBlock = breakEvent.getBlock();
+            key = brokenBlock.getType();
+        } else if (event instanceof BlockPlaceEvent) {
+            BlockPlaceEvent placeEvent = (BlockPlaceEvent) event;
+            // Vérifier que c'est bien le bon joueur qui place le bloc
+            if (!placeEvent.getPlayer().equals(player)) return;
+            kind = LevelsConfigService.MissionKind.BLOCK_PLACE;
+            key = placeEvent.getBlock().getType();
+        } else if (event instanceof EntityDeathEvent) {
+            EntityDeathEvent deathEvent = (EntityDeathEvent) event;
+            // Vérifier que c'est bien le joueur qui a tué l'entité
+            if (deathEvent.getEntity().getKiller() == null || !deathEvent.getEntity().getKiller().equals(player)) return;
+            kind = LevelsConfigService.MissionKind.KILLS;
+            key = deathEvent.getEntity().getType();
+        } else if (event instanceof PlayerFishEvent) {
+            if (((PlayerFishEvent) event).getState() != PlayerFishEvent.State.CAUGHT_FISH) return;
+            kind = LevelsConfigService.MissionKind.FISH;
+            key = ObjectiveIndex.ANY_KEY;
+        } else {
+            return;
+        }
 
-        // Vérifier si il y a une mission pour atteindre le niveau cible
-        LevelsConfigService.LevelConfig targetLevelConfig = levelsConfigService.getLevelConfig(targetLevel);
+        Objective[] objectives = route.objectives.lookup(kind, key);
+        if (objectives == null) {
+            return;
+        }
 
-        if (targetLevelConfig == null || targetLevelConfig.getType().getName().equalsIgnoreCase("currency")) {
-            return; // Pas de mission pour ce niveau (c'est de l'économie)
+        // L'état du bloc n'est lisible que sur le thread principal : maturité calculée ici, au plus une fois
+        boolean cropMature = true;
+        if (brokenBlock != null) {
+            for (Objective objective : objectives) {
+                if (objective.getMatcher().requiresMatureCrop()) {
+                    cropMature = isCropMature(brokenBlock);
+                    break;
+                }
+            }
         }
 
-        // Traiter l'événement pour progresser vers le niveau cible
-        processMissionEvent(player, targetLevelConfig, event);
+        MissionEventWorker.MissionEvent snapshot = new MissionEventWorker.MissionEvent(player.getUniqueId(), kind, key, cropMature);
+        if (asyncProcessing && eventWorker.submit(snapshot)) {
+            return;
+        }
+        dispatch(snapshot);
     }
 
     /**
-     * Traite un événement pour une mission spécifique
+     * Traite un instantané en un seul passage : seuls les objectifs indexés sous sa clé sont mis à jour
      */
-    private void processMissionEvent(Player player, LevelsConfigService.LevelConfig levelConfig, Event event) {
-        LevelsConfigService.LevelType missionType = levelConfig.getType();
-        String playerUuid = player.getUniqueId().toString();
-
-        boolean progressMade = false;
-
-        switch (missionType.getName().toLowerCase()) {
-            case "blockbreak":
-                if (event instanceof BlockBreakEvent) {
-                    BlockBreakEvent breakEvent = (BlockBreakEvent) event;
-                    // Vérifier que c'est bien le bon joueur qui casse le bloc
-                    if (breakEvent.getPlayer().equals(player)) {
-                        Material targetMaterial = Material.valueOf(missionType.getMaterial().toUpperCase());
-                        Material brokenMaterial = breakEvent.getBlock().getType();
-                        
-                        // Vérifier si le matériau cassé correspond ou est équivalent (minerais deepslate)
-                        if (brokenMaterial == targetMaterial || isEquivalentOre(targetMaterial, brokenMaterial)) {
-                            // Vérifier la maturité seulement si c'est une culture
-                            if (isCropMature(breakEvent.getBlock(), brokenMaterial)) {
-                                progressMade = addMissionProgress(playerUuid, levelConfig.getLevelNumber(), 1);
-                            }
-                        }
-                    }
-                }
-                break;
-
-            case "blockplace":
-                if (event instanceof BlockPlaceEvent) {
-                    BlockPlaceEvent placeEvent = (BlockPlaceEvent) event;
-                    // Vérifier que c'est bien le bon joueur qui place le bloc
-                    if (placeEvent.getPlayer().equals(player)) {
-                        Material targetMaterial = Material.valueOf(missionType.getMaterial().toUpperCase());
-                        if (placeEvent.getBlock().getType() == targetMaterial) {
-                            progressMade = addMissionProgress(playerUuid, levelConfig.getLevelNumber(), 1);
-                        }
-                    }
-                }
-                break;
-
-            case "kills":
-                if (event instanceof EntityDeathEvent) {
-                    EntityDeathEvent deathEvent = (EntityDeathEvent) event;
-
-                    // Vérifier que c'est bien le joueur qui a tué l'entité
-                    if (deathEvent.getEntity().getKiller() != null &&
-                        deathEvent.getEntity().getKiller().equals(player) &&
-                        deathEvent.getEntity().getType().name().toLowerCase().contains(missionType.getMob().toLowerCase())) {
-
-                        progressMade = addMissionProgress(playerUuid, levelConfig.getLevelNumber(), 1);
-                    }
-                }
-                break;
+    private void dispatch(MissionEventWorker.MissionEvent event) {
+        Route route = routes.get(event.getPlayerUuid());
+        if (route == null) {
+            return; // Joueur déconnecté entre-temps
+        }
 
-            case "fish":
-                if (event instanceof PlayerFishEvent) {
-                    PlayerFishEvent fishEvent = (PlayerFishEvent) event;
-                    if (fishEvent.getState() == PlayerFishEvent.State.CAUGHT_FISH) {
-                        progressMade = addMissionProgress(playerUuid, levelConfig.getLevelNumber(), 1);
-                    }
-                }
-                break;
+        Objective[] objectives = route.objectives.lookup(event.getKind(), event.getKey());
+        if (objectives == null) {
+            return;
         }
 
-        if (progressMade) {
-            checkMissionCompletion(player, levelConfig);
+        for (Objective objective : objectives) {
+            if (!event.isCropMature() && objective.getMatcher().requiresMatureCrop()) {
+                continue;
+            }
+
+            MissionProgressStore.Slot slot = objective.getSlot();
+            int progress = progressStore.increment(slot, 1);
+            if (progress != MissionProgressStore.UNKNOWN) {
+                onProgress(event.getPlayerUuid(), objective, progress);
+            }
         }
     }
 
     /**
-     * Ajoute du progrès à une mission et retourne true si du progrès a été fait
+     * Ajoute du progrès à une mission en dehors du flux d'événements (commandes, API)
+     * et retourne true si du progrès a été fait
      */
     private boolean addMissionProgress(String playerUuid, int level, int amount) {
-        String missionKey = "mission_" + level;
-        IPlayerService.PlayerData playerData = playerService.getPlayerData(playerUuid).orElse(null);
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(playerUuid);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        // Mission active d'un joueur connecté : passer par son compteur
+        String missionKey = levelProgressKey(level);
+        MissionProgressStore.Slot slot = progressStore.get(uuid, missionKey);
+        if (slot != null) {
+            return progressStore.increment(slot, amount) != MissionProgressStore.UNKNOWN && amount > 0;
+        }
+
+        IPlayerService.PlayerData playerData = playerService.getPlayerData(uuid).orElse(null);
         if (playerData == null) return false;
 
         int currentProgress = playerData.getMissionProgress().getOrDefault(missionKey, 0);
-        int newProgress = currentProgress + amount;
+        playerData.getMissionProgress().put(missionKey, currentProgress + amount);
 
-        // Sauvegarder le progrès selon la stratégie configurée
-        playerData.getMissionProgress().put(missionKey, newProgress);
-        
-        // Vérifier la stratégie de sauvegarde depuis la config
-        if (shouldSaveImmediately(playerUuid)) {
-            playerService.savePlayerData(playerUuid, playerData);
+        // Sauvegarder selon la stratégie configurée
+        progressStore.recordChange(playerUuid, playerData, 1);
+
+        return amount > 0;
+    }
+
+    /**
+     * Déclenche la complétion ou notifie le joueur de sa progression
+     * Appelé depuis le thread de traitement des événements : seul l'UUID circule, le joueur
+     * n'est recherché que sur le thread principal
+     */
+    private void onProgress(UUID playerUuid, Objective objective, int progress) {
+        MissionProgressStore.Slot slot = objective.getSlot();
+        if (progress >= slot.getRequiredAmount()) {
+            if (slot.markCompleted()) {
+                // Une progression en attente ne doit pas s'afficher après la complétion
+                notificationService.cancelProgressActionBar(playerUuid);
+                // Récompenses et passage de niveau : toujours sur le thread principal
+                runOnMainThread(() -> {
+                    Player player = Bukkit.getPlayer(playerUuid);
+                    if (player != null && player.isOnline()) {
+                        objective.complete(player);
+                    }
+                });
+            }
         } else {
-            // Marquer les données comme modifiées pour sauvegarde différée
-            markPlayerDataAsModified(playerUuid);
+            // Notifier du progrès : regroupé, au plus une barre d'action par intervalle
+            notificationService.queueProgressActionBar(playerUuid, "missions.progress", progress, slot.getRequiredAmount());
         }
+    }
 
-        return amount > 0;
+    private static void runOnMainThread(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(Main.getInstance(), task);
+        }
     }
 
     /**
      * Vérifie si une mission est complétée et déclenche les récompenses
      */
     private void checkMissionCompletion(Player player, LevelsConfigService.LevelConfig levelConfig) {
-        String playerUuid = player.getUniqueId().toString();
-        String missionKey = "mission_" + levelConfig.getLevelNumber();
+        String missionKey = levelProgressKey(levelConfig.getLevelNumber());
 
-        IPlayerService.PlayerData playerData = playerService.getPlayerData(playerUuid).orElse(null);
+        Route route = routes.get(player.getUniqueId());
+        Objective objective = route != null ? route.objectives.get(missionKey) : null;
+        if (objective != null && objective.getSlot().getProgress() != MissionProgressStore.UNKNOWN) {
+            onProgress(player.getUniqueId(), objective, objective.getSlot().getProgress());
+            return;
+        }
+
+        IPlayerService.PlayerData playerData = playerService.getPlayerData(player.getUniqueId()).orElse(null);
         if (playerData == null) return;
 
         int currentProgress = playerData.getMissionProgress().getOrDefault(missionKey, 0);
         int requiredAmount = levelConfig.getType().getAmount();
 
         if (currentProgress >= requiredAmount) {
+            notificationService.cancelProgressActionBar(player);
             completeMission(player, levelConfig);
         } else {
-            // Notifier du progrès en utilisant le système de messages
-            notificationService.sendActionBar(player, "missions.progress", currentProgress, requiredAmount);
+            // Notifier du progrès : regroupé, au plus une barre d'action par intervalle
+            notificationService.queueProgressActionBar(player, "missions.progress", currentProgress, requiredAmount);
         }
     }
 
@@ -249,7 +405,7 @@ public class MissionService implements IMissionService {
         String playerUuid = player.getUniqueId().toString();
 
         // Récupérer le niveau actuel du joueur
-        int currentLevel = playerService.getPlayerLevel(playerUuid);
+        int currentLevel = playerService.getPlayerLevel(player.getUniqueId());
         int targetLevel = levelConfig.getLevelNumber(); // Le niveau que cette mission débloque
 
         // Vérifier que le joueur n'a pas déjà ce niveau ou un niveau supérieur
@@ -270,51 +426,83 @@ public class MissionService implements IMissionService {
         }
 
         // Nettoyer le progrès de mission
-        String missionKey = "mission_" + levelConfig.getLevelNumber();
+        String missionKey = levelProgressKey(levelConfig.getLevelNumber());
         IPlayerService.PlayerData playerData = playerService.getPlayerData(playerUuid).orElse(null);
         if (playerData != null) {
             playerData.getMissionProgress().remove(missionKey);
             playerService.savePlayerData(playerUuid, playerData);
         }
-
-        // Rafraîchir le cache car le joueur a changé de niveau
-        refreshMissionsCache();
     }
 
-    // Méthodes publiques pour l'optimisation des performances
-    public boolean hasActiveBlockBreakMissions() {
-        return hasActiveBlockBreakMissions;
-    }
+    /**
+     * Complète une mission assignée : récompenses, puis retrait de la mission et de son objectif
+     */
+    private void completeAssignedMission(Player player, Mission mission) {
+        UUID uuid = player.getUniqueId();
+        String progressKey = assignedProgressKey(mission);
 
-    public boolean hasActiveBlockPlaceMissions() {
-        return hasActiveBlockPlaceMissions;
-    }
+        List<Mission> missions = playerMissions.get(uuid.toString());
+        if (missions != null) {
+            missions.remove(mission);
+        }
+        routes.computeIfPresent(uuid, (key, route) -> new Route(route.level, route.objectives.without(progressKey)));
+        progressStore.close(uuid, progressKey);
 
-    public boolean hasActiveKillMissions() {
-        return hasActiveKillMissions;
-    }
+        mission.setCurrentProgress(mission.getTargetAmount());
+        rewardPlayer(player, mission);
 
-    public boolean hasActiveFishMissions() {
-        return hasActiveFishMissions;
+        IPlayerService.PlayerData playerData = playerService.getPlayerData(uuid).orElse(null);
+        if (playerData != null) {
+            playerData.getMissionProgress().remove(progressKey);
+            playerService.savePlayerData(uuid.toString(), playerData);
+        }
     }
 
     @Override
     public List<Mission> getPlayerMissions(String playerUuid) {
-        return playerMissions.getOrDefault(playerUuid, new ArrayList<>());
+        List<Mission> missions = playerMissions.getOrDefault(playerUuid, new ArrayList<>());
+        if (missions.isEmpty()) {
+            return missions;
+        }
+
+        // Progression courante : compteur en mémoire si le joueur est connecté, sinon données joueur
+        IPlayerService.PlayerData playerData = playerService.getPlayerData(playerUuid).orElse(null);
+        for (Mission mission : missions) {
+            String progressKey = assignedProgressKey(mission);
+            int progress = playerData != null ? playerData.getMissionProgress().getOrDefault(progressKey, 0) : 0;
+            try {
+                MissionProgressStore.Slot slot = progressStore.get(UUID.fromString(playerUuid), progressKey);
+                if (slot != null && slot.getProgress() != MissionProgressStore.UNKNOWN) {
+                    progress = slot.getProgress();
+                }
+            } catch (IllegalArgumentException e) {
+                // Identifiant non-UUID : données joueur uniquement
+            }
+            mission.setCurrentProgress(progress);
+        }
+        return missions;
     }
 
     @Override
     public void assignMission(String playerUuid, Mission mission) {
-        playerMissions.computeIfAbsent(playerUuid, k -> new ArrayList<>()).add(mission);
+        playerMissions.computeIfAbsent(playerUuid, k -> new java.util.concurrent.CopyOnWriteArrayList<>()).add(mission);
+
+        // Joueur connecté : l'objectif est actif immédiatement
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(playerUuid);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        routes.computeIfPresent(uuid, (key, route) -> {
+            Objective objective = assignedObjective(key, mission);
+            return objective != null ? new Route(route.level, route.objectives.with(objective)) : route;
+        });
     }
 
     @Override
     public boolean isMissionCompleted(String playerUuid, String missionId) {
-        String missionKey = "mission_" + missionId;
-        IPlayerService.PlayerData playerData = playerService.getPlayerData(playerUuid).orElse(null);
-        if (playerData == null) return false;
-
-        int currentProgress = playerData.getMissionProgress().getOrDefault(missionKey, 0);
+        int currentProgress = getMissionProgress(playerUuid, missionId);
 
         // Récupérer la configuration du niveau pour connaître l'objectif
         try {
@@ -338,7 +526,7 @@ public class MissionService implements IMissionService {
 
             if (progressMade) {
                 // Récupérer le joueur pour vérifier la complétion
-                Player player = Main.getInstance().getServer().getPlayer(java.util.UUID.fromString(playerUuid));
+                Player player = Bukkit.getPlayer(java.util.UUID.fromString(playerUuid));
                 if (player != null) {
                     LevelsConfigService.LevelConfig levelConfig = levelsConfigService.getLevelConfig(levelNumber);
                     if (levelConfig != null) {
@@ -353,7 +541,17 @@ public class MissionService implements IMissionService {
 
     @Override
     public int getMissionProgress(String playerUuid, String missionId) {
+        // Compteur en mémoire d'une mission active : plus récent que les données joueur
         String missionKey = "mission_" + missionId;
+        try {
+            MissionProgressStore.Slot slot = progressStore.get(UUID.fromString(playerUuid), missionKey);
+            if (slot != null && slot.getProgress() != MissionProgressStore.UNKNOWN) {
+                return slot.getProgress();
+            }
+        } catch (IllegalArgumentException e) {
+            // Identifiant non-UUID : lecture directe des données joueur
+        }
+
         IPlayerService.PlayerData playerData = playerService.getPlayerData(playerUuid).orElse(null);
         if (playerData == null) return 0;
 
@@ -361,10 +559,22 @@ public class MissionService implements IMissionService {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public void rewardPlayer(Player player, Mission mission) {
-        // Cette méthode est appelée par les autres services si nécessaire
-        // Pour notre implémentation, les récompenses sont gérées dans completeMission
-        // Suppression du log de récompense accordée
+        // Les récompenses des missions de niveau sont gérées dans completeMission ;
+        // les missions assignées portent leurs commandes et messages ("commands", "messages")
+        Map<String, Object> rewards = mission.getRewards();
+        if (rewards == null) {
+            return;
+        }
+        Object commands = rewards.get("commands");
+        if (commands instanceof List) {
+            RewardExecutor.executeCommands(player, (List<String>) commands);
+        }
+        Object messages = rewards.get("messages");
+        if (messages instanceof List) {
+            RewardExecutor.executeCommands(player, (List<String>) messages);
+        }
     }
 
     @Override
@@ -411,25 +621,12 @@ public class MissionService implements IMissionService {
         return true;
     }
 
-    /**
-     * Met à jour le cache quand un joueur se connecte/déconnecte ou change de niveau
-     */
-    public void refreshMissionsCache() {
-        updateActiveMissionsCache();
-    }
-
     /**
      * Vérifie si une culture est mature (au stade final de croissance)
      * @param block Le bloc à vérifier
-     * @param targetMaterial Le matériau cible de la mission
-     * @return true si la culture est mature ou si ce n'est pas une culture, false sinon
+     * @return true si la culture est mature ou si son âge ne peut pas être déterminé, false sinon
      */
-    private boolean isCropMature(Block block, Material targetMaterial) {
-        // Si le matériau cible n'est pas une culture, accepter automatiquement
-        if (!isCropBlock(targetMaterial)) {
-            return true;
-        }
-
+    private boolean isCropMature(Block block) {
         // Vérifier si c'est une culture avec l'interface Ageable
         if (block.getBlockData() instanceof Ageable) {
             Ageable crop = (Ageable) block.getBlockData();
@@ -440,81 +637,24 @@ public class MissionService implements IMissionService {
         return true; // Par défaut, accepter si on ne peut pas déterminer
     }
 
-    /**
-     * Vérifie si un matériau est une culture
-     * @param material Le matériau à vérifier
-     * @return true si c'est une culture, false sinon
-     */
-    private boolean isCropBlock(Material material) {
-        switch (material) {
-            case WHEAT:
-            case CARROTS:
-            case POTATOES:
-            case BEETROOTS:
-            case NETHER_WART:
-            case COCOA:
-            case SWEET_BERRY_BUSH:
-                return true;
-            default:
-                return false;
-        }
-    }
-
-    /**
-     * Détermine si les données doivent être sauvegardées immédiatement
-     */
-    private boolean shouldSaveImmediately(String playerUuid) {
-        // Récupérer la stratégie depuis la configuration
-        var configService = Main.getInstance().getConfigurationService();
-        if (configService == null) return true; // Sauvegarde immédiate par défaut
-        
-        String saveMode = configService.getConfig().getString("system.save-strategy.mode", "immediate");
-        
-        if ("immediate".equals(saveMode)) {
-            return true;
-        }
-        
-        // Mode différé : vérifier si on a atteint le seuil d'actions
-        int maxActions = configService.getConfig().getInt("system.save-strategy.max-actions-before-save", 50);
-        int currentActions = playerActionCounts.getOrDefault(playerUuid, 0);
-        
-        return currentActions >= maxActions;
-    }
-
-    /**
-     * Marque un joueur comme ayant des données modifiées
-     */
-    private void markPlayerDataAsModified(String playerUuid) {
-        modifiedPlayers.add(playerUuid);
-        playerActionCounts.merge(playerUuid, 1, Integer::sum);
-        
-        // Si on a atteint le seuil, sauvegarder quand même
-        if (shouldSaveImmediately(playerUuid)) {
-            savePlayerDataIfModified(playerUuid);
-        }
-    }
-
     /**
      * Sauvegarde les données d'un joueur si elles ont été modifiées
      */
     public void savePlayerDataIfModified(String playerUuid) {
-        if (modifiedPlayers.contains(playerUuid)) {
-            var playerDataOpt = playerService.getPlayerData(playerUuid);
-            if (playerDataOpt.isPresent()) {
-                playerService.savePlayerData(playerUuid, playerDataOpt.get());
-                modifiedPlayers.remove(playerUuid);
-                playerActionCounts.remove(playerUuid);
-            }
+        try {
+            progressStore.flush(UUID.fromString(playerUuid));
+        } catch (IllegalArgumentException e) {
+            // Identifiant non-UUID : aucun compteur associé
         }
+        progressStore.saveIfModified(playerUuid);
     }
 
     /**
      * Sauvegarde toutes les données modifiées (appelé à la déconnexion)
      */
     public void saveAllModifiedData() {
-        for (String playerUuid : new HashSet<>(modifiedPlayers)) {
-            savePlayerDataIfModified(playerUuid);
-        }
+        // Un seul lot au lieu d'une écriture par joueur
+        progressStore.saveAllModified();
     }
 
     /**
@@ -524,28 +664,21 @@ public class MissionService implements IMissionService {
         // Sauvegarder les données modifiées avant de nettoyer
         savePlayerDataIfModified(playerUuid);
         // Nettoyer les références
-        modifiedPlayers.remove(playerUuid);
-        playerActionCounts.remove(playerUuid);
+        progressStore.forget(playerUuid);
     }
 
     /**
-     * Vérifie si deux minerais sont équivalents (ex: iron_ore et deepslate_iron_ore)
+     * Objectifs actifs d'un joueur connecté : mission de niveau et missions assignées (immuable)
      */
-    private boolean isEquivalentOre(Material targetMaterial, Material brokenMaterial) {
-        // Map des équivalences minerai normal <-> minerai deepslate
-        String targetName = targetMaterial.name();
-        String brokenName = brokenMaterial.name();
-        
-        // Si la mission demande un minerai normal, accepter aussi la version deepslate
-        if (brokenName.equals("DEEPSLATE_" + targetName)) {
-            return true;
-        }
-        
-        // Si la mission demande un minerai deepslate, accepter aussi la version normale
-        if (targetName.startsWith("DEEPSLATE_") && brokenName.equals(targetName.substring(10))) {
-            return true;
-        }
-        
-        return false;
+    private static final class Route {
+        private static final int UNKNOWN_LEVEL = -1;
+
+        private final int level;
+        private final ObjectiveIndex objectives;
+
+        private Route(int level, ObjectiveIndex objectives) {
+            this.level = level;
+            this.objectives = objectives;
+        }
     }
 }
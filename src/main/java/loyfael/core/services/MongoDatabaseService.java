@@ -6,9 +6,23 @@ import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -61,6 +75,16 @@ public class MongoDatabaseService extends AbstractDatabaseService {
 
             // One-time connection test
             database.runCommand(new Document("ping", 1));
+
+            // Index backing the server-side leaderboard query (no-op if it already exists).
+            // Its failure (missing createIndex privilege, conflicting index) must not fail the connection
+            try {
+                collection.createIndex(Indexes.compoundIndex(
+                    Indexes.descending("data.level"), Indexes.descending("data.lastSeen")));
+            } catch (Exception e) {
+                Utils.sendConsoleLog("&cMongoDB leaderboard index creation failed (leaderboard queries will not use it): " + e.getMessage());
+            }
+
             // Memorize configuration used
             lastHost = host;
             lastPort = port;
@@ -111,21 +135,9 @@ public class MongoDatabaseService extends AbstractDatabaseService {
             
             // Retrieve server name from configuration for synchronization
             String serverName = configService.getConfig().getString("server.name", "unknown-server");
-            long currentTime = System.currentTimeMillis();
-            
-            // Create metadata for cross-server synchronization
-            Document metadata = new Document()
-                .append("lastModified", currentTime)
-                .append("lastModifiedBy", serverName)
-                .append("version", 1);
-
-            Document document = new Document("_id", key)
-                .append("data", value)
-                .append("lastUpdated", currentTime)
-                .append("metadata", metadata); // Add synchronization metadata
 
-            collection.replaceOne(filter, document,
-                new com.mongodb.client.model.ReplaceOptions().upsert(true));
+            collection.replaceOne(filter, buildDocument(key, value, serverName, System.currentTimeMillis()),
+                new ReplaceOptions().upsert(true));
 
         } catch (Exception e) {
             Utils.sendConsoleLog("&cError while saving to MongoDB: " + e.getMessage());
@@ -133,18 +145,98 @@ public class MongoDatabaseService extends AbstractDatabaseService {
     }
 
     @Override
-    public Optional<Object> getData(String key) {
-        validateKey(key);
+    public void saveAll(Map<String, Object> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Values cannot be null");
+        }
         ensureConnected();
+        if (values.isEmpty()) {
+            return;
+        }
+
+        String serverName = configService.getConfig().getString("server.name", "unknown-server");
+        long currentTime = System.currentTimeMillis();
+        ReplaceOptions upsert = new ReplaceOptions().upsert(true);
+
+        List<WriteModel<Document>> writes = new ArrayList<>(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            validateKey(entry.getKey());
+            writes.add(new ReplaceOneModel<>(new Document("_id", entry.getKey()),
+                buildDocument(entry.getKey(), entry.getValue(), serverName, currentTime), upsert));
+        }
 
         try {
-            Document filter = new Document("_id", key);
-            Document result = collection.find(filter).first();
+            // Unordered: one failing document does not prevent the others from being written
+            collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cError while bulk saving " + writes.size() + " entries to MongoDB: " + e.getMessage());
+            throw new IllegalStateException("Bulk save failed", e);
+        }
+    }
 
-            if (result != null && result.containsKey("data")) {
-                return Optional.of(result.get("data"));
+    @Override
+    public void updateAll(Map<String, FieldUpdate> updates) {
+        if (updates == null) {
+            throw new IllegalArgumentException("Updates cannot be null");
+        }
+        ensureConnected();
+
+        String serverName = configService.getConfig().getString("server.name", "unknown-server");
+        long currentTime = System.currentTimeMillis();
+
+        List<WriteModel<Document>> writes = new ArrayList<>(updates.size());
+        for (Map.Entry<String, FieldUpdate> entry : updates.entrySet()) {
+            validateKey(entry.getKey());
+            FieldUpdate update = entry.getValue();
+            if (update == null || update.isEmpty()) {
+                continue;
             }
 
+            List<Bson> operations = new ArrayList<>();
+            update.getSets().forEach((field, value) -> operations.add(Updates.set("data." + field, value)));
+            update.getIncrements().forEach((field, delta) -> operations.add(Updates.inc("data." + field, delta)));
+            update.getUnsets().forEach(field -> operations.add(Updates.unset("data." + field)));
+            operations.add(Updates.set("lastUpdated", currentTime));
+            operations.add(Updates.set("metadata.lastModified", currentTime));
+            operations.add(Updates.set("metadata.lastModifiedBy", serverName));
+
+            writes.add(new UpdateOneModel<>(new Document("_id", entry.getKey()), Updates.combine(operations)));
+        }
+
+        if (writes.isEmpty()) {
+            return;
+        }
+
+        try {
+            collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cError while applying " + writes.size() + " partial updates in MongoDB: " + e.getMessage());
+            throw new IllegalStateException("Bulk update failed", e);
+        }
+    }
+
+    /**
+     * Builds the stored document with its cross-server synchronization metadata
+     */
+    private Document buildDocument(String key, Object value, String serverName, long currentTime) {
+        Document metadata = new Document()
+            .append("lastModified", currentTime)
+            .append("lastModifiedBy", serverName)
+            .append("version", 1);
+
+        return new Document("_id", key)
+            .append("data", value)
+            .append("lastUpdated", currentTime)
+            .append("metadata", metadata);
+    }
+
+    @Override
+    public Optional<Object> getData(String key) {
+        validateKey(key);
+        ensureConnected();
+
+        try {
+            return find(key);
         } catch (Exception e) {
             Utils.sendConsoleLog("&cError while fetching from MongoDB: " + e.getMessage());
         }
@@ -152,6 +244,49 @@ public class MongoDatabaseService extends AbstractDatabaseService {
         return Optional.empty();
     }
 
+    @Override
+    public Optional<Object> find(String key) {
+        validateKey(key);
+        ensureConnected();
+
+        // Point lookup on _id: at most one document, driver errors propagate
+        Document result = collection.find(new Document("_id", key)).limit(1).first();
+        if (result != null && result.containsKey("data")) {
+            return Optional.of(result.get("data"));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Map<String, Object> getAll(Collection<String> keys) {
+        if (keys == null) {
+            throw new IllegalArgumentException("Keys cannot be null");
+        }
+        ensureConnected();
+
+        Map<String, Object> results = new HashMap<>();
+        if (keys.isEmpty()) {
+            return results;
+        }
+
+        try {
+            collection.find(Filters.in("_id", keys))
+                .projection(Projections.include("data"))
+                .forEach(doc -> {
+                    String id = doc.getString("_id");
+                    Object data = doc.get("data");
+                    if (id != null && data != null) {
+                        results.put(id, data);
+                    }
+                });
+
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cError while fetching multiple entries from MongoDB: " + e.getMessage());
+        }
+
+        return results;
+    }
+
     @Override
     public boolean deleteData(String key) {
         validateKey(key);
@@ -173,8 +308,9 @@ public class MongoDatabaseService extends AbstractDatabaseService {
         ensureConnected();
 
         try {
+            // limit(1) on _id instead of countDocuments (an aggregation): stops at the first match
             Document filter = new Document("_id", key);
-            return collection.countDocuments(filter) > 0;
+            return collection.find(filter).projection(Projections.include("_id")).limit(1).first() != null;
 
         } catch (Exception e) {
             Utils.sendConsoleLog("&cError while checking existence in MongoDB: " + e.getMessage());
@@ -192,10 +328,7 @@ public class MongoDatabaseService extends AbstractDatabaseService {
         Map<String, Object> results = new HashMap<>();
 
         try {
-            Document filter = new Document("_id",
-                new Document("$regex", "^" + prefix).append("$options", "i"));
-
-            collection.find(filter).forEach(doc -> {
+            collection.find(prefixFilter(prefix)).forEach(doc -> {
                 String id = doc.getString("_id");
                 Object data = doc.get("data");
                 if (id != null && data != null) {
@@ -210,6 +343,59 @@ public class MongoDatabaseService extends AbstractDatabaseService {
         return results;
     }
 
+    @Override
+    public List<Map<String, Object>> findTop(String prefix, String sortField, int limit) {
+        if (prefix == null || sortField == null) {
+            throw new IllegalArgumentException("Prefix and sort field cannot be null");
+        }
+        ensureConnected();
+
+        List<Map<String, Object>> results = new ArrayList<>();
+
+        // lastSeen tie-break only for the level ranking: it matches the (level, lastSeen) index,
+        // any other sort field keeps a single-key sort
+        Bson sort = "level".equals(sortField)
+            ? Sorts.orderBy(Sorts.descending("data.level"), Sorts.descending("data.lastSeen"))
+            : Sorts.descending("data." + sortField);
+
+        try {
+            collection.find(prefixFilter(prefix))
+                .sort(sort)
+                .limit(Math.max(1, limit))
+                .projection(Projections.include("data.uuid", "data.name", "data.level",
+                    "data.lastSeen", "data.buttonAmount"))
+                .forEach(doc -> {
+                    Document data = doc.get("data", Document.class);
+                    if (data != null) {
+                        results.add(data);
+                    }
+                });
+
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cError while fetching top entries in MongoDB: " + e.getMessage());
+        }
+
+        return results;
+    }
+
+    /**
+     * Anchored, case-sensitive prefix filter on _id so MongoDB can use the _id index
+     */
+    private Document prefixFilter(String prefix) {
+        return new Document("_id", new Document("$regex", "^" + escapeRegex(prefix)));
+    }
+
+    private String escapeRegex(String input) {
+        StringBuilder escaped = new StringBuilder(input.length());
+        for (char c : input.toCharArray()) {
+            if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
     @Override
     public void backup() {
         ensureConnected();
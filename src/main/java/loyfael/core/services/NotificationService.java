@@ -4,13 +4,16 @@ import loyfael.api.interfaces.INotificationService;
 import loyfael.api.interfaces.IConfigurationService;
 import loyfael.utils.Utils;
 import loyfael.Main;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
+import java.util.HashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Service de notifications centralisé
@@ -19,10 +22,17 @@ import java.util.Map;
 public class NotificationService implements INotificationService {
 
     private final IConfigurationService configService;
-    private final Map<String, String> messages = new ConcurrentHashMap<>();
+    // Messages compilés, remplacés d'un bloc au rechargement (jamais modifiés en place)
+    private volatile Map<String, MessageTemplate> templates = Map.of();
     private FileConfiguration messageConfig;
     private File messagesFile;
 
+    // Barres d'action de progression en attente : seule la dernière valeur par joueur est envoyée
+    // (instantané immuable remplacé d'un bloc, consommé par le flush)
+    private static final long DEFAULT_PROGRESS_INTERVAL_MS = 250L;
+    private final Map<UUID, PendingActionBar> pendingActionBars = new ConcurrentHashMap<>();
+    private volatile boolean progressTaskStarted = false;
+
     public NotificationService(IConfigurationService configService) {
         this.configService = configService;
         initialize();
@@ -32,9 +42,10 @@ public class NotificationService implements INotificationService {
     public void sendMessage(Player player, String messageKey, Object... placeholders) {
         if (player == null || messageKey == null) return;
 
+        // Codes couleur traduits à la compilation du message
         String message = getMessage(messageKey, placeholders);
         if (!message.isEmpty()) {
-            player.sendMessage(Utils.colorize(message));
+            player.sendMessage(message);
         }
     }
 
@@ -42,9 +53,85 @@ public class NotificationService implements INotificationService {
     public void sendActionBar(Player player, String messageKey, Object... placeholders) {
         if (player == null || messageKey == null) return;
 
-        String message = getMessage(messageKey, placeholders);
-        if (!message.isEmpty()) {
-            Utils.sendActionBar(player, message);
+        MessageTemplate template = templates.get(messageKey);
+        if (template == null) {
+            Utils.sendActionBar(player, missingMessage(messageKey));
+            return;
+        }
+        if (template.isEmpty()) {
+            return;
+        }
+
+        try {
+            player.sendActionBar(template.toComponent(placeholders));
+        } catch (Exception e) {
+            // Fallback pour les versions plus anciennes
+            Utils.sendActionBar(player, template.render(placeholders));
+        }
+    }
+
+    @Override
+    public void queueProgressActionBar(Player player, String messageKey, int current, int target) {
+        if (player == null) return;
+        queueProgressActionBar(player.getUniqueId(), messageKey, current, target);
+    }
+
+    @Override
+    public void queueProgressActionBar(UUID playerUuid, String messageKey, int current, int target) {
+        if (playerUuid == null || messageKey == null) return;
+
+        // Un seul instantané par joueur, publié d'un bloc : le flush ne peut pas lire un mélange de deux progressions
+        pendingActionBars.put(playerUuid, new PendingActionBar(messageKey, current, target));
+
+        if (!progressTaskStarted) {
+            startProgressTask();
+        }
+    }
+
+    @Override
+    public void cancelProgressActionBar(Player player) {
+        if (player == null) return;
+        cancelProgressActionBar(player.getUniqueId());
+    }
+
+    @Override
+    public void cancelProgressActionBar(UUID playerUuid) {
+        if (playerUuid == null) return;
+
+        pendingActionBars.remove(playerUuid);
+    }
+
+    /**
+     * Démarre la tâche unique d'envoi des barres de progression (intervalle configurable)
+     */
+    private synchronized void startProgressTask() {
+        if (progressTaskStarted) {
+            return;
+        }
+        progressTaskStarted = true;
+
+        long intervalMs = configService != null && configService.getConfig() != null
+            ? configService.getConfig().getLong("notifications.progress-interval", DEFAULT_PROGRESS_INTERVAL_MS)
+            : DEFAULT_PROGRESS_INTERVAL_MS;
+        long intervalTicks = Math.max(1L, intervalMs / 50L); // 20 ticks = 1 seconde
+        Main.getInstance().getServer().getScheduler().runTaskTimer(Main.getInstance(), this::flushProgressActionBars, intervalTicks, intervalTicks);
+    }
+
+    /**
+     * Envoie au plus une barre d'action par joueur : la progression la plus récente
+     */
+    private void flushProgressActionBars() {
+        for (UUID playerUuid : pendingActionBars.keySet()) {
+            // Consommation atomique : une progression publiée entre-temps sera envoyée au prochain flush
+            PendingActionBar pending = pendingActionBars.remove(playerUuid);
+            if (pending == null) {
+                continue;
+            }
+            // Joueur recherché sur le thread principal, au moment de l'envoi (déconnecté : rien à envoyer)
+            Player player = Bukkit.getPlayer(playerUuid);
+            if (player != null) {
+                sendActionBar(player, pending.messageKey(), pending.current(), pending.target());
+            }
         }
     }
 
@@ -66,7 +153,7 @@ public class NotificationService implements INotificationService {
 
         String message = getMessage(messageKey, placeholders);
         if (!message.isEmpty()) {
-            Main.getInstance().getServer().broadcastMessage(Utils.colorize(message));
+            Main.getInstance().getServer().broadcastMessage(message);
         }
     }
 
@@ -84,16 +171,17 @@ public class NotificationService implements INotificationService {
     public String getMessage(String messageKey, Object... placeholders) {
         if (messageKey == null) return "";
 
-        String message = messages.getOrDefault(messageKey, "§c[Message manquant: " + messageKey + "]");
-
-        // Remplacer les placeholders
-        if (placeholders != null && placeholders.length > 0) {
-            for (int i = 0; i < placeholders.length; i++) {
-                message = message.replace("{" + i + "}", String.valueOf(placeholders[i]));
-            }
+        MessageTemplate template = templates.get(messageKey);
+        if (template == null) {
+            return missingMessage(messageKey);
         }
 
-        return message;
+        // Remplacer les placeholders en un seul passage
+        return template.render(placeholders);
+    }
+
+    private static String missingMessage(String messageKey) {
+        return "§c[Message manquant: " + messageKey + "]";
     }
 
     public void initialize() {
@@ -123,28 +211,45 @@ public class NotificationService implements INotificationService {
         }
     }
 
+    /**
+     * Compile les messages d'une configuration déjà chargée (sans fichier ni instance du plugin)
+     */
+    void loadMessages(FileConfiguration config) {
+        messageConfig = config;
+        loadMessages();
+    }
+
     private void loadMessages() {
-        messages.clear();
-        loadMessagesFromConfig("", messageConfig.getConfigurationSection("messages"));
+        // Compilation complète avant publication : les lecteurs voient l'ancien ou le nouveau jeu, jamais un mélange
+        Map<String, MessageTemplate> compiled = new HashMap<>();
+        loadMessagesFromConfig("", messageConfig.getConfigurationSection("messages"), compiled);
+        templates = compiled;
     }
 
     /**
      * Charge récursivement les messages depuis la configuration
      */
-    private void loadMessagesFromConfig(String prefix, org.bukkit.configuration.ConfigurationSection section) {
+    private void loadMessagesFromConfig(String prefix, org.bukkit.configuration.ConfigurationSection section,
+                                        Map<String, MessageTemplate> compiled) {
         if (section == null) return;
 
         for (String key : section.getKeys(false)) {
             String fullKey = prefix.isEmpty() ? key : prefix + "." + key;
 
             if (section.isConfigurationSection(key)) {
-                loadMessagesFromConfig(fullKey, section.getConfigurationSection(key));
+                loadMessagesFromConfig(fullKey, section.getConfigurationSection(key), compiled);
             } else {
                 String value = section.getString(key);
                 if (value != null) {
-                    messages.put(fullKey, value);
+                    compiled.put(fullKey, MessageTemplate.compile(value));
                 }
             }
         }
     }
+
+    /**
+     * Dernière progression à afficher pour un joueur
+     */
+    private record PendingActionBar(String messageKey, int current, int target) {
+    }
 }
@@ -0,0 +1,36 @@
+package loyfael.core.services;
+
+import org.bukkit.entity.Player;
+
+import java.util.function.Consumer;
+
+/**
+ * Objectif actif d'un joueur connecté : critères compilés, compteur de progression
+ * et action déclenchée à la complétion (passage de niveau, récompenses d'une mission assignée)
+ */
+final class Objective {
+
+    private final String progressKey;
+    private final LevelsConfigService.MissionMatcher matcher;
+    private final MissionProgressStore.Slot slot;
+    private final Consumer<Player> onComplete;
+
+    Objective(String progressKey, LevelsConfigService.MissionMatcher matcher,
+              MissionProgressStore.Slot slot, Consumer<Player> onComplete) {
+        this.progressKey = progressKey;
+        this.matcher = matcher;
+        this.slot = slot;
+        this.onComplete = onComplete;
+    }
+
+    /**
+     * Clé de la progression dans les données joueur (ex: mission_5)
+     */
+    String getProgressKey() { return progressKey; }
+    LevelsConfigService.MissionMatcher getMatcher() { return matcher; }
+    MissionProgressStore.Slot getSlot() { return slot; }
+
+    void complete(Player player) {
+        onComplete.accept(player);
+    }
+}
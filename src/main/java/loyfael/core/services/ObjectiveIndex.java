@@ -0,0 +1,103 @@
+package loyfael.core.services;
+
+import loyfael.core.services.LevelsConfigService.MissionKind;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Objectifs actifs d'un joueur indexés par (type d'événement, clé) : matériau, type d'entité,
+ * ou clé unique pour les événements sans critère (pêche). Immuable : toute modification produit
+ * un nouvel index, publié d'un bloc, et la lecture sur le thread d'événement se fait sans verrou
+ */
+final class ObjectiveIndex {
+
+    static final ObjectiveIndex EMPTY = new ObjectiveIndex(Collections.emptyMap());
+
+    // Clé des événements sans critère (ex: tout poisson pêché)
+    static final Object ANY_KEY = new Object();
+
+    private final Map<String, Objective> objectives;
+    private final EnumMap<MissionKind, Map<Object, Objective[]>> byTrigger = new EnumMap<>(MissionKind.class);
+
+    private ObjectiveIndex(Map<String, Objective> objectives) {
+        this.objectives = objectives;
+
+        Map<MissionKind, Map<Object, List<Objective>>> buckets = new EnumMap<>(MissionKind.class);
+        for (Objective objective : objectives.values()) {
+            MissionKind kind = objective.getMatcher().getKind();
+            Map<Object, List<Objective>> byKey = buckets.computeIfAbsent(kind, k -> new HashMap<>());
+            for (Object key : keysOf(objective.getMatcher())) {
+                byKey.computeIfAbsent(key, k -> new ArrayList<>(1)).add(objective);
+            }
+        }
+        buckets.forEach((kind, byKey) -> {
+            Map<Object, Objective[]> compiled = new HashMap<>(byKey.size() * 2);
+            byKey.forEach((key, list) -> compiled.put(key, list.toArray(new Objective[0])));
+            byTrigger.put(kind, compiled);
+        });
+    }
+
+    private static Set<?> keysOf(LevelsConfigService.MissionMatcher matcher) {
+        switch (matcher.getKind()) {
+            case BLOCK_BREAK:
+            case BLOCK_PLACE:
+                return matcher.getMaterials();
+            case KILLS:
+                return matcher.getEntityTypes();
+            case FISH:
+                return Collections.singleton(ANY_KEY);
+            default:
+                return Collections.emptySet();
+        }
+    }
+
+    /**
+     * Objectifs concernés par un événement (null si aucun)
+     */
+    Objective[] lookup(MissionKind kind, Object key) {
+        Map<Object, Objective[]> byKey = byTrigger.get(kind);
+        return byKey != null ? byKey.get(key) : null;
+    }
+
+    boolean hasKind(MissionKind kind) {
+        Map<Object, Objective[]> byKey = byTrigger.get(kind);
+        return byKey != null && !byKey.isEmpty();
+    }
+
+    Objective get(String progressKey) {
+        return objectives.get(progressKey);
+    }
+
+    Collection<Objective> all() {
+        return objectives.values();
+    }
+
+    /**
+     * Nouvel index avec cet objectif (remplace celui de même clé de progression)
+     */
+    ObjectiveIndex with(Objective objective) {
+        Map<String, Objective> copy = new LinkedHashMap<>(objectives);
+        copy.put(objective.getProgressKey(), objective);
+        return new ObjectiveIndex(Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * Nouvel index sans l'objectif de cette clé de progression
+     */
+    ObjectiveIndex without(String progressKey) {
+        if (!objectives.containsKey(progressKey)) {
+            return this;
+        }
+        Map<String, Objective> copy = new LinkedHashMap<>(objectives);
+        copy.remove(progressKey);
+        return copy.isEmpty() ? EMPTY : new ObjectiveIndex(Collections.unmodifiableMap(copy));
+    }
+}
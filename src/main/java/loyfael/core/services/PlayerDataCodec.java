@@ -0,0 +1,444 @@
+package loyfael.core.services;
+
+import loyfael.api.interfaces.IPlayerService.PlayerData;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Format de stockage des données joueur
+ * Les champs fixes (uuid, name, level, lastSeen, buttonAmount) restent des champs du document :
+ * ils sont indexés et lus par le classement. La progression des missions et les données
+ * personnalisées sont, au format compact, encodées dans un seul tableau d'octets versionné
+ * (entiers en varint, clés "mission_N" réduites à N) au lieu de deux maps de valeurs boxées
+ *
+ * La lecture accepte les deux formats (et les sections YAML) : un profil au format map
+ * est migré au format compact à sa prochaine sauvegarde
+ */
+final class PlayerDataCodec {
+
+    static final String COMPACT_FIELD = "compact";
+
+    private static final int VERSION = 1;
+    private static final String MISSION_PREFIX = "mission_";
+
+    // Clés de la table des progressions
+    private static final int KEY_STRING = 0;
+    private static final int KEY_MISSION = 1;
+
+    // Types des données personnalisées
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_STRING = 1;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_LONG = 3;
+    private static final int TYPE_DOUBLE = 4;
+    private static final int TYPE_BOOLEAN = 5;
+    private static final int TYPE_LIST = 6;
+    private static final int TYPE_MAP = 7;
+
+    private PlayerDataCodec() {
+    }
+
+    /**
+     * Document au format map (historique)
+     */
+    static Map<String, Object> toMap(PlayerData data) {
+        Map<String, Object> serialized = new HashMap<>();
+        putFixedFields(serialized, data);
+        serialized.put("missionProgress", new HashMap<>(data.getMissionProgress()));
+        serialized.put("customData", new HashMap<>(data.getCustomData()));
+        return serialized;
+    }
+
+    /**
+     * Document au format compact : champs fixes + tables encodées
+     * Lève IllegalArgumentException si une donnée personnalisée n'est pas encodable
+     */
+    static Map<String, Object> toCompactMap(PlayerData data) {
+        Map<String, Object> serialized = new HashMap<>(8);
+        putFixedFields(serialized, data);
+        // Copie : la table est parcourue deux fois (taille puis entrées) et modifiée depuis d'autres threads
+        serialized.put(COMPACT_FIELD, encodeTables(new HashMap<>(data.getMissionProgress()), data.getCustomData()));
+        return serialized;
+    }
+
+    private static void putFixedFields(Map<String, Object> serialized, PlayerData data) {
+        serialized.put("uuid", data.getUuid());
+        serialized.put("name", data.getName());
+        serialized.put("level", data.getLevel());
+        serialized.put("lastSeen", data.getLastSeen());
+        serialized.put("buttonAmount", data.getButtonAmount());
+    }
+
+    /**
+     * Lit des données joueur quel que soit leur format de stockage
+     */
+    @SuppressWarnings("unchecked")
+    static PlayerData read(Object stored) {
+        if (stored instanceof PlayerData) {
+            return (PlayerData) stored;
+        }
+
+        Map<String, Object> map = asMap(stored);
+        if (map == null) {
+            throw new IllegalArgumentException("Format de données joueur invalide: "
+                + (stored == null ? "null" : stored.getClass()));
+        }
+
+        PlayerData playerData = new PlayerData(
+            (String) map.get("uuid"),
+            (String) map.get("name"),
+            intValue(map.get("level"), 0), // Niveau 0 par défaut
+            map.get("lastSeen") instanceof Number ? ((Number) map.get("lastSeen")).longValue() : System.currentTimeMillis(),
+            intValue(map.get("buttonAmount"), 0)
+        );
+
+        byte[] compact = bytes(map.get(COMPACT_FIELD));
+        if (compact != null) {
+            decodeTables(compact, playerData);
+            return playerData;
+        }
+
+        // Format map : progression des missions et données personnalisées
+        Map<String, Object> missionProgress = asMap(map.get("missionProgress"));
+        if (missionProgress != null) {
+            for (Map.Entry<String, Object> entry : missionProgress.entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    playerData.getMissionProgress().put(entry.getKey(), ((Number) entry.getValue()).intValue());
+                }
+            }
+        }
+        Map<String, Object> customData = asMap(map.get("customData"));
+        if (customData != null) {
+            playerData.setCustomData(new HashMap<>(customData));
+        }
+        return playerData;
+    }
+
+    /**
+     * Map, sous-document ou section YAML vus comme une map (null sinon)
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        if (value instanceof Map) {
+            return (Map<String, Object>) value;
+        }
+        if (value instanceof ConfigurationSection) {
+            return ((ConfigurationSection) value).getValues(false);
+        }
+        return null;
+    }
+
+    private static int intValue(Object value, int defaultValue) {
+        return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+    }
+
+    /**
+     * Octets d'un champ compact : tableau brut, ou Binary BSON relu depuis MongoDB
+     */
+    private static byte[] bytes(Object value) {
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        if (value instanceof org.bson.types.Binary) {
+            return ((org.bson.types.Binary) value).getData();
+        }
+        return null;
+    }
+
+    /**
+     * Deux champs compacts sont égaux s'ils ont les mêmes octets (comparaison des snapshots)
+     */
+    static boolean sameValue(Object previous, Object value) {
+        byte[] previousBytes = bytes(previous);
+        byte[] valueBytes = bytes(value);
+        if (previousBytes != null && valueBytes != null) {
+            return Arrays.equals(previousBytes, valueBytes);
+        }
+        return java.util.Objects.equals(previous, value);
+    }
+
+    // Encodage
+
+    static byte[] encodeTables(Map<String, Integer> missionProgress, Map<String, Object> customData) {
+        Writer out = new Writer(16 + missionProgress.size() * 4);
+        out.writeVarint(VERSION);
+
+        out.writeVarint(missionProgress.size());
+        for (Map.Entry<String, Integer> entry : missionProgress.entrySet()) {
+            String key = entry.getKey();
+            int missionLevel = missionLevel(key);
+            if (missionLevel >= 0) {
+                out.writeVarint(KEY_MISSION);
+                out.writeVarint(missionLevel);
+            } else {
+                out.writeVarint(KEY_STRING);
+                out.writeString(key);
+            }
+            out.writeVarint(zigZag(entry.getValue() != null ? entry.getValue() : 0));
+        }
+
+        out.writeVarint(customData.size());
+        for (Map.Entry<String, Object> entry : customData.entrySet()) {
+            out.writeString(entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Niveau d'une clé "mission_N" canonique (sans zéro de tête), -1 sinon
+     */
+    private static int missionLevel(String key) {
+        int length = key.length();
+        int start = MISSION_PREFIX.length();
+        if (length <= start || length > start + 9 || !key.startsWith(MISSION_PREFIX)
+                || (key.charAt(start) == '0' && length > start + 1)) {
+            return -1;
+        }
+        int level = 0;
+        for (int i = start; i < length; i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            level = level * 10 + (c - '0');
+        }
+        return level;
+    }
+
+    private static void writeValue(Writer out, Object value) {
+        if (value == null) {
+            out.writeVarint(TYPE_NULL);
+        } else if (value instanceof String) {
+            out.writeVarint(TYPE_STRING);
+            out.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeVarint(TYPE_INT);
+            out.writeVarint(zigZag(((Number) value).intValue()));
+        } else if (value instanceof Long) {
+            out.writeVarint(TYPE_LONG);
+            out.writeVarlong(zigZag((Long) value));
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeVarint(TYPE_DOUBLE);
+            out.writeLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Boolean) {
+            out.writeVarint(TYPE_BOOLEAN);
+            out.writeVarint((Boolean) value ? 1 : 0);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeVarint(TYPE_LIST);
+            out.writeVarint(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeVarint(TYPE_MAP);
+            out.writeVarint(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                out.writeString(String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            throw new IllegalArgumentException("Donnée personnalisée non encodable: " + value.getClass().getSimpleName());
+        }
+    }
+
+    // Décodage
+
+    static void decodeTables(byte[] bytes, PlayerData playerData) {
+        Reader in = new Reader(bytes);
+        int version = in.readVarint();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Version du format compact inconnue: " + version);
+        }
+
+        int missionCount = in.readVarint();
+        Map<String, Integer> missionProgress = new ConcurrentHashMap<>(Math.max(16, missionCount * 2));
+        for (int i = 0; i < missionCount; i++) {
+            String key = in.readVarint() == KEY_MISSION ? MISSION_PREFIX + in.readVarint() : in.readString();
+            missionProgress.put(key, unZigZag(in.readVarint()));
+        }
+        playerData.setMissionProgress(missionProgress);
+
+        int customCount = in.readVarint();
+        Map<String, Object> customData = new HashMap<>(Math.max(16, customCount * 2));
+        for (int i = 0; i < customCount; i++) {
+            customData.put(in.readString(), readValue(in));
+        }
+        playerData.setCustomData(customData);
+    }
+
+    private static Object readValue(Reader in) {
+        int type = in.readVarint();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return in.readString();
+            case TYPE_INT:
+                return unZigZag(in.readVarint());
+            case TYPE_LONG:
+                return unZigZag(in.readVarlong());
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(in.readLong());
+            case TYPE_BOOLEAN:
+                return in.readVarint() != 0;
+            case TYPE_LIST: {
+                int size = in.readVarint();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case TYPE_MAP: {
+                int size = in.readVarint();
+                Map<String, Object> map = new LinkedHashMap<>(Math.max(16, size * 2));
+                for (int i = 0; i < size; i++) {
+                    map.put(in.readString(), readValue(in));
+                }
+                return map;
+            }
+            default:
+                throw new IllegalArgumentException("Type de donnée personnalisée inconnu: " + type);
+        }
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Tampon d'écriture extensible (sans synchronisation, contrairement à ByteArrayOutputStream)
+     */
+    private static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        private Writer(int capacity) {
+            this.buffer = new byte[Math.max(16, capacity)];
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, buffer, position, utf8.length);
+            position += utf8.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        private Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = next();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Varint invalide");
+        }
+
+        long readVarlong() {
+            long value = 0;
+            for (int shift = 0; shift < 70; shift += 7) {
+                byte b = next();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Varlong invalide");
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (next() & 0xFF);
+            }
+            return value;
+        }
+
+        String readString() {
+            int length = readVarint();
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("Chaîne tronquée");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private byte next() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Données compactes tronquées");
+            }
+            return buffer[position++];
+        }
+    }
+}
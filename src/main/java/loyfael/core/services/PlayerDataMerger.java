@@ -0,0 +1,70 @@
+package loyfael.core.services;
+
+import loyfael.api.interfaces.IPlayerService.PlayerData;
+import loyfael.utils.Utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fusion de deux versions des données d'un joueur (locale et base de données)
+ * Utilisée par la synchronisation inter-serveur et par le chargement à la connexion
+ */
+final class PlayerDataMerger {
+
+    private PlayerDataMerger() {
+    }
+
+    /**
+     * Prend le niveau le plus élevé et la progression maximale pour chaque mission ;
+     * les données personnalisées de la base l'emportent en cas de conflit
+     */
+    static PlayerData merge(PlayerData local, PlayerData remote) {
+        // Prendre le niveau le plus élevé
+        int finalLevel = Math.max(local.getLevel(), remote.getLevel());
+
+        // Prendre le lastSeen le plus récent
+        long finalLastSeen = Math.max(local.getLastSeen(), remote.getLastSeen());
+
+        // Créer les données fusionnées avec les infos de base
+        PlayerData merged = new PlayerData(
+            local.getUuid(),
+            local.getName(),
+            finalLevel,
+            finalLastSeen,
+            Math.max(local.getButtonAmount(), remote.getButtonAmount())
+        );
+
+        // Fusionner la progression des missions (prendre le max pour chaque mission)
+        Map<String, Integer> mergedMissionProgress = new ConcurrentHashMap<>();
+        if (local.getMissionProgress() != null) {
+            mergedMissionProgress.putAll(local.getMissionProgress());
+        }
+        if (remote.getMissionProgress() != null) {
+            for (Map.Entry<String, Integer> entry : remote.getMissionProgress().entrySet()) {
+                String missionKey = entry.getKey();
+                int localProgress = mergedMissionProgress.getOrDefault(missionKey, 0);
+                int finalProgress = Math.max(localProgress, entry.getValue());
+                mergedMissionProgress.put(missionKey, finalProgress);
+
+                if (finalProgress != localProgress) {
+                    Utils.sendConsoleLog("&e[SYNC] 📊 Mission " + missionKey + ": " + localProgress + " → " + finalProgress);
+                }
+            }
+        }
+        merged.setMissionProgress(mergedMissionProgress);
+
+        // Fusionner les données personnalisées (la base gagne en cas de conflit)
+        Map<String, Object> mergedCustomData = new HashMap<>();
+        if (local.getCustomData() != null) {
+            mergedCustomData.putAll(local.getCustomData());
+        }
+        if (remote.getCustomData() != null) {
+            mergedCustomData.putAll(remote.getCustomData());
+        }
+        merged.setCustomData(mergedCustomData);
+
+        return merged;
+    }
+}
@@ -3,12 +3,18 @@ package loyfael.core.services;
 import loyfael.api.interfaces.IPlayerService;
 import loyfael.api.interfaces.IDatabaseService;
 import loyfael.api.interfaces.ICacheService;
+import loyfael.api.interfaces.IConfigurationService;
 import loyfael.utils.Utils;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Service de gestion des joueurs avec cache et base de données
@@ -19,40 +25,222 @@ public class PlayerService implements IPlayerService {
 
     private final IDatabaseService databaseService;
     private final ICacheService cacheService;
+    private final IConfigurationService configService;
+
+    private static final long DEFAULT_TTL_MS = 30L * 60L * 1000L; // Données chargées : 30 minutes
+    private static final long SHORT_TTL_MS = 30L * 1000L;        // Données modifiées : 30 secondes (synchronisation)
+    private static final long EXISTS_TTL_MS = 5L * 60L * 1000L;   // Existence en base : 5 minutes
+    private static final long PREPARED_TTL_MS = 60L * 1000L;      // Profil préparé sans connexion (refusée) : 1 minute
+    private final LeaderboardIndex leaderboardIndex = new LeaderboardIndex();
+    private final List<ObjIntConsumer<UUID>> levelListeners = new CopyOnWriteArrayList<>();
+    // Joueurs modifiés par un autre serveur : le prochain chargement lit la base malgré une écriture en attente
+    private final Set<UUID> remoteChanges = ConcurrentHashMap.newKeySet();
+    // Profils préparés à la pré-connexion, écrits à l'entrée en jeu
+    private final Map<UUID, PreparedProfile> preparedPlayers = new ConcurrentHashMap<>();
+    private volatile WriteBehindQueue writeBehindQueue;
+    // Format de stockage : progression et données personnalisées encodées (compact) ou en maps
+    private volatile boolean compactFormat = false;
 
     public PlayerService(IDatabaseService databaseService, ICacheService cacheService) {
+        this(databaseService, cacheService, null);
+    }
+
+    public PlayerService(IDatabaseService databaseService, ICacheService cacheService, IConfigurationService configService) {
         this.databaseService = databaseService;
         this.cacheService = cacheService;
+        this.configService = configService;
+    }
+
+    @Override
+    public void initialize() {
+        if (configService == null) {
+            return;
+        }
+        compactFormat = "compact".equalsIgnoreCase(configService.getConfig().getString("system.save-strategy.format", "map"));
+        if (writeBehindQueue != null) {
+            return;
+        }
+
+        if (configService.getConfig().getBoolean("system.write-behind.enabled", true)) {
+            WriteBehindQueue queue = new WriteBehindQueue(
+                databaseService,
+                configService.getConfig().getLong("system.write-behind.flush-interval", 1000L),
+                configService.getConfig().getInt("system.write-behind.batch-size", 200),
+                configService.getConfig().getInt("system.write-behind.max-pending", 5000)
+            );
+            queue.start();
+            writeBehindQueue = queue;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        WriteBehindQueue queue = writeBehindQueue;
+        if (queue != null) {
+            writeBehindQueue = null;
+            queue.shutdown();
+        }
+    }
+
+    @Override
+    public String getPersistenceStats() {
+        WriteBehindQueue queue = writeBehindQueue;
+        return queue != null ? queue.getStats() : "&7Écritures: synchrones (write-behind désactivé)";
     }
 
     @Override
     public Optional<PlayerData> getPlayerData(String playerUuid) {
-        if (playerUuid == null || playerUuid.trim().isEmpty()) {
+        UUID uuid = parseUuid(playerUuid);
+        return uuid != null ? getPlayerData(uuid) : Optional.empty();
+    }
+
+    @Override
+    public Optional<PlayerData> getPlayerData(UUID playerUuid) {
+        if (playerUuid == null) {
             return Optional.empty();
         }
 
         // Vérifier d'abord le cache
+        PlayerData cached = cacheService.getPlayer(playerUuid);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        // Absence déjà constatée en base : aucun aller-retour
+        if (Boolean.FALSE.equals(cacheService.getPlayerExists(playerUuid))) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(loadPlayerData(playerUuid));
+    }
+
+    @Override
+    public Optional<PlayerData> findPlayerData(UUID playerUuid) {
+        if (playerUuid == null) {
+            throw new IllegalArgumentException("L'UUID du joueur ne peut pas être null");
+        }
+
+        PlayerData cached = cacheService.getPlayer(playerUuid);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (Boolean.FALSE.equals(cacheService.getPlayerExists(playerUuid))) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(fetchPlayerData(playerUuid));
+    }
+
+    @Override
+    public PlayerData getOrCreatePlayer(UUID playerUuid, String playerName) {
+        // Création seulement si l'absence est confirmée : une erreur de lecture est propagée
+        Optional<PlayerData> existing = findPlayerData(playerUuid);
+        return existing.isPresent() ? existing.get() : createPlayer(playerUuid.toString(), playerName);
+    }
+
+    /**
+     * Charge les données d'un joueur absent du cache ; une erreur est journalisée et traitée comme une absence
+     */
+    private PlayerData loadPlayerData(UUID playerUuid) {
+        try {
+            return fetchPlayerData(playerUuid);
+        } catch (RuntimeException e) {
+            Utils.sendConsoleLog("&c" + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Charge les données d'un joueur absent du cache (écriture en attente, sinon base de données)
+     * Lève IllegalStateException si la lecture ou la désérialisation échoue
+     */
+    private PlayerData fetchPlayerData(UUID playerUuid) {
+        long start = System.nanoTime();
+        try {
+            return loadPlayerDataUncached(playerUuid);
+        } finally {
+            cacheService.recordLoad(System.nanoTime() - start);
+        }
+    }
+
+    private PlayerData loadPlayerDataUncached(UUID playerUuid) {
         String cacheKey = "player_" + playerUuid;
-        Optional<Object> cached = cacheService.get(cacheKey);
 
-        if (cached.isPresent() && cached.get() instanceof PlayerData) {
-            return Optional.of((PlayerData) cached.get());
+        // Une écriture en attente est plus récente que la base de données, sauf si un autre serveur
+        // vient de modifier le profil : elle est alors fusionnée avec la base au lieu de la masquer
+        WriteBehindQueue queue = writeBehindQueue;
+        Optional<Map<String, Object>> pending = queue != null ? queue.getPending(cacheKey) : Optional.empty();
+        boolean remoteChange = remoteChanges.remove(playerUuid);
+        if (pending.isPresent() && !remoteChange) {
+            return cacheLoaded(playerUuid, pending.get(), false, null);
         }
 
-        // Si pas en cache, récupérer de la base de données
-        Optional<Object> dbData = databaseService.getData(cacheKey);
-        if (dbData.isPresent()) {
-            try {
-                PlayerData playerData = deserializePlayerData(dbData.get());
-                // Mettre en cache pour les prochaines requêtes
-                cacheService.put(cacheKey, playerData);
-                return Optional.of(playerData);
-            } catch (Exception e) {
-                Utils.sendConsoleLog("&cErreur lors de la désérialisation des données joueur: " + e.getMessage());
+        Optional<Object> dbData;
+        try {
+            dbData = databaseService.find(cacheKey);
+        } catch (Exception e) {
+            // Erreur : ne pas mémoriser d'absence, la prochaine lecture réessaiera
+            if (remoteChange) {
+                remoteChanges.add(playerUuid);
+            }
+            throw new IllegalStateException("Erreur lors du chargement des données joueur: " + e.getMessage(), e);
+        }
+        if (dbData.isEmpty()) {
+            if (pending.isPresent()) {
+                return cacheLoaded(playerUuid, pending.get(), false, null);
             }
+            // Absence mémorisée : les lectures suivantes ne retournent pas en base
+            cacheService.putPlayerExists(playerUuid, false, EXISTS_TTL_MS);
+            return null;
         }
+        return cacheLoaded(playerUuid, dbData.get(), true, pending.orElse(null));
+    }
 
-        return Optional.empty();
+    /**
+     * Met en cache des données chargées (base ou écriture en attente), fusionnées avec les modifications
+     * locales pas encore écrites (pending, peut être null)
+     */
+    private PlayerData cacheLoaded(UUID playerUuid, Object stored, boolean fromDatabase, Map<String, Object> pending) {
+        String cacheKey = "player_" + playerUuid;
+        WriteBehindQueue queue = writeBehindQueue;
+        try {
+            PlayerData playerData = deserializePlayerData(stored);
+            if (queue != null && fromDatabase) {
+                // État lu en base : nouvelle référence pour les mises à jour partielles
+                queue.recordPersisted(cacheKey, serializePlayerData(playerData));
+            }
+            if (pending != null) {
+                // Modifications locales pas encore écrites : fusionnées, la file écrira la version fusionnée
+                playerData = PlayerDataMerger.merge(deserializePlayerData(pending), playerData);
+                persist(cacheKey, serializePlayerData(playerData));
+            }
+            // Mettre en cache pour les prochaines requêtes
+            cacheService.putPlayer(playerUuid, playerData, DEFAULT_TTL_MS);
+            // Les données peuvent venir d'un autre serveur : resynchroniser le classement
+            indexPlayer(playerData);
+            return playerData;
+        } catch (Exception e) {
+            // Profil présent mais illisible : ce n'est pas une absence
+            throw new IllegalStateException("Erreur lors de la désérialisation des données joueur: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void invalidateRemoteChange(UUID playerUuid) {
+        if (playerUuid == null) {
+            return;
+        }
+        // Marqué avant l'invalidation : une lecture concurrente passe aussi par la base
+        remoteChanges.add(playerUuid);
+        cacheService.invalidatePlayer(playerUuid);
+    }
+
+    @Override
+    public Optional<PlayerData> reloadPlayerData(UUID playerUuid) {
+        if (playerUuid == null) {
+            return Optional.empty();
+        }
+        invalidateRemoteChange(playerUuid);
+        return Optional.ofNullable(loadPlayerData(playerUuid));
     }
 
     @Override
@@ -65,46 +253,120 @@ public class PlayerService implements IPlayerService {
 
         // Assurer que les Maps ne sont jamais null (sécurité supplémentaire)
         if (data.getMissionProgress() == null) {
-            data.setMissionProgress(new java.util.HashMap<>());
+            data.setMissionProgress(new java.util.concurrent.ConcurrentHashMap<>());
         }
         if (data.getCustomData() == null) {
             data.setCustomData(new java.util.HashMap<>());
         }
 
         // Mettre en cache avec TTL court pour synchronisation rapide entre serveurs
-        cacheService.putWithShortTtl(cacheKey, data);
+        cachePlayer(playerUuid, data);
+        indexPlayer(data);
 
         // Sauvegarder en base de données de manière asynchrone
         try {
-            Map<String, Object> serializedData = serializePlayerData(data);
-            databaseService.saveData(cacheKey, serializedData);
+            persist(cacheKey, serializePlayerData(data));
         } catch (Exception e) {
             Utils.sendConsoleLog("&cErreur lors de la sauvegarde des données joueur: " + e.getMessage());
         }
     }
 
     @Override
-    public boolean playerExists(String playerUuid) {
-        if (playerUuid == null || playerUuid.trim().isEmpty()) {
-            return false;
+    public void saveAllPlayerData(Map<String, PlayerData> playersData) {
+        if (playersData == null || playersData.isEmpty()) {
+            return;
+        }
+
+        WriteBehindQueue queue = writeBehindQueue;
+        Map<String, Object> batch = new java.util.HashMap<>(playersData.size() * 2);
+
+        for (Map.Entry<String, PlayerData> entry : playersData.entrySet()) {
+            PlayerData data = entry.getValue();
+            if (entry.getKey() == null || data == null) {
+                continue;
+            }
+            if (data.getMissionProgress() == null) {
+                data.setMissionProgress(new java.util.concurrent.ConcurrentHashMap<>());
+            }
+            if (data.getCustomData() == null) {
+                data.setCustomData(new java.util.HashMap<>());
+            }
+
+            String cacheKey = "player_" + entry.getKey();
+            cachePlayer(entry.getKey(), data);
+            indexPlayer(data);
+
+            Map<String, Object> serializedData = serializePlayerData(data);
+            if (queue != null) {
+                queue.enqueue(cacheKey, serializedData);
+            } else {
+                batch.put(cacheKey, serializedData);
+            }
         }
 
-        String cacheKey = "exists_" + playerUuid;
+        if (!batch.isEmpty()) {
+            try {
+                databaseService.saveAll(batch);
+            } catch (Exception e) {
+                Utils.sendConsoleLog("&cErreur lors de la sauvegarde groupée des données joueur: " + e.getMessage());
+            }
+        }
+    }
 
-        // Vérifier le cache d'abord
-        Optional<Object> cached = cacheService.get(cacheKey);
-        if (cached.isPresent()) {
-            return (Boolean) cached.get();
+    /**
+     * Met en cache des données modifiées localement (TTL court) ; le joueur existe désormais
+     */
+    private void cachePlayer(String playerUuid, PlayerData data) {
+        UUID uuid = parseUuid(playerUuid);
+        if (uuid != null) {
+            cacheService.putPlayer(uuid, data, SHORT_TTL_MS);
+            cacheService.putPlayerExists(uuid, true, EXISTS_TTL_MS);
+        }
+    }
+
+    private static UUID parseUuid(String playerUuid) {
+        if (playerUuid == null || playerUuid.isEmpty()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(playerUuid);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Transmet un snapshot à la file d'écriture différée, ou l'écrit directement si elle est inactive
+     */
+    private void persist(String key, Map<String, Object> serializedData) {
+        WriteBehindQueue queue = writeBehindQueue;
+        if (queue != null) {
+            queue.enqueue(key, serializedData);
+        } else {
+            databaseService.saveData(key, serializedData);
         }
+    }
 
-        // Vérifier la base de données
-        boolean exists = databaseService.exists("player_" + playerUuid);
+    @Override
+    public boolean playerExists(String playerUuid) {
+        UUID uuid = parseUuid(playerUuid);
+        return uuid != null && playerExists(uuid);
+    }
+
+    @Override
+    public boolean playerExists(UUID playerUuid) {
+        if (playerUuid == null) {
+            return false;
+        }
 
-        // Mettre en cache le résultat
-        cacheService.put(cacheKey, exists);
-        cacheService.setTtl(cacheKey, 300000); // 5 minutes de cache
+        // Vérifier le cache d'abord (présence ou absence mémorisée)
+        Boolean cached = cacheService.getPlayerExists(playerUuid);
+        if (cached != null) {
+            return cached;
+        }
 
-        return exists;
+        // Une seule requête qui charge aussi le profil : le getPlayerData qui suit est servi par le cache
+        return getPlayerData(playerUuid).isPresent();
     }
 
     @Override
@@ -135,11 +397,99 @@ public class PlayerService implements IPlayerService {
         }
     }
 
+    @Override
+    public PlayerData preparePlayer(UUID playerUuid, String playerName) {
+        if (playerUuid == null || playerName == null) {
+            throw new IllegalArgumentException("UUID et nom du joueur ne peuvent pas être null");
+        }
+        String uuid = playerUuid.toString();
+        String cacheKey = "player_" + uuid;
+
+        // Version locale : écriture en attente (la plus récente), sinon cache d'une session précédente
+        WriteBehindQueue queue = writeBehindQueue;
+        PlayerData local = queue != null
+            ? queue.getPending(cacheKey).map(this::deserializePlayerData).orElse(null)
+            : null;
+        if (local == null) {
+            local = cacheService.getPlayer(playerUuid);
+        }
+
+        // Une seule lecture en base : un autre serveur a pu modifier le profil depuis
+        // Une erreur est propagée : créer un profil vierge écraserait le profil existant
+        PlayerData stored = null;
+        long start = System.nanoTime();
+        try {
+            Optional<Object> dbData = databaseService.find(cacheKey);
+            if (dbData.isPresent()) {
+                stored = deserializePlayerData(dbData.get());
+                if (queue != null) {
+                    // État lu en base : nouvelle référence pour les mises à jour partielles, y compris
+                    // quand une écriture est en attente (la version fusionnée est écrite par rapport à la base)
+                    queue.recordPersisted(cacheKey, serializePlayerData(stored));
+                }
+            }
+        } finally {
+            cacheService.recordLoad(System.nanoTime() - start);
+        }
+
+        PlayerData data;
+        if (local != null && stored != null) {
+            data = PlayerDataMerger.merge(local, stored);
+        } else if (local != null || stored != null) {
+            data = local != null ? local : stored;
+        } else {
+            data = new PlayerData(
+                uuid,
+                playerName,
+                0, // niveau initial 0 - les joueurs doivent travailler pour atteindre le niveau 1
+                System.currentTimeMillis(),
+                0 // montant de boutons initial (à supprimer plus tard)
+            );
+        }
+        data.setName(playerName);
+        data.setLastSeen(System.currentTimeMillis());
+
+        // Pas d'écriture ici : un plugin peut encore refuser la connexion (écriture dans commitPreparedPlayer)
+        cacheService.putPlayer(playerUuid, data, DEFAULT_TTL_MS);
+        long now = System.currentTimeMillis();
+        preparedPlayers.values().removeIf(prepared -> now - prepared.preparedAt() > PREPARED_TTL_MS);
+        preparedPlayers.put(playerUuid, new PreparedProfile(data, now));
+        return data;
+    }
+
+    @Override
+    public boolean commitPreparedPlayer(UUID playerUuid) {
+        PreparedProfile prepared = playerUuid != null ? preparedPlayers.remove(playerUuid) : null;
+        if (prepared == null) {
+            return false;
+        }
+        // Une seule écriture (dernière connexion, fusion ou création) ; la version en cache a pu progresser depuis
+        PlayerData cached = cacheService.getPlayer(playerUuid);
+        savePlayerData(playerUuid.toString(), cached != null ? cached : prepared.data());
+        return true;
+    }
+
+    private record PreparedProfile(PlayerData data, long preparedAt) {
+    }
+
     @Override
     public int getPlayerLevel(String playerUuid) {
-        return getPlayerData(playerUuid)
-            .map(PlayerData::getLevel)
-            .orElse(0); // Niveau 0 par défaut au lieu de 1
+        UUID uuid = parseUuid(playerUuid);
+        return uuid != null ? getPlayerLevel(uuid) : 0;
+    }
+
+    @Override
+    public int getPlayerLevel(UUID playerUuid) {
+        if (playerUuid == null) {
+            return 0;
+        }
+
+        // Chemin rapide (appelé à chaque événement de mission) : lecture directe du cache
+        PlayerData data = cacheService.getPlayer(playerUuid);
+        if (data == null) {
+            data = loadPlayerData(playerUuid);
+        }
+        return data != null ? data.getLevel() : 0; // Niveau 0 par défaut au lieu de 1
     }
 
     @Override
@@ -148,14 +498,13 @@ public class PlayerService implements IPlayerService {
         if (playerDataOpt.isPresent()) {
             PlayerData data = playerDataOpt.get();
             data.setLevel(newLevel);
+            indexPlayer(data);
             
             // Utiliser un TTL court pour les changements de niveau critiques
-            String key = "player_" + playerUuid;
-            Map<String, Object> serializedData = serializePlayerData(data);
-            cacheService.putWithShortTtl(key, serializedData);
-            
-            // Sauvegarder immédiatement en base
-            databaseService.saveData(key, serializedData);
+            cachePlayer(playerUuid, data);
+
+            // Sauvegarder en base (différé si la file d'écriture est active)
+            persist("player_" + playerUuid, serializePlayerData(data));
         }
     }
 
@@ -167,7 +516,92 @@ public class PlayerService implements IPlayerService {
 
     @Override
     public List<PlayerData> getTopPlayers(int limit) {
+        if (leaderboardIndex.isReady()) {
+            return leaderboardIndex.top(limit);
+        }
+
+        // Index pas encore construit : requête triée côté base de données
         List<PlayerData> topPlayers = new ArrayList<>();
+        try {
+            for (Map<String, Object> entry : databaseService.findTop("player_", "level", Math.max(1, limit))) {
+                topPlayers.add(deserializePlayerData(entry));
+            }
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la récupération du classement: " + e.getMessage());
+        }
+        return topPlayers;
+    }
+
+    @Override
+    public int getPlayerRank(String playerUuid) {
+        if (playerUuid == null || playerUuid.trim().isEmpty()) {
+            return 0;
+        }
+
+        if (leaderboardIndex.isReady()) {
+            int rank = leaderboardIndex.rank(playerUuid);
+            return rank > 0 ? rank : leaderboardIndex.size() + 1;
+        }
+
+        List<PlayerData> allPlayers = scanAllPlayersByLevel();
+        for (int i = 0; i < allPlayers.size(); i++) {
+            if (playerUuid.equals(allPlayers.get(i).getUuid())) {
+                return i + 1;
+            }
+        }
+        return allPlayers.size() + 1;
+    }
+
+    @Override
+    public void rebuildLeaderboard() {
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, Object> allPlayerData = databaseService.getDataByPrefix("player_");
+
+            List<PlayerData> players = new ArrayList<>(allPlayerData.size());
+            for (Object raw : allPlayerData.values()) {
+                try {
+                    players.add(deserializePlayerData(raw));
+                } catch (Exception e) {
+                    // Entrée corrompue : ignorée pour le classement
+                }
+            }
+
+            leaderboardIndex.rebuild(players);
+            Utils.sendConsoleLog("&aIndex du classement construit: " + players.size() + " joueurs en "
+                + (System.currentTimeMillis() - start) + "ms");
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de la construction de l'index du classement: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void addLevelListener(ObjIntConsumer<UUID> listener) {
+        levelListeners.add(listener);
+    }
+
+    /**
+     * Répercute le niveau connu d'un joueur (chargement, sauvegarde, changement de niveau)
+     * sur le classement et les écouteurs de niveau
+     */
+    private void indexPlayer(PlayerData data) {
+        leaderboardIndex.update(data);
+        if (levelListeners.isEmpty()) {
+            return;
+        }
+        UUID uuid = parseUuid(data.getUuid());
+        if (uuid != null) {
+            for (ObjIntConsumer<UUID> listener : levelListeners) {
+                listener.accept(uuid, data.getLevel());
+            }
+        }
+    }
+
+    /**
+     * Parcourt toutes les données joueurs triées par niveau (repli sans index pour le calcul du rang)
+     */
+    private List<PlayerData> scanAllPlayersByLevel() {
+        List<PlayerData> players = new ArrayList<>();
 
         try {
             Map<String, Object> allPlayerData = databaseService.getDataByPrefix("player_");
@@ -176,14 +610,13 @@ public class PlayerService implements IPlayerService {
             allPlayerData.values().stream()
                 .map(this::deserializePlayerData)
                 .sorted((p1, p2) -> Integer.compare(p2.getLevel(), p1.getLevel()))
-                .limit(Math.max(1, limit))
-                .forEach(topPlayers::add);
+                .forEach(players::add);
 
         } catch (Exception e) {
             Utils.sendConsoleLog("&cErreur lors de la récupération du classement: " + e.getMessage());
         }
 
-        return topPlayers;
+        return players;
     }
 
     @Override
@@ -201,90 +634,24 @@ public class PlayerService implements IPlayerService {
     }
 
     /**
-     * Sérialise les données joueur pour le stockage
+     * Sérialise les données joueur pour le stockage (format map ou compact selon la configuration)
      */
     private Map<String, Object> serializePlayerData(PlayerData data) {
-        Map<String, Object> serialized = new java.util.HashMap<>();
-        serialized.put("uuid", data.getUuid());
-        serialized.put("name", data.getName());
-        serialized.put("level", data.getLevel());
-        serialized.put("lastSeen", data.getLastSeen());
-        serialized.put("buttonAmount", data.getButtonAmount());
-        serialized.put("missionProgress", data.getMissionProgress());
-        serialized.put("customData", data.getCustomData());
-        return serialized;
+        if (compactFormat) {
+            try {
+                return PlayerDataCodec.toCompactMap(data);
+            } catch (IllegalArgumentException e) {
+                // Donnée personnalisée non encodable : ce profil reste au format map
+                Utils.sendConsoleLog("&eProfil " + data.getUuid() + " sauvegardé au format map: " + e.getMessage());
+            }
+        }
+        return PlayerDataCodec.toMap(data);
     }
 
     /**
-     * Désérialise les données joueur depuis le stockage
+     * Désérialise les données joueur depuis le stockage (format map, compact ou section YAML)
      */
-    @SuppressWarnings("unchecked")
     private PlayerData deserializePlayerData(Object data) {
-        if (data instanceof PlayerData) {
-            return (PlayerData) data;
-        }
-
-        if (data instanceof Map) {
-            Map<String, Object> map = (Map<String, Object>) data;
-            PlayerData playerData = new PlayerData(
-                (String) map.get("uuid"),
-                (String) map.get("name"),
-                ((Number) map.getOrDefault("level", 0)).intValue(), // Niveau 0 par défaut
-                ((Number) map.getOrDefault("lastSeen", System.currentTimeMillis())).longValue(),
-                ((Number) map.getOrDefault("buttonAmount", 0)).intValue()
-            );
-            
-            // Restaurer la progression des missions
-            Object missionProgressObj = map.get("missionProgress");
-            if (missionProgressObj instanceof Map) {
-                Map<String, Object> missionProgressMap = (Map<String, Object>) missionProgressObj;
-                for (Map.Entry<String, Object> entry : missionProgressMap.entrySet()) {
-                    if (entry.getValue() instanceof Number) {
-                        playerData.getMissionProgress().put(entry.getKey(), ((Number) entry.getValue()).intValue());
-                    }
-                }
-            }
-            
-            // Restaurer les données personnalisées
-            Object customDataObj = map.get("customData");
-            if (customDataObj instanceof Map) {
-                playerData.setCustomData(new java.util.HashMap<>((Map<String, Object>) customDataObj));
-            }
-            
-            return playerData;
-        }
-
-        // Gestion des MemorySection (format de configuration Bukkit)
-        if (data instanceof org.bukkit.configuration.MemorySection) {
-            org.bukkit.configuration.MemorySection section = (org.bukkit.configuration.MemorySection) data;
-            PlayerData playerData = new PlayerData(
-                section.getString("uuid"),
-                section.getString("name"),
-                section.getInt("level", 0), // Niveau 0 par défaut
-                section.getLong("lastSeen", System.currentTimeMillis()),
-                section.getInt("buttonAmount", 0)
-            );
-            
-            // Restaurer la progression des missions depuis MemorySection
-            Object missionProgressObj = section.get("missionProgress");
-            if (missionProgressObj instanceof Map) {
-                Map<String, Object> missionProgressMap = (Map<String, Object>) missionProgressObj;
-                for (Map.Entry<String, Object> entry : missionProgressMap.entrySet()) {
-                    if (entry.getValue() instanceof Number) {
-                        playerData.getMissionProgress().put(entry.getKey(), ((Number) entry.getValue()).intValue());
-                    }
-                }
-            }
-            
-            // Restaurer les données personnalisées depuis MemorySection
-            Object customDataObj = section.get("customData");
-            if (customDataObj instanceof Map) {
-                playerData.setCustomData(new java.util.HashMap<>((Map<String, Object>) customDataObj));
-            }
-            
-            return playerData;
-        }
-
-        throw new IllegalArgumentException("Format de données joueur invalide: " + data.getClass());
+        return PlayerDataCodec.read(data);
     }
 }
@@ -0,0 +1,105 @@
+package loyfael.core.services;
+
+import loyfael.utils.Utils;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Source de changements par polling groupé (compatible MongoDB standalone)
+ * Une seule requête par tick, projetée sur _id et metadata, avec un point haut des lastModified observés
+ */
+public class PollingEventSource implements SynchronizationService.ChangeEventSource {
+
+    private static final long WATERMARK_SKEW_MARGIN_MS = 5000; // Tolérance aux horloges décalées entre serveurs
+
+    private final MongoCollection<Document> collection;
+    private final String serverName;
+    private final ScheduledExecutorService executor;
+    private final long intervalMs;
+    private final Supplier<List<String>> onlinePlayerIds;
+
+    private volatile long changeWatermark = 0L;
+    private volatile boolean running = false;
+    private ScheduledFuture<?> pollingTask;
+
+    public PollingEventSource(MongoCollection<Document> collection, String serverName,
+                              ScheduledExecutorService executor, long intervalMs,
+                              Supplier<List<String>> onlinePlayerIds) {
+        this.collection = collection;
+        this.serverName = serverName;
+        this.executor = executor;
+        this.intervalMs = Math.max(1000L, intervalMs);
+        this.onlinePlayerIds = onlinePlayerIds;
+    }
+
+    @Override
+    public void start(Consumer<SynchronizationService.ChangeEvent> listener, Consumer<Exception> onFailure) {
+        changeWatermark = System.currentTimeMillis();
+        running = true;
+
+        pollingTask = executor.scheduleWithFixedDelay(() -> {
+            try {
+                if (!running) return;
+                checkForDataChanges(listener);
+            } catch (Exception e) {
+                if (running) {
+                    Utils.sendConsoleLog("&cErreur lors de la vérification des changements: " + e.getMessage());
+                }
+            }
+        }, 5000, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (pollingTask != null) {
+            pollingTask.cancel(false);
+            pollingTask = null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "polling";
+    }
+
+    /**
+     * Vérifie les changements de données avec une seule requête groupée par tick
+     * Ne récupère que _id et metadata ; le service ne recharge que les joueurs réellement modifiés
+     */
+    private void checkForDataChanges(Consumer<SynchronizationService.ChangeEvent> listener) {
+        List<String> onlineIds = onlinePlayerIds.get();
+        if (onlineIds.isEmpty()) {
+            return;
+        }
+
+        Document filter = new Document("_id", new Document("$in", onlineIds))
+            .append("metadata.lastModified", new Document("$gt", changeWatermark - WATERMARK_SKEW_MARGIN_MS))
+            .append("metadata.lastModifiedBy", new Document("$ne", serverName)); // Ignore nos propres changements
+
+        long highestModification = changeWatermark;
+        for (Document doc : collection.find(filter).projection(Projections.include("_id", "metadata"))) {
+            Document metadata = doc.get("metadata", Document.class);
+            Object lastModifiedValue = metadata != null ? metadata.get("lastModified") : null;
+            if (!(lastModifiedValue instanceof Number)) {
+                continue;
+            }
+
+            long lastModified = ((Number) lastModifiedValue).longValue();
+            highestModification = Math.max(highestModification, lastModified);
+
+            listener.accept(new SynchronizationService.ChangeEvent(
+                doc.getString("_id"), lastModified, metadata.getString("lastModifiedBy")));
+        }
+
+        changeWatermark = highestModification;
+    }
+}
@@ -0,0 +1,160 @@
+package loyfael.core.services;
+
+import loyfael.api.interfaces.IDatabaseService.FieldUpdate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+
+/**
+ * Documents des stockages locaux (mémoire, journal) : valeurs immuables indexées par clé triée,
+ * mises à jour partielles et classement, avec la même sémantique que MongoDB
+ */
+final class StoredDocuments {
+
+    private static final String[] RANKING_FIELDS = { "uuid", "name", "level", "lastSeen", "buttonAmount" };
+
+    private StoredDocuments() {
+    }
+
+    /**
+     * Entrées d'un préfixe : parcours d'un sous-intervalle de l'index trié
+     */
+    static ConcurrentNavigableMap<String, Object> withPrefix(ConcurrentNavigableMap<String, Object> entries, String prefix) {
+        return prefix.isEmpty() ? entries : entries.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+    }
+
+    /**
+     * N meilleures entrées par champ décroissant (départage par dernière connexion), champs de classement seuls
+     */
+    static List<Map<String, Object>> top(Collection<Object> values, String sortField, int limit) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Object value : values) {
+            if (value instanceof Map) {
+                results.add(projectRankingFields((Map<?, ?>) value));
+            }
+        }
+
+        Comparator<Map<String, Object>> bySortField = Comparator.comparingLong(entry -> toLong(entry.get(sortField)));
+        results.sort(rankingOrder(sortField, bySortField));
+
+        int max = Math.max(1, limit);
+        return results.size() > max ? new ArrayList<>(results.subList(0, max)) : results;
+    }
+
+    /**
+     * Ordre décroissant du classement ; départage par dernière connexion pour le niveau uniquement (comme MongoDB)
+     */
+    static Comparator<Map<String, Object>> rankingOrder(String sortField, Comparator<Map<String, Object>> bySortField) {
+        if (!"level".equals(sortField)) {
+            return bySortField.reversed();
+        }
+        Comparator<Map<String, Object>> byLastSeen = Comparator.comparingLong(entry -> toLong(entry.get("lastSeen")));
+        return bySortField.reversed().thenComparing(byLastSeen.reversed());
+    }
+
+    /**
+     * Copie immuable d'une valeur : l'appelant peut modifier l'original sans altérer le stockage
+     */
+    @SuppressWarnings("unchecked")
+    static Object freeze(Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((field, fieldValue) -> copy.put(String.valueOf(field), freeze(fieldValue)));
+            return Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof Collection) {
+            List<Object> copy = new ArrayList<>(((Collection<?>) value).size());
+            for (Object element : (Collection<Object>) value) {
+                copy.add(freeze(element));
+            }
+            return Collections.unmodifiableList(copy);
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        }
+        return value;
+    }
+
+    /**
+     * Applique $set / $inc / $unset (chemins pointés) sur une copie de l'entrée
+     */
+    @SuppressWarnings("unchecked")
+    static Object applyUpdate(Object value, FieldUpdate update) {
+        if (!(value instanceof Map)) {
+            return value;
+        }
+        Map<String, Object> document = thaw((Map<String, Object>) value);
+        update.getSets().forEach((path, fieldValue) -> setPath(document, path, fieldValue));
+        update.getIncrements().forEach((path, delta) -> {
+            long sum = toLong(getPath(document, path)) + delta.longValue();
+            setPath(document, path, sum >= Integer.MIN_VALUE && sum <= Integer.MAX_VALUE ? (Object) (int) sum : (Object) sum);
+        });
+        update.getUnsets().forEach(path -> setPath(document, path, null));
+        return freeze(document);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> thaw(Map<String, Object> frozen) {
+        Map<String, Object> copy = new LinkedHashMap<>(frozen);
+        copy.replaceAll((field, value) -> value instanceof Map ? thaw((Map<String, Object>) value) : value);
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object getPath(Map<String, Object> document, String path) {
+        int dot = path.indexOf('.');
+        if (dot < 0) {
+            return document.get(path);
+        }
+        Object child = document.get(path.substring(0, dot));
+        return child instanceof Map ? getPath((Map<String, Object>) child, path.substring(dot + 1)) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void setPath(Map<String, Object> document, String path, Object value) {
+        int dot = path.indexOf('.');
+        if (dot < 0) {
+            if (value == null) {
+                document.remove(path);
+            } else {
+                document.put(path, value);
+            }
+            return;
+        }
+        String field = path.substring(0, dot);
+        Object child = document.get(field);
+        if (!(child instanceof Map)) {
+            if (value == null) {
+                return;
+            }
+            child = new LinkedHashMap<String, Object>();
+            document.put(field, child);
+        }
+        setPath((Map<String, Object>) child, path.substring(dot + 1), value);
+    }
+
+    /**
+     * Extrait uniquement les champs utiles au classement d'une entrée
+     */
+    static Map<String, Object> projectRankingFields(Map<?, ?> source) {
+        Map<String, Object> projected = new HashMap<>();
+        for (String field : RANKING_FIELDS) {
+            Object fieldValue = source.get(field);
+            if (fieldValue != null) {
+                projected.put(field, fieldValue);
+            }
+        }
+        return projected;
+    }
+
+    static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -23,11 +23,13 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.Map;
-import java.util.HashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.function.Consumer;
 
 /**
- * Service de synchronisation inter-serveur utilisant MongoDB polling (compatible standalone)
+ * Service de synchronisation inter-serveur utilisant les Change Streams MongoDB,
+ * avec repli sur un polling groupé pour les déploiements standalone
  * Principe de responsabilité unique : synchronisation uniquement
  */
 public class SynchronizationService implements ISynchronizationService {
@@ -48,11 +50,17 @@ public class SynchronizationService implements ISynchronizationService {
     // Données de synchronisation
     private final ConcurrentMap<String, Long> lastSyncTimes = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, Boolean> syncEnabled = new ConcurrentHashMap<>();
+
+    // Détection des changements distants : dernier lastModified traité par joueur
+    private final ConcurrentMap<String, Long> observedModifications = new ConcurrentHashMap<>();
+    private volatile ChangeEventSource eventSource;
     private final AtomicLong syncOperations = new AtomicLong(0);
     private final AtomicInteger conflictsResolved = new AtomicInteger(0);
     
     private volatile boolean running = false;
 
+    private static final long CLOCK_SKEW_MARGIN_MS = 5000L;
+
     public SynchronizationService(IDatabaseService databaseService, 
                                 ICacheService cacheService, 
                                 IConfigurationService configService) {
@@ -66,6 +74,17 @@ public class SynchronizationService implements ISynchronizationService {
         Utils.sendConsoleLog("&eService de synchronisation créé (en attente de démarrage)");
     }
 
+    /**
+     * Constructeur avec une source de changements fournie (sans connexion MongoDB dédiée)
+     */
+    public SynchronizationService(IDatabaseService databaseService,
+                                ICacheService cacheService,
+                                IConfigurationService configService,
+                                ChangeEventSource eventSource) {
+        this(databaseService, cacheService, configService);
+        this.eventSource = eventSource;
+    }
+
     @Override
     public void start() {
         if (running) {
@@ -78,12 +97,17 @@ public class SynchronizationService implements ISynchronizationService {
             this.serverName = configService.getConfig().getString("server.name", "server-" + System.currentTimeMillis());
             Utils.sendConsoleLog("&eService de synchronisation initialisé pour le serveur: " + serverName);
             
-            initializeMongoDB();
-            startChangeStreamListener();
-            startPeriodicSync();
             running = true;
+            if (eventSource != null) {
+                startEventSource(eventSource);
+            } else {
+                initializeMongoDB();
+                startChangeStreamListener();
+            }
+            startPeriodicSync();
             Utils.sendConsoleLog("&aService de synchronisation démarré avec succès");
         } catch (Exception e) {
+            running = false;
             Utils.sendConsoleLog("&cErreur lors du démarrage de la synchronisation: " + e.getMessage());
             e.printStackTrace();
         }
@@ -98,6 +122,9 @@ public class SynchronizationService implements ISynchronizationService {
         running = false;
         
         try {
+            if (eventSource != null) {
+                eventSource.stop();
+            }
             if (syncMongoClient != null) {
                 syncMongoClient.close();
             }
@@ -137,89 +164,134 @@ public class SynchronizationService implements ISynchronizationService {
         Utils.sendConsoleLog("&aConnexion MongoDB pour synchronisation établie");
     }
 
+    /**
+     * Démarre la détection des changements distants
+     * Change Streams si MongoDB est un replica set (ou un cluster shardé), sinon polling groupé
+     */
     private void startChangeStreamListener() {
-        // Utiliser un système de polling au lieu des Change Streams pour compatibilité standalone MongoDB
-        syncExecutor.scheduleWithFixedDelay(() -> {
+        String mode = configService.getConfig().getString("synchronization.change-detection", "auto");
+
+        if (!"polling".equalsIgnoreCase(mode) && ("change-stream".equalsIgnoreCase(mode) || supportsChangeStreams())) {
+            long maxAwait = configService.getConfig().getLong("synchronization.intervals.change-stream-check", 1000L);
+            MongoCollection<Document> stateCollection = syncDatabase.getCollection("sync_state");
+            startEventSource(new ChangeStreamEventSource(syncCollection, stateCollection, serverName, maxAwait));
+        } else {
+            startEventSource(createPollingSource());
+        }
+    }
+
+    private PollingEventSource createPollingSource() {
+        long pollingInterval = configService.getConfig().getLong("synchronization.intervals.polling", 10000L);
+        return new PollingEventSource(syncCollection, serverName, syncExecutor, pollingInterval, () -> {
+            List<String> onlineIds = new ArrayList<>();
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                onlineIds.add("player_" + player.getUniqueId());
+            }
+            return onlineIds;
+        });
+    }
+
+    private void startEventSource(ChangeEventSource source) {
+        eventSource = source;
+        source.start(this::onChangeEvent, error -> {
+            if (!running || eventSource != source) {
+                return;
+            }
+            // Le flux est perdu (élection, droits insuffisants...) : bascule sur le polling
+            // depuis un autre thread, stop() attend la fin du thread qui signale l'erreur
+            Utils.sendConsoleLog("&eFlux de changements '" + source.getName() + "' interrompu (" + error.getMessage() + "), bascule sur le polling");
             try {
-                if (!running) return;
-                
-                // Polling périodique pour vérifier les changements
-                checkForDataChanges();
-                
-            } catch (Exception e) {
-                if (running) {
-                    Utils.sendConsoleLog("&cErreur lors de la vérification des changements: " + e.getMessage());
-                }
+                syncExecutor.execute(() -> {
+                    source.stop();
+                    if (running && eventSource == source) {
+                        startEventSource(createPollingSource());
+                    }
+                });
+            } catch (java.util.concurrent.RejectedExecutionException e) {
+                // Arrêt en cours : plus de bascule
             }
-        }, 5, 10, java.util.concurrent.TimeUnit.SECONDS); // Vérifier toutes les 10 secondes
+        });
+        Utils.sendConsoleLog("&aDétection des changements inter-serveur: " + source.getName());
     }
 
     /**
-     * Vérifie les changements de données en utilisant polling (compatible MongoDB standalone)
+     * Vérifie si le déploiement MongoDB supporte les Change Streams (replica set ou mongos)
      */
-    private void checkForDataChanges() {
+    private boolean supportsChangeStreams() {
         try {
-            // Récupérer tous les joueurs connectés
-            for (Player player : Bukkit.getOnlinePlayers()) {
-                String playerUuid = player.getUniqueId().toString();
-                checkPlayerDataChange(playerUuid);
+            Document hello;
+            try {
+                hello = syncDatabase.runCommand(new Document("hello", 1));
+            } catch (Exception e) {
+                // Serveurs antérieurs à MongoDB 4.4
+                hello = syncDatabase.runCommand(new Document("isMaster", 1));
             }
+            return hello.containsKey("setName") || "isdbgrid".equals(hello.getString("msg"));
         } catch (Exception e) {
-            Utils.sendConsoleLog("&cErreur lors de la vérification des changements: " + e.getMessage());
+            Utils.sendConsoleLog("&eImpossible de déterminer la topologie MongoDB: " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Vérifie si les données d'un joueur ont changé depuis la dernière synchronisation
+     * Traite un changement distant signalé par la source d'événements
      */
-    private void checkPlayerDataChange(String playerUuid) {
-        try {
-            // Récupérer les données depuis MongoDB
-            Document filter = new Document("_id", "player_" + playerUuid);
-            Document playerDoc = syncCollection.find(filter).first();
-            
-            if (playerDoc == null) return;
-
-            // Vérifier les métadonnées pour éviter les boucles
-            Document metadata = playerDoc.get("metadata", Document.class);
-            if (metadata != null && serverName.equals(metadata.getString("lastModifiedBy"))) {
-                return; // Ignore nos propres changements
-            }
+    void onChangeEvent(ChangeEvent event) {
+        if (!running || event.getDocumentId() == null || !event.getDocumentId().startsWith("player_")) {
+            return;
+        }
+        if (serverName != null && serverName.equals(event.getLastModifiedBy())) {
+            return; // Nos propres écritures
+        }
 
-            // Vérifier le timestamp de dernière modification
-            Long lastModified = metadata != null ? metadata.getLong("lastModified") : null;
-            Long lastSyncTime = lastSyncTimes.get(playerUuid);
-            
-            if (lastModified != null && (lastSyncTime == null || lastModified > lastSyncTime)) {
-                // Les données ont changé, synchroniser
-                handlePlayerDataSync(playerUuid, playerDoc);
-            }
+        // Le polling peut renvoyer un changement déjà traité à cause de sa marge de tolérance
+        String playerUuid = event.getDocumentId().substring("player_".length());
+        Long alreadyObserved = observedModifications.get(playerUuid);
+        if (alreadyObserved == null || event.getLastModified() > alreadyObserved) {
+            handlePlayerDataSync(playerUuid, event.getLastModified());
+        }
+    }
 
-        } catch (Exception e) {
-            Utils.sendConsoleLog("&cErreur lors de la vérification des données du joueur " + playerUuid + ": " + e.getMessage());
+    @Override
+    public void forgetPlayer(String playerUuid) {
+        if (playerUuid != null) {
+            observedModifications.remove(playerUuid);
+            lastSyncTimes.remove(playerUuid);
         }
     }
 
     /**
      * Traite la synchronisation des données d'un joueur
      */
-    private void handlePlayerDataSync(String playerUuid, Document playerDoc) {
+    private void handlePlayerDataSync(String playerUuid, long lastModified) {
         try {
-            // Invalider le cache local pour ce joueur
-            cacheService.invalidatePlayer(playerUuid);
-            lastSyncTimes.put(playerUuid, System.currentTimeMillis());
+            // Invalider la version locale : le rechargement lit la base et y fusionne l'écriture en attente
+            java.util.UUID uuid = java.util.UUID.fromString(playerUuid);
+            Main.getInstance().getPlayerService().invalidateRemoteChange(uuid);
             syncOperations.incrementAndGet();
 
-            // Notifier le joueur si il est connecté
-            Player player = Bukkit.getPlayer(java.util.UUID.fromString(playerUuid));
-            if (player != null && player.isOnline()) {
+            // Joueur hors ligne : l'invalidation suffit, rien à mémoriser (oublié à la déconnexion sinon)
+            Player player = Bukkit.getPlayer(uuid);
+            if (player == null || !player.isOnline()) {
+                return;
+            }
+            observedModifications.put(playerUuid, lastModified);
+            lastSyncTimes.put(playerUuid, System.currentTimeMillis());
+
+            // Rechargement (lecture bloquante) hors du thread principal, qui n'applique que le résultat
+            syncExecutor.execute(() -> {
+                if (Main.getInstance().getPlayerService().reloadPlayerData(uuid).isEmpty()) {
+                    return;
+                }
                 Bukkit.getScheduler().runTask(Main.getInstance(), () -> {
-                    // Recharger les données du joueur
-                    Main.getInstance().getPlayerService().getPlayerData(playerUuid);
+                    // Routes de missions reconstruites (niveau ou missions modifiés à distance)
+                    if (player.isOnline()) {
+                        Main.getInstance().getMissionService().trackPlayer(uuid);
+                    }
                     // Optionnel: notifier le joueur
                     // player.sendMessage("§aDonnées synchronisées avec les autres serveurs");
                 });
-            }
+            });
 
         } catch (Exception e) {
             Utils.sendConsoleLog("&cErreur lors de la synchronisation des données du joueur " + playerUuid + ": " + e.getMessage());
@@ -305,8 +377,7 @@ public class SynchronizationService implements ISynchronizationService {
                 // Si seulement des données MongoDB existent, les charger localement
                 if (mongoDoc != null && !localPlayerDataOpt.isPresent()) {
                     // Utils.sendConsoleLog("&e[SYNC] ⬇️ Chargement des données MongoDB localement pour " + playerUuid);
-                    cacheService.invalidatePlayer(playerUuid);
-                    Main.getInstance().getPlayerService().getPlayerData(playerUuid);
+                    Main.getInstance().getPlayerService().reloadPlayerData(java.util.UUID.fromString(playerUuid));
                     // Utils.sendConsoleLog("&a[SYNC] ✅ Données MongoDB chargées localement pour " + playerUuid);
                     return true;
                 }
@@ -345,6 +416,39 @@ public class SynchronizationService implements ISynchronizationService {
         }, syncExecutor);
     }
 
+    @Override
+    public CompletableFuture<Boolean> checkFreshness(String playerUuid, long loadedAt) {
+        return CompletableFuture.supplyAsync(() -> {
+            MongoCollection<Document> collection = syncCollection;
+            if (!running || collection == null) {
+                return false;
+            }
+            try {
+                // Métadonnées seulement : le profil n'est relu que s'il a changé
+                Document doc = collection.find(new Document("_id", "player_" + playerUuid))
+                    .projection(new Document("metadata", 1))
+                    .first();
+                Document metadata = doc != null ? doc.get("metadata", Document.class) : null;
+                Object lastModified = metadata != null ? metadata.get("lastModified") : null;
+                // Marge pour l'écart d'horloge entre serveurs : un rechargement en trop est sans risque (fusion)
+                if (!(lastModified instanceof Number) || ((Number) lastModified).longValue() <= loadedAt - CLOCK_SKEW_MARGIN_MS
+                    || (serverName != null && serverName.equals(metadata.getString("lastModifiedBy")))) {
+                    return false;
+                }
+
+                // Écriture d'un autre serveur postérieure à la lecture de pré-connexion : rechargement fusionné
+                observedModifications.merge(playerUuid, ((Number) lastModified).longValue(), Math::max);
+                Main.getInstance().getPlayerService().reloadPlayerData(java.util.UUID.fromString(playerUuid));
+                lastSyncTimes.put(playerUuid, System.currentTimeMillis());
+                syncOperations.incrementAndGet();
+                return true;
+            } catch (Exception e) {
+                Utils.sendConsoleLog("&c[SYNC] Erreur lors de la vérification du profil de " + playerUuid + ": " + e.getMessage());
+                return false;
+            }
+        }, syncExecutor);
+    }
+
     @Override
     public void notifyDataChange(String playerUuid, String changeType, Object data) {
         syncExecutor.submit(() -> {
@@ -401,44 +505,12 @@ public class SynchronizationService implements ISynchronizationService {
                 throw new IllegalArgumentException("Aucun sous-document 'data' trouvé dans le document MongoDB");
             }
             
-            // Gestion sécurisée de tous les champs avec valeurs par défaut
-            String uuid = dataDoc.getString("uuid");
-            String name = dataDoc.getString("name");
-            
-            if (uuid == null || name == null) {
+            // Formats map et compact
+            IPlayerService.PlayerData playerData = PlayerDataCodec.read(dataDoc);
+            if (playerData.getUuid() == null || playerData.getName() == null) {
                 throw new IllegalArgumentException("UUID ou nom manquant dans le sous-document 'data'");
             }
             
-            int level = dataDoc.getInteger("level", 0);
-            
-            // Gestion sécurisée de lastSeen avec valeur par défaut
-            Long lastSeenLong = dataDoc.getLong("lastSeen");
-            long lastSeen = lastSeenLong != null ? lastSeenLong : System.currentTimeMillis();
-            
-            int buttonAmount = dataDoc.getInteger("buttonAmount", 0);
-            
-            IPlayerService.PlayerData playerData = new IPlayerService.PlayerData(uuid, name, level, lastSeen, buttonAmount);
-            
-            // Restaurer la progression des missions (lire depuis le sous-document data)
-            Document missionProgressDoc = dataDoc.get("missionProgress", Document.class);
-            if (missionProgressDoc != null) {
-                Map<String, Integer> missionProgress = new HashMap<>();
-                for (String key : missionProgressDoc.keySet()) {
-                    missionProgress.put(key, missionProgressDoc.getInteger(key, 0));
-                }
-                playerData.setMissionProgress(missionProgress);
-            }
-            
-            // Restaurer les données personnalisées (lire depuis le sous-document data)
-            Document customDataDoc = dataDoc.get("customData", Document.class);
-            if (customDataDoc != null) {
-                Map<String, Object> customData = new HashMap<>();
-                for (String key : customDataDoc.keySet()) {
-                    customData.put(key, customDataDoc.get(key));
-                }
-                playerData.setCustomData(customData);
-            }
-            
             return playerData;
         } catch (Exception e) {
             Utils.sendConsoleLog("&cErreur lors de la désérialisation MongoDB: " + e.getMessage());
@@ -463,88 +535,7 @@ public class SynchronizationService implements ISynchronizationService {
      * Prend le niveau le plus élevé et la progression maximale pour chaque mission
      */
     private IPlayerService.PlayerData mergePlayers(IPlayerService.PlayerData local, IPlayerService.PlayerData mongo, String playerUuid) {
-        // Utils.sendConsoleLog("&9[SYNC] 🔄 Début fusion pour " + playerUuid);
-        
-        // Prendre le niveau le plus élevé
-        int finalLevel = Math.max(local.getLevel(), mongo.getLevel());
-        // Utils.sendConsoleLog("&9[SYNC] 📈 Niveaux - Local: " + local.getLevel() + ", MongoDB: " + mongo.getLevel() + " → Final: " + finalLevel);
-        
-        // Prendre le lastSeen le plus récent
-        long finalLastSeen = Math.max(local.getLastSeen(), mongo.getLastSeen());
-        
-        // Créer les données fusionnées avec les infos de base
-        IPlayerService.PlayerData merged = new IPlayerService.PlayerData(
-            local.getUuid(), 
-            local.getName(), 
-            finalLevel, 
-            finalLastSeen, 
-            Math.max(local.getButtonAmount(), mongo.getButtonAmount())
-        );
-        
-        // Fusionner la progression des missions (prendre le max pour chaque mission)
-        Map<String, Integer> mergedMissionProgress = new HashMap<>();
-        
-        // Ajouter toutes les missions locales
-        if (local.getMissionProgress() != null) {
-            mergedMissionProgress.putAll(local.getMissionProgress());
-            // Utils.sendConsoleLog("&9[SYNC] 📝 Missions locales copiées: " + local.getMissionProgress().size());
-        }
-        
-        // Fusionner avec les missions MongoDB (prendre le max)
-        if (mongo.getMissionProgress() != null) {
-            // Utils.sendConsoleLog("&9[SYNC] 📝 Missions MongoDB à fusionner: " + mongo.getMissionProgress().size());
-            for (Map.Entry<String, Integer> entry : mongo.getMissionProgress().entrySet()) {
-                String missionKey = entry.getKey();
-                int mongoProgress = entry.getValue();
-                int localProgress = mergedMissionProgress.getOrDefault(missionKey, 0);
-                
-                // Prendre le progrès maximum
-                int finalProgress = Math.max(localProgress, mongoProgress);
-                mergedMissionProgress.put(missionKey, finalProgress);
-                
-                if (finalProgress != localProgress) {
-                    Utils.sendConsoleLog("&e[SYNC] 📊 Mission " + missionKey + ": " + localProgress + " → " + finalProgress);
-                }
-            }
-        }
-        
-        merged.setMissionProgress(mergedMissionProgress);
-        // Utils.sendConsoleLog("&9[SYNC] 📝 Total missions après fusion: " + mergedMissionProgress.size());
-        
-        // Fusionner les données personnalisées (MongoDB gagne en cas de conflit)
-        Map<String, Object> mergedCustomData = new HashMap<>();
-        if (local.getCustomData() != null) {
-            mergedCustomData.putAll(local.getCustomData());
-        }
-        if (mongo.getCustomData() != null) {
-            mergedCustomData.putAll(mongo.getCustomData()); // MongoDB overwrite local
-        }
-        merged.setCustomData(mergedCustomData);
-        
-        // Logger les changements
-        // if (finalLevel != local.getLevel()) {
-        //     Utils.sendConsoleLog("&a[SYNC] ✅ Niveau synchronisé pour " + playerUuid + ": " + local.getLevel() + " → " + finalLevel);
-        // }
-        
-        int missionChanges = 0;
-        if (local.getMissionProgress() != null && mongo.getMissionProgress() != null) {
-            for (String missionKey : mergedMissionProgress.keySet()) {
-                int localProg = local.getMissionProgress().getOrDefault(missionKey, 0);
-                int mongoProg = mongo.getMissionProgress().getOrDefault(missionKey, 0);
-                int finalProg = mergedMissionProgress.get(missionKey);
-                
-                if (finalProg != localProg) {
-                    missionChanges++;
-                }
-            }
-        }
-        
-        // if (missionChanges > 0) {
-        //     Utils.sendConsoleLog("&a[SYNC] ✅ Progression de " + missionChanges + " mission(s) synchronisée pour " + playerUuid);
-        // }
-        
-        // Utils.sendConsoleLog("&9[SYNC] 🏁 Fin fusion pour " + playerUuid);
-        return merged;
+        return PlayerDataMerger.merge(local, mongo);
     }
 
     @Override
@@ -556,4 +547,37 @@ public class SynchronizationService implements ISynchronizationService {
             serverName
         );
     }
+
+    /**
+     * Source de changements distants (Change Streams ou polling)
+     */
+    public interface ChangeEventSource {
+        /**
+         * Démarre l'écoute ; onFailure est appelé si la source ne peut plus fonctionner
+         */
+        void start(Consumer<ChangeEvent> listener, Consumer<Exception> onFailure);
+
+        void stop();
+
+        String getName();
+    }
+
+    /**
+     * Changement d'un document détecté sur un autre serveur
+     */
+    public static final class ChangeEvent {
+        private final String documentId;
+        private final long lastModified;
+        private final String lastModifiedBy;
+
+        public ChangeEvent(String documentId, long lastModified, String lastModifiedBy) {
+            this.documentId = documentId;
+            this.lastModified = lastModified;
+            this.lastModifiedBy = lastModifiedBy;
+        }
+
+        public String getDocumentId() { return documentId; }
+        public long getLastModified() { return lastModified; }
+        public String getLastModifiedBy() { return lastModifiedBy; }
+    }
 }
@@ -0,0 +1,402 @@
+package loyfael.core.services;
+
+import loyfael.api.interfaces.IDatabaseService;
+import loyfael.utils.Utils;
+import org.bukkit.Bukkit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File d'écriture différée (write-behind) pour les données joueurs
+ * Une seule entrée en attente par clé : les sauvegardes répétées d'un même joueur
+ * sont fusionnées et écrites par lots depuis un thread dédié
+ */
+public class WriteBehindQueue {
+
+    private final IDatabaseService databaseService;
+    private final long flushIntervalMs;
+    private final int batchSize;
+    private final int maxPending;
+
+    private final ConcurrentHashMap<String, Map<String, Object>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer;
+    // Dernier état écrit par clé, base des mises à jour partielles (LRU borné)
+    private final Map<String, Map<String, Object>> persisted;
+    // Clés dont une mise à jour partielle a échoué : ses $inc ont pu être appliqués en partie,
+    // la prochaine écriture n'envoie que des valeurs absolues
+    private final Set<String> uncertain = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private volatile boolean running = false;
+    // Dernier flush de l'arrêt terminé : plus aucun thread ne vide la file
+    private boolean closed = false;
+
+    // Métriques
+    private final AtomicLong enqueued = new AtomicLong(0);
+    private final AtomicLong coalesced = new AtomicLong(0);
+    private final AtomicLong written = new AtomicLong(0);
+    private final AtomicLong partialUpdates = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+    private final AtomicLong overflows = new AtomicLong(0);
+    private final AtomicLong flushes = new AtomicLong(0);
+    private volatile int maxObservedDepth = 0;
+    private volatile long lastFlushDurationMs = 0;
+
+    public WriteBehindQueue(IDatabaseService databaseService, long flushIntervalMs, int batchSize, int maxPending) {
+        this.databaseService = databaseService;
+        this.flushIntervalMs = Math.max(50L, flushIntervalMs);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxPending = Math.max(1, maxPending);
+        int maxPersisted = this.maxPending * 2;
+        this.persisted = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+                return size() > maxPersisted;
+            }
+        };
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "KrakenLevels-WriteBehind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Démarre le flush périodique
+     */
+    public void start() {
+        running = true;
+        writer.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Met en attente l'écriture d'un snapshot (remplace le précédent snapshot de la même clé)
+     * N'écrit jamais sur le thread appelant (souvent le thread principal) : au-delà de maxPending,
+     * l'entrée dépasse la limite et le lot suivant est avancé (une entrée par joueur au plus)
+     */
+    public void enqueue(String key, Map<String, Object> snapshot) {
+        if (!running) {
+            enqueueAfterStop(key, snapshot);
+            return;
+        }
+
+        if (pending.size() >= maxPending && !pending.containsKey(key)) {
+            overflows.incrementAndGet();
+            requestFlush();
+        }
+
+        enqueued.incrementAndGet();
+        if (pending.put(key, snapshot) != null) {
+            coalesced.incrementAndGet();
+        }
+
+        int depth = pending.size();
+        if (depth > maxObservedDepth) {
+            maxObservedDepth = depth;
+        }
+        if (depth >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Écriture reçue pendant l'arrêt : mise en file tant que le dernier flush de shutdown() ne l'a pas vidée,
+     * écriture directe ensuite, hors du thread principal uniquement
+     * (PlayerService détache la file avant de l'arrêter, depuis le thread principal)
+     */
+    private void enqueueAfterStop(String key, Map<String, Object> snapshot) {
+        synchronized (this) {
+            if (!closed) {
+                pending.put(key, snapshot);
+                return;
+            }
+        }
+        if (Bukkit.getServer() != null && Bukkit.isPrimaryThread()) {
+            failed.incrementAndGet();
+            Utils.sendConsoleLog("&cSauvegarde joueur reçue après l'arrêt de l'écriture différée, ignorée: " + key);
+        } else {
+            writeNow(key, snapshot);
+        }
+    }
+
+    /**
+     * Récupère le snapshot en attente d'écriture pour une clé (lecture de ses propres écritures)
+     */
+    public Optional<Map<String, Object>> getPending(String key) {
+        return Optional.ofNullable(pending.get(key));
+    }
+
+    /**
+     * Nombre d'écritures en attente
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Arrête le thread d'écriture et vide la file sur le thread appelant
+     */
+    public void shutdown() {
+        running = false;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            flush();
+            closed = true;
+        }
+        if (!pending.isEmpty()) {
+            Utils.sendConsoleLog("&c" + pending.size() + " sauvegardes joueur n'ont pas pu être écrites à l'arrêt");
+        }
+    }
+
+    /**
+     * Statistiques de la file d'écriture
+     */
+    public String getStats() {
+        return "&7Écritures: " + pending.size() + " en attente (max " + maxObservedDepth + "/" + maxPending + "), "
+            + written.get() + " écrites (" + partialUpdates.get() + " partielles), " + coalesced.get() + " fusionnées, "
+            + failed.get() + " échecs, " + overflows.get() + " au-delà de la limite (file pleine), "
+            + flushes.get() + " lots, dernier lot " + lastFlushDurationMs + "ms";
+    }
+
+    private void requestFlush() {
+        if (running && flushRequested.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::flushSafely);
+            } catch (Exception e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flushSafely() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (Exception e) {
+            Utils.sendConsoleLog("&cErreur lors de l'écriture différée des données joueur: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Écrit toutes les entrées en attente, par lots de batchSize
+     */
+    private synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Map<String, Object>>> iterator = pending.entrySet().iterator();
+        List<Map.Entry<String, Map<String, Object>>> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+
+        while (iterator.hasNext()) {
+            Map.Entry<String, Map<String, Object>> entry = iterator.next();
+            batch.add(Map.entry(entry.getKey(), entry.getValue()));
+            if (batch.size() >= batchSize) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+
+        flushes.incrementAndGet();
+        lastFlushDurationMs = System.currentTimeMillis() - start;
+    }
+
+    private void writeBatch(List<Map.Entry<String, Map<String, Object>>> batch) {
+        // Entrées déjà écrites : seuls les champs modifiés partent ; nouvelles entrées : document complet
+        Map<String, Object> fullWrites = new HashMap<>();
+        Map<String, IDatabaseService.FieldUpdate> partialWrites = new HashMap<>();
+        List<Map.Entry<String, Map<String, Object>>> full = new ArrayList<>();
+        List<Map.Entry<String, Map<String, Object>>> partial = new ArrayList<>();
+        List<Map.Entry<String, Map<String, Object>>> unchanged = new ArrayList<>();
+
+        for (Map.Entry<String, Map<String, Object>> entry : batch) {
+            Map<String, Object> base = getPersisted(entry.getKey());
+            if (base == null) {
+                fullWrites.put(entry.getKey(), entry.getValue());
+                full.add(entry);
+                continue;
+            }
+
+            IDatabaseService.FieldUpdate update = uncertain.contains(entry.getKey())
+                ? absolute(base, entry.getValue())
+                : diff(base, entry.getValue());
+            if (update.isEmpty()) {
+                unchanged.add(entry);
+            } else {
+                partialWrites.put(entry.getKey(), update);
+                partial.add(entry);
+            }
+        }
+        // Rien à écrire : l'état en base est déjà celui du snapshot
+        markWritten(unchanged);
+
+        // Au plus deux allers-retours pour tout le lot, chaque étape validée séparément :
+        // un échec des mises à jour partielles ne renvoie pas les documents complets déjà écrits
+        if (!fullWrites.isEmpty()) {
+            try {
+                databaseService.saveAll(fullWrites);
+                written.addAndGet(full.size());
+                markWritten(full);
+            } catch (Exception e) {
+                // Documents complets : réécriture sans risque au prochain flush
+                failed.addAndGet(full.size());
+                Utils.sendConsoleLog("&cErreur lors de la sauvegarde différée de " + full.size() + " joueurs: " + e.getMessage());
+            }
+        }
+
+        if (!partialWrites.isEmpty()) {
+            try {
+                databaseService.updateAll(partialWrites);
+                written.addAndGet(partial.size());
+                partialUpdates.addAndGet(partial.size());
+                markWritten(partial);
+            } catch (Exception e) {
+                // Une partie du lot a pu être appliquée (ou l'a été malgré un délai dépassé) :
+                // les $inc ne sont pas rejoués, la tentative suivante écrit les valeurs absolues du snapshot
+                for (Map.Entry<String, Map<String, Object>> entry : partial) {
+                    uncertain.add(entry.getKey());
+                }
+                failed.addAndGet(partial.size());
+                Utils.sendConsoleLog("&cErreur lors de la mise à jour différée de " + partial.size() + " joueurs: " + e.getMessage());
+            }
+        }
+    }
+
+    private void markWritten(List<Map.Entry<String, Map<String, Object>>> entries) {
+        for (Map.Entry<String, Map<String, Object>> entry : entries) {
+            recordPersisted(entry.getKey(), entry.getValue());
+            // Ne retirer que si aucun snapshot plus récent n'a été mis en file entre-temps
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Calcule les champs modifiés entre le dernier état écrit et le snapshot courant
+     * Les progressions de mission qui augmentent deviennent des $inc : les progressions
+     * faites en parallèle sur deux serveurs s'additionnent au lieu de s'écraser
+     */
+    @SuppressWarnings("unchecked")
+    static IDatabaseService.FieldUpdate diff(Map<String, Object> base, Map<String, Object> current) {
+        IDatabaseService.FieldUpdate update = new IDatabaseService.FieldUpdate();
+
+        for (Map.Entry<String, Object> field : current.entrySet()) {
+            String name = field.getKey();
+            Object value = field.getValue();
+            Object previous = base.get(name);
+
+            if (value instanceof Map && previous instanceof Map) {
+                diffMap(name, (Map<String, Object>) previous, (Map<String, Object>) value,
+                    "missionProgress".equals(name), update);
+            } else if (!PlayerDataCodec.sameValue(previous, value)) {
+                // Champ compact : remplacé d'un bloc s'il a changé (comparaison des octets)
+                update.set(name, value);
+            }
+        }
+        for (String name : base.keySet()) {
+            if (!current.containsKey(name)) {
+                update.unset(name);
+            }
+        }
+
+        return update;
+    }
+
+    /**
+     * Mise à jour en valeurs absolues : chaque champ du snapshot est écrit tel quel (sans $inc),
+     * ce qui la rend rejouable sans double comptage quel que soit l'état laissé par un échec
+     */
+    static IDatabaseService.FieldUpdate absolute(Map<String, Object> base, Map<String, Object> current) {
+        IDatabaseService.FieldUpdate update = new IDatabaseService.FieldUpdate();
+        for (Map.Entry<String, Object> field : current.entrySet()) {
+            update.set(field.getKey(), field.getValue());
+        }
+        for (String name : base.keySet()) {
+            if (!current.containsKey(name)) {
+                update.unset(name);
+            }
+        }
+        return update;
+    }
+
+    private static void diffMap(String prefix, Map<String, Object> base, Map<String, Object> current,
+                                boolean counters, IDatabaseService.FieldUpdate update) {
+        for (Map.Entry<String, Object> field : current.entrySet()) {
+            String path = prefix + "." + field.getKey();
+            Object value = field.getValue();
+            Object previous = base.get(field.getKey());
+
+            if (counters && value instanceof Number && (previous == null || previous instanceof Number)) {
+                long delta = ((Number) value).longValue() - (previous == null ? 0L : ((Number) previous).longValue());
+                if (delta > 0) {
+                    update.inc(path, (int) delta);
+                } else if (delta < 0) {
+                    update.set(path, value); // Remise à zéro : valeur absolue
+                }
+            } else if (!Objects.equals(previous, value)) {
+                update.set(path, value);
+            }
+        }
+        for (String key : base.keySet()) {
+            if (!current.containsKey(key)) {
+                update.unset(prefix + "." + key);
+            }
+        }
+    }
+
+    /**
+     * Mémorise le dernier état connu en base pour une clé (après écriture ou chargement)
+     */
+    public void recordPersisted(String key, Map<String, Object> snapshot) {
+        synchronized (persisted) {
+            persisted.put(key, snapshot);
+        }
+        uncertain.remove(key);
+    }
+
+    private Map<String, Object> getPersisted(String key) {
+        synchronized (persisted) {
+            return persisted.get(key);
+        }
+    }
+
+    private void writeNow(String key, Map<String, Object> snapshot) {
+        // Écriture directe : l'état en base n'est plus connu avec certitude, la prochaine sera complète
+        synchronized (persisted) {
+            persisted.remove(key);
+        }
+        uncertain.remove(key);
+        try {
+            databaseService.saveData(key, snapshot);
+            written.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            Utils.sendConsoleLog("&cErreur lors de la sauvegarde des données joueur: " + e.getMessage());
+        }
+    }
+}
@@ -3,25 +3,68 @@ package loyfael.core.services;
 import loyfael.api.interfaces.IConfigurationService;
 import loyfael.utils.Utils;
 import loyfael.Main;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Implémentation YAML du service de base de données
  * Principe de substitution de Liskov : peut remplacer AbstractDatabaseService
+ *
+ * Écriture différée : un seul thread d'écriture regroupe les modifications en au plus une écriture
+ * du fichier par intervalle. Le fichier est sérialisé depuis une copie, hors du verrou des lectures,
+ * puis écrit dans un fichier temporaire renommé atomiquement (jamais de data.yml à moitié écrit)
  */
 public class YamlDatabaseService extends AbstractDatabaseService {
 
+    private static final long DEFAULT_WRITE_INTERVAL_MS = 1000L;
+
+    private final Object lock = new Object();
     private File dataFile;
     private FileConfiguration dataConfig;
 
+    private ScheduledExecutorService writer;
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private volatile long writeIntervalMs = DEFAULT_WRITE_INTERVAL_MS;
+
+    // Numéro de la dernière modification (incrémenté sous le verrou) et de la dernière écrite dans le fichier
+    private volatile long mutations;
+    private volatile long writtenMutations;
+
+    // Métriques d'écriture
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private volatile long lastWriteNanos;
+    private volatile long lastWriteBytes;
+
     public YamlDatabaseService(IConfigurationService configService) {
         super(configService);
     }
@@ -39,9 +82,18 @@ public class YamlDatabaseService extends AbstractDatabaseService {
                 Utils.sendConsoleLog("&aFichier data.yml créé.");
             }
 
-            dataConfig = YamlConfiguration.loadConfiguration(dataFile);
+            synchronized (lock) {
+                dataConfig = YamlConfiguration.loadConfiguration(dataFile);
+                writtenMutations = mutations;
+            }
             Utils.sendConsoleLog("&aFichier YAML chargé avec " + dataConfig.getKeys(true).size() + " entrées.");
 
+            loadSettings();
+            writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "KrakenLevels-YamlWriter");
+                thread.setDaemon(true);
+                return thread;
+            });
             return true;
 
         } catch (Exception e) {
@@ -52,9 +104,29 @@ public class YamlDatabaseService extends AbstractDatabaseService {
 
     @Override
     protected void doDisconnect() {
+        // Arrêt du thread d'écriture, puis dernière écriture depuis ce thread (plus aucun autre écrivain)
+        ScheduledExecutorService executor = writer;
+        writer = null;
+        if (executor != null) {
+            // Écritures pas encore commencées annulées (les appelants en attente sont libérés)
+            for (Runnable pending : executor.shutdownNow()) {
+                if (pending instanceof Future) {
+                    ((Future<?>) pending).cancel(false);
+                }
+            }
+            try {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    Utils.sendConsoleLog("&cLe thread d'écriture YAML ne s'est pas arrêté à temps.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        writeScheduled.set(false);
+
         try {
             if (dataConfig != null && dataFile != null) {
-                dataConfig.save(dataFile);
+                writeSnapshot();
                 Utils.sendConsoleLog("&eDonnées YAML sauvegardées.");
             }
         } catch (IOException e) {
@@ -62,19 +134,148 @@ public class YamlDatabaseService extends AbstractDatabaseService {
         }
     }
 
+    /**
+     * Relit l'intervalle d'écriture depuis la configuration (database.yaml.write-interval-ms)
+     */
+    public void loadSettings() {
+        FileConfiguration config = configService != null ? configService.getConfig() : null;
+        if (config == null) {
+            return;
+        }
+        writeIntervalMs = Math.max(0L, config.getLong("database.yaml.write-interval-ms", DEFAULT_WRITE_INTERVAL_MS));
+    }
+
     @Override
     public void saveData(String key, Object value) {
         validateKey(key);
         ensureConnected();
 
-        synchronized (dataConfig) {
+        synchronized (lock) {
             dataConfig.set(key, value);
             dataConfig.set(key + "_lastUpdated", System.currentTimeMillis());
+            mutations++;
+        }
+        scheduleWrite();
+    }
+
+    @Override
+    public void saveAll(Map<String, Object> values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Les valeurs ne peuvent pas être null");
+        }
+        ensureConnected();
+        if (values.isEmpty()) {
+            return;
+        }
+
+        long mutation;
+        synchronized (lock) {
+            long currentTime = System.currentTimeMillis();
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                validateKey(entry.getKey());
+                dataConfig.set(entry.getKey(), entry.getValue());
+                dataConfig.set(entry.getKey() + "_lastUpdated", currentTime);
+            }
+            mutation = ++mutations;
+        }
+
+        // Lot durable au retour (appelé hors du thread principal) : une écriture, partagée avec les autres modifications
+        awaitWrite(mutation, "Échec de la sauvegarde groupée YAML");
+    }
+
+    @Override
+    public void updateAll(Map<String, FieldUpdate> updates) {
+        if (updates == null) {
+            throw new IllegalArgumentException("Les mises à jour ne peuvent pas être null");
+        }
+        ensureConnected();
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        long mutation;
+        List<Undo> undo = new ArrayList<>();
+        synchronized (lock) {
+            long currentTime = System.currentTimeMillis();
+            for (Map.Entry<String, FieldUpdate> entry : updates.entrySet()) {
+                String key = entry.getKey();
+                validateKey(key);
+                FieldUpdate update = entry.getValue();
+                if (update == null || update.isEmpty() || !dataConfig.contains(key)) {
+                    continue;
+                }
+
+                update.getSets().forEach((field, value) -> replace(key + "." + field, value, undo));
+                update.getIncrements().forEach((field, delta) -> {
+                    add(key + "." + field, delta.longValue());
+                    undo.add(new Undo(key + "." + field, delta.longValue(), null, null));
+                });
+                update.getUnsets().forEach(field -> replace(key + "." + field, null, undo));
+                dataConfig.set(key + "_lastUpdated", currentTime);
+            }
+            mutation = ++mutations;
+        }
 
-            // Sauvegarde asynchrone pour éviter les blocages
-            Main.getInstance().getServer().getScheduler().runTaskAsynchronously(
-                Main.getInstance(), this::saveToFile);
+        try {
+            awaitWrite(mutation, "Échec de la mise à jour groupée YAML");
+        } catch (RuntimeException e) {
+            // Le lot est signalé en échec et sera renvoyé : sans annulation, ses $inc seraient comptés deux fois
+            rollback(undo);
+            throw e;
+        }
+    }
+
+    /**
+     * Modification annulable d'un champ : incrément (delta) ou remplacement (valeurs avant et après)
+     */
+    private record Undo(String path, long delta, Object previous, Object applied) {
+    }
+
+    private void replace(String path, Object value, List<Undo> undo) {
+        undo.add(new Undo(path, 0L, detach(dataConfig.get(path)), value));
+        dataConfig.set(path, value);
+    }
+
+    private void add(String path, long delta) {
+        long sum = toLong(dataConfig.get(path)) + delta;
+        dataConfig.set(path, sum >= Integer.MIN_VALUE && sum <= Integer.MAX_VALUE ? (Object) (int) sum : (Object) sum);
+    }
+
+    /**
+     * Annule en mémoire une mise à jour non écrite, en ordre inverse
+     * Les incréments sont compensés (les incréments concurrents sont conservés) ; un remplacement
+     * n'est défait que si le champ n'a pas été modifié depuis
+     */
+    private void rollback(List<Undo> undo) {
+        if (undo.isEmpty()) {
+            return;
+        }
+        synchronized (lock) {
+            for (int i = undo.size() - 1; i >= 0; i--) {
+                Undo change = undo.get(i);
+                if (change.delta() != 0L) {
+                    if (dataConfig.contains(change.path())) {
+                        add(change.path(), -change.delta());
+                    }
+                } else if (Objects.deepEquals(detach(dataConfig.get(change.path())), detach(change.applied()))) {
+                    dataConfig.set(change.path(), change.previous());
+                }
+            }
+            mutations++;
         }
+        scheduleWrite();
+    }
+
+    /**
+     * Copie détachée d'une valeur (les sections deviennent des maps)
+     */
+    private static Object detach(Object value) {
+        if (value instanceof ConfigurationSection) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            ((ConfigurationSection) value).getValues(false).forEach((field, fieldValue) -> copy.put(field, detach(fieldValue)));
+            return copy;
+        }
+        return copyValue(value);
     }
 
     @Override
@@ -82,29 +283,49 @@ public class YamlDatabaseService extends AbstractDatabaseService {
         validateKey(key);
         ensureConnected();
 
-        synchronized (dataConfig) {
+        synchronized (lock) {
             Object value = dataConfig.get(key);
             return Optional.ofNullable(value);
         }
     }
 
+    @Override
+    public Map<String, Object> getAll(Collection<String> keys) {
+        if (keys == null) {
+            throw new IllegalArgumentException("Les clés ne peuvent pas être null");
+        }
+        ensureConnected();
+
+        Map<String, Object> results = new HashMap<>();
+        synchronized (lock) {
+            for (String key : keys) {
+                Object value = dataConfig.get(key);
+                if (value != null) {
+                    results.put(key, value);
+                }
+            }
+        }
+        return results;
+    }
+
     @Override
     public boolean deleteData(String key) {
         validateKey(key);
         ensureConnected();
 
-        synchronized (dataConfig) {
-            boolean existed = dataConfig.contains(key);
+        boolean existed;
+        synchronized (lock) {
+            existed = dataConfig.contains(key);
             if (existed) {
                 dataConfig.set(key, null);
                 dataConfig.set(key + "_lastUpdated", null);
-
-                // Sauvegarde asynchrone
-                Main.getInstance().getServer().getScheduler().runTaskAsynchronously(
-                    Main.getInstance(), this::saveToFile);
+                mutations++;
             }
-            return existed;
         }
+        if (existed) {
+            scheduleWrite();
+        }
+        return existed;
     }
 
     @Override
@@ -112,7 +333,7 @@ public class YamlDatabaseService extends AbstractDatabaseService {
         validateKey(key);
         ensureConnected();
 
-        synchronized (dataConfig) {
+        synchronized (lock) {
             return dataConfig.contains(key);
         }
     }
@@ -126,7 +347,7 @@ public class YamlDatabaseService extends AbstractDatabaseService {
 
         Map<String, Object> results = new HashMap<>();
 
-        synchronized (dataConfig) {
+        synchronized (lock) {
             Set<String> keys = dataConfig.getKeys(true);
             for (String key : keys) {
                 if (key.startsWith(prefix) && !key.endsWith("_lastUpdated")) {
@@ -141,6 +362,65 @@ public class YamlDatabaseService extends AbstractDatabaseService {
         return results;
     }
 
+    @Override
+    public List<Map<String, Object>> findTop(String prefix, String sortField, int limit) {
+        if (prefix == null || sortField == null) {
+            throw new IllegalArgumentException("Le préfixe et le champ de tri ne peuvent pas être null");
+        }
+        ensureConnected();
+
+        List<Map<String, Object>> results = new ArrayList<>();
+
+        synchronized (lock) {
+            // Seules les clés de premier niveau sont des entrées (pas de parcours profond)
+            for (String key : dataConfig.getKeys(false)) {
+                if (!key.startsWith(prefix) || key.endsWith("_lastUpdated")) {
+                    continue;
+                }
+
+                Map<String, Object> projected = projectRankingFields(dataConfig.get(key));
+                if (projected != null) {
+                    results.add(projected);
+                }
+            }
+        }
+
+        Comparator<Map<String, Object>> bySortField = Comparator.comparingLong(
+            entry -> toLong(entry.get(sortField)));
+        results.sort(StoredDocuments.rankingOrder(sortField, bySortField));
+
+        int max = Math.max(1, limit);
+        return results.size() > max ? new ArrayList<>(results.subList(0, max)) : results;
+    }
+
+    /**
+     * Extrait uniquement les champs utiles au classement d'une entrée YAML
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> projectRankingFields(Object value) {
+        Map<String, Object> source;
+        if (value instanceof ConfigurationSection) {
+            source = ((ConfigurationSection) value).getValues(false);
+        } else if (value instanceof Map) {
+            source = (Map<String, Object>) value;
+        } else {
+            return null;
+        }
+
+        Map<String, Object> projected = new HashMap<>();
+        for (String field : new String[] { "uuid", "name", "level", "lastSeen", "buttonAmount" }) {
+            Object fieldValue = source.get(field);
+            if (fieldValue != null) {
+                projected.put(field, fieldValue);
+            }
+        }
+        return projected;
+    }
+
+    private long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
     @Override
     public void backup() {
         ensureConnected();
@@ -154,9 +434,11 @@ public class YamlDatabaseService extends AbstractDatabaseService {
             String timestamp = String.valueOf(System.currentTimeMillis());
             File backupFile = new File(backupDir, "data_backup_" + timestamp + ".yml");
 
-            synchronized (dataConfig) {
-                dataConfig.save(backupFile);
+            YamlConfiguration snapshot;
+            synchronized (lock) {
+                snapshot = snapshot();
             }
+            writeAtomically(backupFile, snapshot.saveToString().getBytes(StandardCharsets.UTF_8));
 
             Utils.sendConsoleLog("&aSauvegarde YAML créée: " + backupFile.getName());
 
@@ -165,27 +447,183 @@ public class YamlDatabaseService extends AbstractDatabaseService {
         }
     }
 
+    // ==================== Écriture différée ====================
+
     /**
-     * Méthode privée pour sauvegarder le fichier de manière thread-safe
+     * Programme une écriture dans l'intervalle si aucune n'est en attente : les modifications suivantes
+     * seront couvertes par la même écriture
      */
-    private void saveToFile() {
+    private void scheduleWrite() {
+        ScheduledExecutorService executor = writer;
+        if (executor == null || !writeScheduled.compareAndSet(false, true)) {
+            return;
+        }
         try {
-            synchronized (dataConfig) {
-                dataConfig.save(dataFile);
-            }
+            executor.schedule(this::runScheduledWrite, writeIntervalMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Arrêt en cours : la dernière écriture de doDisconnect couvre la modification
+            writeScheduled.set(false);
+        }
+    }
+
+    private void runScheduledWrite() {
+        // Réarmé avant la copie : une modification concurrente programme l'écriture suivante
+        writeScheduled.set(false);
+        try {
+            writeSnapshot();
         } catch (IOException e) {
             Utils.sendConsoleLog("&cErreur lors de la sauvegarde du fichier YAML: " + e.getMessage());
+            // Nouvelle tentative à l'intervalle suivant, avec l'état le plus récent
+            scheduleWrite();
         }
     }
 
+    /**
+     * Attend qu'une écriture couvre la modification donnée (sauvegardes groupées, qui doivent être durables)
+     */
+    private void awaitWrite(long mutation, String failureMessage) {
+        if (writtenMutations >= mutation) {
+            return;
+        }
+        ScheduledExecutorService executor = writer;
+        if (executor == null) {
+            throw new IllegalStateException(failureMessage + " : service arrêté");
+        }
+        try {
+            Future<?> write = executor.submit(() -> {
+                if (writtenMutations < mutation) {
+                    writeSnapshot();
+                }
+                return null;
+            });
+            write.get();
+        } catch (ExecutionException e) {
+            Utils.sendConsoleLog("&cErreur lors de la sauvegarde du fichier YAML: " + e.getCause().getMessage());
+            throw new IllegalStateException(failureMessage, e.getCause());
+        } catch (RejectedExecutionException | CancellationException e) {
+            throw new IllegalStateException(failureMessage + " : service arrêté", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(failureMessage, e);
+        }
+    }
+
+    /**
+     * Écrit l'état courant s'il reste des modifications non écrites (thread d'écriture, ou arrêt)
+     * Seule la copie se fait sous le verrou : la sérialisation et l'écriture ne bloquent pas les lectures
+     */
+    private void writeSnapshot() throws IOException {
+        long snapshotMutations;
+        YamlConfiguration snapshot;
+        synchronized (lock) {
+            snapshotMutations = mutations;
+            if (snapshotMutations == writtenMutations) {
+                return;
+            }
+            snapshot = snapshot();
+        }
+
+        long start = System.nanoTime();
+        try {
+            byte[] content = snapshot.saveToString().getBytes(StandardCharsets.UTF_8);
+            writeAtomically(dataFile, content);
+            lastWriteBytes = content.length;
+        } catch (IOException | RuntimeException e) {
+            failedWrites.incrementAndGet();
+            throw e;
+        }
+        lastWriteNanos = System.nanoTime() - start;
+        writtenMutations = snapshotMutations;
+        writes.incrementAndGet();
+    }
+
+    /**
+     * Copie des données (appelé sous le verrou) : seules les valeurs modifiables sont dupliquées
+     */
+    private YamlConfiguration snapshot() {
+        YamlConfiguration copy = new YamlConfiguration();
+        for (String key : dataConfig.getKeys(true)) {
+            Object value = dataConfig.get(key);
+            if (!(value instanceof ConfigurationSection)) {
+                copy.set(key, copyValue(value));
+            }
+        }
+        return copy;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((field, fieldValue) -> copy.put(field, copyValue(fieldValue)));
+            return copy;
+        }
+        if (value instanceof Collection) {
+            List<Object> copy = new ArrayList<>(((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        }
+        return value;
+    }
+
+    /**
+     * Écrit dans un fichier temporaire synchronisé sur disque, puis le renomme sur la cible :
+     * un arrêt brutal laisse l'ancienne ou la nouvelle version, jamais un fichier tronqué
+     */
+    private static void writeAtomically(File target, byte[] content) throws IOException {
+        Path path = target.toPath();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+            out.write(content);
+            out.getFD().sync();
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Modifications pas encore écrites dans data.yml
+     */
+    public long getPendingWrites() {
+        return Math.max(0L, mutations - writtenMutations);
+    }
+
+    public long getWriteCount() {
+        return writes.get();
+    }
+
+    public long getFailedWriteCount() {
+        return failedWrites.get();
+    }
+
+    public String getStats() {
+        long count = writes.get();
+        return "&7Écritures YAML: " + getPendingWrites() + " modifications en attente"
+            + (writeScheduled.get() ? " (écriture programmée)" : "") + ", "
+            + count + " écritures pour " + writtenMutations + " modifications, "
+            + failedWrites.get() + " échecs, dernière écriture "
+            + TimeUnit.NANOSECONDS.toMillis(lastWriteNanos) + "ms / " + lastWriteBytes / 1024 + " Ko"
+            + " (intervalle " + writeIntervalMs + "ms)";
+    }
+
     /**
      * Recharge les données depuis le fichier
      */
     public void reload() {
         ensureConnected();
 
-        synchronized (dataConfig) {
+        // Les modifications en attente sont écrites avant d'être remplacées par le contenu du fichier
+        awaitWrite(mutations, "Échec de la sauvegarde YAML avant rechargement");
+        synchronized (lock) {
             dataConfig = YamlConfiguration.loadConfiguration(dataFile);
+            writtenMutations = mutations;
             Utils.sendConsoleLog("&aDonnées YAML rechargées.");
         }
     }
@@ -303,12 +303,9 @@ public class LeaderboardGuiHandler implements IGuiHandler {
         }
 
         // Find the player's position
-        String playerUuid = player.getUniqueId().toString();
-        for (int i = 0; i < topPlayers.size(); i++) {
-            if (topPlayers.get(i).getUuid().equals(playerUuid)) {
-                notificationService.sendMessage(player, "gui.leaderboard.info.your-rank", (i + 1));
-                break;
-            }
+        int rank = playerService.getPlayerRank(player.getUniqueId().toString());
+        if (rank > 0 && rank <= topPlayers.size()) {
+            notificationService.sendMessage(player, "gui.leaderboard.info.your-rank", rank);
         }
     }
 
@@ -35,16 +35,8 @@ public class LevelsGuiHandler implements IGuiHandler {
         Inventory inventory = Bukkit.createInventory(null, 54, "§6§lNiveaux - " + player.getName());
 
         // Récupérer les données du joueur
-        String playerUuid = player.getUniqueId().toString();
-        Optional<IPlayerService.PlayerData> playerDataOpt = playerService.getPlayerData(playerUuid);
-
-        if (playerDataOpt.isEmpty()) {
-            // Créer un nouveau profil si nécessaire
-            playerService.createPlayer(playerUuid, player.getName());
-            playerDataOpt = playerService.getPlayerData(playerUuid);
-        }
-
-        IPlayerService.PlayerData playerData = playerDataOpt.get();
+        // Créer un nouveau profil si nécessaire (seulement si son absence est confirmée)
+        IPlayerService.PlayerData playerData = playerService.getOrCreatePlayer(player.getUniqueId(), player.getName());
 
         // Remplir l'inventaire
         fillLevelsInventory(inventory, playerData);
@@ -1,10 +1,13 @@
 package loyfael.listeners;
 
 import loyfael.Main;
+import loyfael.api.interfaces.ICacheService;
 import loyfael.api.interfaces.IPlayerService;
 import loyfael.api.interfaces.IMissionService;
 import loyfael.api.interfaces.INotificationService;
+import loyfael.core.services.LevelsConfigService.MissionKind;
 import loyfael.core.services.MissionService;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -12,10 +15,15 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerFishEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
 /**
  * Listener principal amélioré avec architecture SOLID
  * Principe de responsabilité unique : gestion des événements uniquement
@@ -26,28 +34,50 @@ public class ImprovedEventListener implements Listener {
     private final IPlayerService playerService;
     private final IMissionService missionService;
     private final INotificationService notificationService;
-
-    // Cache local pour éviter les rafraîchissements trop fréquents
-    private long lastCacheRefresh = 0;
-    private static final long CACHE_REFRESH_COOLDOWN = 5000; // 5 secondes
+    private final ICacheService cacheService;
+    private final Executor asyncExecutor;
+    private final Executor mainThreadExecutor;
+    private final Logger logger;
 
     public ImprovedEventListener() {
-        Main main = Main.getInstance();
-        this.playerService = main.getPlayerService();
-        this.missionService = main.getMissionService();
-        this.notificationService = main.getNotificationService();
+        this(Main.getInstance().getPlayerService(), Main.getInstance().getMissionService(),
+            Main.getInstance().getNotificationService(), Main.getInstance().getCacheService(),
+            task -> Main.getInstance().getServer().getScheduler().runTaskAsynchronously(Main.getInstance(), task),
+            task -> Main.getInstance().getServer().getScheduler().runTask(Main.getInstance(), task),
+            Main.getInstance().getLogger());
     }
 
     /**
-     * Rafraîchit le cache intelligemment avec cooldown pour éviter le spam
+     * Services, exécution hors du thread principal / sur le thread principal et journal fournis par l'appelant
+     * (ex: simulateur de charge)
      */
-    private void smartCacheRefresh() {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastCacheRefresh > CACHE_REFRESH_COOLDOWN) {
-            if (missionService instanceof MissionService) {
-                ((MissionService) missionService).refreshMissionsCache();
-                lastCacheRefresh = currentTime;
-            }
+    public ImprovedEventListener(IPlayerService playerService, IMissionService missionService,
+                                 INotificationService notificationService, ICacheService cacheService,
+                                 Executor asyncExecutor, Executor mainThreadExecutor, Logger logger) {
+        this.playerService = playerService;
+        this.missionService = missionService;
+        this.notificationService = notificationService;
+        this.cacheService = cacheService;
+        this.asyncExecutor = asyncExecutor;
+        this.mainThreadExecutor = mainThreadExecutor;
+        this.logger = logger;
+    }
+
+    /**
+     * Prépare le profil avant l'entrée en jeu (thread asynchrone de connexion) :
+     * une lecture, fusion, et données en cache dès le premier événement ; l'écriture attend PlayerJoinEvent
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        try {
+            playerService.preparePlayer(event.getUniqueId(), event.getName());
+        } catch (Exception e) {
+            // Le profil sera préparé après la connexion
+            logger.severe("Erreur lors du chargement du joueur " + event.getName() + ": " + e.getMessage());
         }
     }
 
@@ -57,26 +87,31 @@ public class ImprovedEventListener implements Listener {
     @EventHandler(priority = EventPriority.HIGH)
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
-        String playerUuid = player.getUniqueId().toString();
 
-        // Traitement asynchrone pour éviter de bloquer le thread principal
-        Main.getInstance().getServer().getScheduler().runTaskAsynchronously(Main.getInstance(), () -> {
-            try {
-                // Vérifier si le joueur existe, sinon le créer
-                if (!playerService.playerExists(playerUuid)) {
-                    playerService.createPlayer(playerUuid, player.getName());
-                } else {
-                    // Mettre à jour la dernière connexion
-                    playerService.updateLastSeen(playerUuid);
-                }
+        // Les données d'un joueur connecté ne doivent jamais être évincées du cache
+        cacheService.setPinned(player.getUniqueId(), true);
 
-                // Rafraîchir le cache des missions actives (nouveau joueur connecté)
-                if (missionService instanceof MissionService) {
-                    ((MissionService) missionService).refreshMissionsCache();
+        // Profil déjà préparé à la pré-connexion : routage immédiat, sans lecture en base
+        boolean cached = cacheService.getPlayer(player.getUniqueId()) != null;
+        if (cached) {
+            missionService.trackPlayer(player.getUniqueId());
+        }
+
+        // Connexion acceptée : écriture du profil préparé, ou préparation complète (échec du chargement,
+        // rechargement du plugin), hors du thread principal
+        asyncExecutor.execute(() -> {
+            try {
+                if (!playerService.commitPreparedPlayer(player.getUniqueId())) {
+                    playerService.preparePlayer(player.getUniqueId(), player.getName());
+                    playerService.commitPreparedPlayer(player.getUniqueId());
+                    // Router les événements du joueur selon ses missions actives
+                    missionService.trackPlayer(player.getUniqueId());
+                } else if (!cached) {
+                    missionService.trackPlayer(player.getUniqueId());
                 }
 
             } catch (Exception e) {
-                Main.getInstance().getLogger().severe("Erreur lors de la connexion du joueur " + player.getName() + ": " + e.getMessage());
+                logger.severe("Erreur lors de la connexion du joueur " + player.getName() + ": " + e.getMessage());
             }
         });
     }
@@ -87,11 +122,17 @@ public class ImprovedEventListener implements Listener {
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
-        String playerUuid = player.getUniqueId().toString();
+        UUID uuid = player.getUniqueId();
+        String playerUuid = uuid.toString();
 
         // Traitement asynchrone
-        Main.getInstance().getServer().getScheduler().runTaskAsynchronously(Main.getInstance(), () -> {
+        asyncExecutor.execute(() -> {
             try {
+                // Les derniers événements du joueur, encore dans la file de traitement, comptent dans la sauvegarde
+                if (!missionService.awaitPendingEvents()) {
+                    logger.warning("Événements de mission de " + player.getName() + " non traités avant la sauvegarde de déconnexion");
+                }
+
                 // Sauvegarder toutes les données modifiées du joueur avant déconnexion
                 if (missionService instanceof MissionService) {
                     ((MissionService) missionService).cleanupPlayerData(playerUuid);
@@ -100,81 +141,63 @@ public class ImprovedEventListener implements Listener {
                 // Mettre à jour la dernière déconnexion
                 playerService.updateLastSeen(playerUuid);
 
-                // Rafraîchir le cache des missions actives (joueur déconnecté)
-                if (missionService instanceof MissionService) {
-                    ((MissionService) missionService).refreshMissionsCache();
-                }
-
             } catch (Exception e) {
-                Main.getInstance().getLogger().severe("Erreur lors de la déconnexion du joueur " + player.getName() + ": " + e.getMessage());
+                logger.severe("Erreur lors de la déconnexion du joueur " + player.getName() + ": " + e.getMessage());
             }
+
+            // Sur le thread principal, comme la connexion : un joueur déjà revenu garde son profil épinglé
+            // et ses routes de missions
+            mainThreadExecutor.execute(() -> {
+                if (Bukkit.getPlayer(uuid) != null) {
+                    return;
+                }
+                // Le joueur redevient évinçable (après la dernière sauvegarde)
+                cacheService.setPinned(uuid, false);
+                // Plus aucun événement à router pour ce joueur
+                missionService.untrackPlayer(uuid);
+            });
         });
     }
 
     /**
      * Traite tous les événements pour les missions automatiquement - Optimisé pour les performances
+     * La table de routage écarte en O(1), sans accès aux données joueur, les événements sans mission concernée
      */
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBlockBreak(BlockBreakEvent event) {
-        if (missionService instanceof MissionService) {
-            MissionService ms = (MissionService) missionService;
-
-            if (!ms.hasActiveBlockBreakMissions()) {
-                smartCacheRefresh(); // Utilise le rafraîchissement intelligent
-                if (!ms.hasActiveBlockBreakMissions()) {
-                    return;
-                }
-            }
+        Player player = event.getPlayer();
+        if (!missionService.isRelevant(player.getUniqueId(), MissionKind.BLOCK_BREAK, event.getBlock().getType())) {
+            return;
         }
-        missionService.processEvent(event.getPlayer(), event);
+        missionService.processEvent(player, event);
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onBlockPlace(BlockPlaceEvent event) {
-        if (missionService instanceof MissionService) {
-            MissionService ms = (MissionService) missionService;
-
-            if (!ms.hasActiveBlockPlaceMissions()) {
-                smartCacheRefresh(); // Utilise le rafraîchissement intelligent
-                if (!ms.hasActiveBlockPlaceMissions()) {
-                    return;
-                }
-            }
+        Player player = event.getPlayer();
+        if (!missionService.isRelevant(player.getUniqueId(), MissionKind.BLOCK_PLACE, event.getBlock().getType())) {
+            return;
         }
-        missionService.processEvent(event.getPlayer(), event);
+        missionService.processEvent(player, event);
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onEntityDeath(EntityDeathEvent event) {
-        if (missionService instanceof MissionService) {
-            MissionService ms = (MissionService) missionService;
-
-            if (!ms.hasActiveKillMissions()) {
-                smartCacheRefresh(); // Utilise le rafraîchissement intelligent
-                if (!ms.hasActiveKillMissions()) {
-                    return;
-                }
-            }
-        }
-
         if (event.getEntity().getKiller() instanceof Player) {
             Player killer = (Player) event.getEntity().getKiller();
+            if (!missionService.isRelevant(killer.getUniqueId(), event.getEntity().getType())) {
+                return;
+            }
             missionService.processEvent(killer, event);
         }
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onPlayerFish(PlayerFishEvent event) {
-        if (missionService instanceof MissionService) {
-            MissionService ms = (MissionService) missionService;
-
-            if (!ms.hasActiveFishMissions()) {
-                smartCacheRefresh(); // Utilise le rafraîchissement intelligent
-                if (!ms.hasActiveFishMissions()) {
-                    return;
-                }
-            }
+        Player player = event.getPlayer();
+        if (!missionService.isRelevant(player.getUniqueId(), MissionKind.FISH)) {
+            return;
         }
-        missionService.processEvent(event.getPlayer(), event);
+        missionService.processEvent(player, event);
     }
 }
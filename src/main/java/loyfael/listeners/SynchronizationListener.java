@@ -6,10 +6,16 @@ import loyfael.api.interfaces.IConfigurationService;
 import loyfael.utils.Utils;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
-import org.bukkit.Bukkit;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Listener pour la synchronisation automatique des joueurs
@@ -17,16 +23,33 @@ import org.bukkit.Bukkit;
  */
 public class SynchronizationListener implements Listener {
 
+    private static final long PRE_LOGIN_TTL_MS = 60L * 1000L; // Connexion refusée : oubliée après 1 minute
+
     private final ISynchronizationService syncService;
     private final IConfigurationService configService;
+    // Heure de pré-connexion par joueur : le profil a été lu après cet instant
+    private final Map<UUID, Long> preLoginTimes = new ConcurrentHashMap<>();
 
     public SynchronizationListener() {
         this.syncService = Main.getInstance().getSynchronizationService();
         this.configService = Main.getInstance().getConfigurationService();
     }
 
+    /**
+     * Mémorise l'heure de pré-connexion, avant la lecture du profil (ImprovedEventListener, priorité MONITOR)
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        long now = System.currentTimeMillis();
+        preLoginTimes.values().removeIf(time -> now - time > PRE_LOGIN_TTL_MS);
+        preLoginTimes.put(event.getUniqueId(), now);
+    }
+
     @EventHandler(priority = EventPriority.LOWEST)
     public void onPlayerJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        Long loadedAt = preLoginTimes.remove(player.getUniqueId());
+
         Utils.sendConsoleLog("&9[SYNC] Joueur connecté: " + event.getPlayer().getName());
         
         if (!configService.getConfig().getBoolean("synchronization.enabled", false)) {
@@ -39,36 +62,37 @@ public class SynchronizationListener implements Listener {
             return;
         }
 
-        String playerUuid = event.getPlayer().getUniqueId().toString();
-        Utils.sendConsoleLog("&9[SYNC] Démarrage de la synchronisation pour " + event.getPlayer().getName() + " (UUID: " + playerUuid + ")");
-        
-        // Synchroniser les données du joueur depuis les autres serveurs (petit délai pour laisser le temps à la connexion)
-        Bukkit.getScheduler().runTaskLaterAsynchronously(Main.getInstance(), () -> {
-            try {
-                Utils.sendConsoleLog("&9[SYNC] Appel de forceSync pour " + event.getPlayer().getName());
-                syncService.forceSync(playerUuid).thenAccept(success -> {
-                    if (success) {
-                        Utils.sendConsoleLog("&a[SYNC] ✅ Synchronisation réussie pour " + event.getPlayer().getName());
-                        
-                        // Notifier le joueur si activé
-                        if (configService.getConfig().getBoolean("synchronization.notify-players", false)) {
-                            Bukkit.getScheduler().runTask(Main.getInstance(), () -> {
-                                event.getPlayer().sendMessage("§aDonnées synchronisées avec le réseau !");
-                            });
-                        }
-                    } else {
-                        Utils.sendConsoleLog("&c[SYNC] ❌ Échec de la synchronisation pour " + event.getPlayer().getName());
-                    }
-                });
-            } catch (Exception e) {
-                Utils.sendConsoleLog("&c[SYNC] Erreur lors de la synchronisation de " + event.getPlayer().getName() + ": " + e.getMessage());
-                e.printStackTrace();
+        // Le profil a été relu et fusionné à la pré-connexion (PlayerService.preparePlayer), mais l'écriture
+        // différée du serveur précédent peut arriver après : vérification des métadonnées après un délai,
+        // rechargement fusionné seulement si un autre serveur a écrit depuis
+        String playerUuid = player.getUniqueId().toString();
+        long since = loadedAt != null ? loadedAt : 0L;
+        long delay = Math.max(1L, configService.getConfig().getLong("synchronization.auto-sync.join-check-delay", 40L));
+        Bukkit.getScheduler().runTaskLater(Main.getInstance(), () -> {
+            if (!player.isOnline()) {
+                return;
             }
-        }, 20L); // 1 seconde de délai
+            syncService.checkFreshness(playerUuid, since).thenAccept(reloaded -> {
+                if (reloaded) {
+                    Utils.sendConsoleLog("&9[SYNC] Profil de " + player.getName() + " rechargé (modifié par un autre serveur)");
+                }
+                // Notification une fois la vérification (et l'éventuel rechargement) terminée, sur le thread principal
+                if (configService.getConfig().getBoolean("synchronization.notify-players", false)) {
+                    Bukkit.getScheduler().runTask(Main.getInstance(), () -> {
+                        if (player.isOnline()) {
+                            player.sendMessage("§aDonnées synchronisées avec le réseau !");
+                        }
+                    });
+                }
+            });
+        }, delay);
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerQuit(PlayerQuitEvent event) {
+        // État de synchronisation mémorisé pour les joueurs connectés uniquement
+        syncService.forgetPlayer(event.getPlayer().getUniqueId().toString());
+
         if (!configService.getConfig().getBoolean("synchronization.enabled", false)) {
             return;
         }
@@ -78,7 +102,7 @@ public class SynchronizationListener implements Listener {
         }
 
         String playerUuid = event.getPlayer().getUniqueId().toString();
-        
+
         // Synchroniser les données avant que le joueur parte
         try {
             syncService.syncPlayerData(playerUuid).thenAccept(success -> {
@@ -1,7 +1,6 @@
 package loyfael.utils;
 
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -293,16 +292,8 @@ public final class Utils {
             IPlayerService playerService = plugin.getPlayerService();
             if (playerService == null) return 0;
 
-            String playerUuid = player.getUniqueId().toString();
-            Optional<IPlayerService.PlayerData> playerData = playerService.getPlayerData(playerUuid);
-
-            if (playerData.isPresent()) {
-                return playerData.get().getButtonAmount();
-            }
-
-            // Si aucune donnée n'existe, créer un nouveau profil
-            playerService.createPlayer(playerUuid, player.getName());
-            return 0;
+            // Profil créé seulement si son absence est confirmée (une erreur de lecture lève une exception)
+            return playerService.getOrCreatePlayer(player.getUniqueId(), player.getName()).getButtonAmount();
 
         } catch (Exception e) {
             plugin.getLogger().warning("Error while getting button amount for " + player.getName() + ": " + e.getMessage());
@@ -324,18 +315,9 @@ public final class Utils {
             if (playerService == null) return;
 
             String playerUuid = player.getUniqueId().toString();
-            Optional<IPlayerService.PlayerData> playerDataOpt = playerService.getPlayerData(playerUuid);
-
-            if (playerDataOpt.isPresent()) {
-                IPlayerService.PlayerData playerData = playerDataOpt.get();
-                playerData.setButtonAmount(amount);
-                playerService.savePlayerData(playerUuid, playerData);
-            } else {
-                // Créer un nouveau profil avec le montant spécifié
-                IPlayerService.PlayerData newData = playerService.createPlayer(playerUuid, player.getName());
-                newData.setButtonAmount(amount);
-                playerService.savePlayerData(playerUuid, newData);
-            }
+            IPlayerService.PlayerData playerData = playerService.getOrCreatePlayer(player.getUniqueId(), player.getName());
+            playerData.setButtonAmount(amount);
+            playerService.savePlayerData(playerUuid, playerData);
 
         } catch (Exception e) {
             plugin.getLogger().warning("Error while setting button amount for " + player.getName() + ": " + e.getMessage());
@@ -2,7 +2,6 @@ package loyfael.utils.hooks;
 
 import java.text.DecimalFormat;
 import java.util.Objects;
-import java.util.Optional;
 
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
@@ -59,20 +58,13 @@ public class PlaceholdersAPI extends PlaceholderExpansion {
 
         String playerUuid = player.getUniqueId().toString();
 
-        // Récupérer les données du joueur via le nouveau service
-        Optional<IPlayerService.PlayerData> playerDataOpt = playerService.getPlayerData(playerUuid);
-
-        if (playerDataOpt.isEmpty()) {
-            // Créer un nouveau profil si nécessaire
-            playerService.createPlayer(playerUuid, player.getName());
-            playerDataOpt = playerService.getPlayerData(playerUuid);
-        }
-
-        if (playerDataOpt.isEmpty()) {
-            return "0"; // Fallback si les données ne peuvent pas être créées
+        // Récupérer les données du joueur via le nouveau service (profil créé seulement si absent)
+        IPlayerService.PlayerData playerData;
+        try {
+            playerData = playerService.getOrCreatePlayer(player.getUniqueId(), player.getName());
+        } catch (Exception e) {
+            return "0"; // Fallback si les données ne peuvent pas être lues
         }
-
-        IPlayerService.PlayerData playerData = playerDataOpt.get();
         DecimalFormat df = new DecimalFormat("#,###");
 
         // Gestion des placeholders
@@ -112,16 +104,7 @@ public class PlaceholdersAPI extends PlaceholderExpansion {
      */
     private int getPlayerRank(String playerUuid) {
         try {
-            var topPlayers = playerService.getTopPlayers(1000); // Récupérer un grand nombre pour trouver le rang
-
-            for (int i = 0; i < topPlayers.size(); i++) {
-                if (topPlayers.get(i).getUuid().equals(playerUuid)) {
-                    return i + 1; // Rang basé sur la position (1-indexé)
-                }
-            }
-
-            return topPlayers.size() + 1; // Si non trouvé, retourner le rang suivant
-
+            return playerService.getPlayerRank(playerUuid); // Lecture O(log n) dans l'index du classement
         } catch (Exception e) {
             Main.getInstance().getLogger().warning("Erreur lors du calcul du rang pour " + playerUuid + ": " + e.getMessage());
             return 0;
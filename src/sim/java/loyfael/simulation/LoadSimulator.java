@@ -0,0 +1,525 @@
+package loyfael.simulation;
+
+import loyfael.api.interfaces.INotificationService;
+import loyfael.api.interfaces.IPlayerService.PlayerData;
+import loyfael.core.services.CacheService;
+import loyfael.core.services.InMemoryDatabaseService;
+import loyfael.core.services.MissionService;
+import loyfael.core.services.PlayerService;
+import loyfael.listeners.ImprovedEventListener;
+import org.bukkit.entity.Player;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Simulation de charge sans serveur : N joueurs virtuels génèrent des événements de mission
+ * (cassage, pose, combat, pêche), se connectent et se déconnectent et ouvrent le classement,
+ * à travers ImprovedEventListener → MissionService → PlayerService → stockage en mémoire (latence simulée)
+ *
+ * Rapport : événements/s, latences p50/p99/p999 sur le thread principal, durée des ticks,
+ * allocations par événement et opérations de stockage par événement
+ *
+ * Lancement : mvn -Psim verify -Dsim.args="--players=1000 --db-latency=5"
+ */
+public final class LoadSimulator {
+
+    /**
+     * Activités mesurées sur le thread principal (la pré-connexion est mesurée sur son thread asynchrone)
+     */
+    private enum Activity {
+        BLOCK_BREAK("block break"),
+        BLOCK_PLACE("block place"),
+        KILL("kill"),
+        FISH("fish"),
+        PRE_LOGIN("pre-login (async)"),
+        JOIN("join"),
+        QUIT("quit"),
+        LEADERBOARD("leaderboard open"),
+        SCHEDULED("scheduled task");
+
+        private final String label;
+
+        Activity(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final double BREAK_SHARE = 0.65;
+    private static final double PLACE_SHARE = 0.20;
+    private static final double KILL_SHARE = 0.10;
+
+    private final SimulationSettings settings;
+    private final SimulatedServer server = new SimulatedServer();
+    private final SplittableRandom random;
+
+    private InMemoryDatabaseService storage;
+    private CacheService cacheService;
+    private PlayerService playerService;
+    private MissionService missionService;
+    private ImprovedEventListener listener;
+
+    private VirtualPlayer[] population;
+    private final List<VirtualPlayer> online = new ArrayList<>();
+    private final ConcurrentLinkedQueue<PreparedJoin> readyToJoin = new ConcurrentLinkedQueue<>();
+    private int joining;
+
+    private final Map<Activity, LatencyHistogram> latencies = new EnumMap<>(Activity.class);
+    private final LatencyHistogram ticks = new LatencyHistogram();
+    private final Map<UUID, Integer> knownLevels = new ConcurrentHashMap<>();
+    private final LongAdder levelUps = new LongAdder();
+    private long events;
+    private long tickOverruns;
+    private double leaderboardBudget;
+
+    private LoadSimulator(SimulationSettings settings) {
+        this.settings = settings;
+        this.random = new SplittableRandom(settings.seed);
+        for (Activity activity : Activity.values()) {
+            latencies.put(activity, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) {
+        for (String arg : args) {
+            if ("--help".equals(arg) || "-h".equals(arg)) {
+                System.out.print(SimulationSettings.usage());
+                return;
+            }
+        }
+
+        SimulationSettings settings;
+        try {
+            settings = SimulationSettings.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(SimulationSettings.usage());
+            System.exit(2);
+            return;
+        }
+
+        new LoadSimulator(settings).run();
+        // Les services laissent des threads d'arrière-plan non démons (nettoyage du cache)
+        System.exit(0);
+    }
+
+    private void run() {
+        setUp();
+
+        int warmupTicks = settings.warmupSeconds * settings.ticksPerSecond;
+        int measuredTicks = settings.durationSeconds * settings.ticksPerSecond;
+        long tickNanos = TimeUnit.SECONDS.toNanos(1) / settings.ticksPerSecond;
+
+        System.out.println("Warmup: " + settings.warmupSeconds + "s, ramping up to " + settings.players + " players");
+        long deadline = System.nanoTime();
+        for (int tick = 0; tick < warmupTicks; tick++) {
+            deadline = tick(deadline, tickNanos);
+        }
+
+        System.out.println("Measuring: " + settings.durationSeconds + "s");
+        resetMeasurements();
+        AllocationProbe allocations = new AllocationProbe(server.getMainThread());
+        long start = System.nanoTime();
+        for (int tick = 0; tick < measuredTicks; tick++) {
+            deadline = tick(deadline, tickNanos);
+        }
+        long elapsed = System.nanoTime() - start;
+        allocations.stop();
+
+        report(elapsed, allocations);
+        tearDown();
+    }
+
+    // ==================== Mise en place ====================
+
+    private void setUp() {
+        server.install();
+        SimulationConfiguration config = new SimulationConfiguration(settings);
+
+        storage = new InMemoryDatabaseService(config);
+        storage.initialize();
+        populate(config);
+        storage.loadSettings();
+
+        cacheService = new CacheService(config);
+        cacheService.initialize();
+        playerService = new PlayerService(storage, cacheService, config);
+        playerService.initialize();
+        missionService = new MissionService(playerService, new SilentNotifications(),
+            new SimulatedLevels(settings.levels, settings.objectiveAmount), config);
+        missionService.initialize();
+        playerService.rebuildLeaderboard();
+        // L'écouteur reçoit aussi les chargements et sauvegardes : seule une hausse compte comme passage de niveau
+        playerService.addLevelListener((uuid, level) -> {
+            Integer previous = knownLevels.put(uuid, level);
+            if (previous != null && level > previous) {
+                levelUps.increment();
+            }
+        });
+
+        listener = new ImprovedEventListener(playerService, missionService, new SilentNotifications(), cacheService,
+            server::runAsync, server::runSync, server.getLogger());
+    }
+
+    /**
+     * Profils stockés (sans latence simulée) : niveaux répartis sur la première moitié de la saison
+     */
+    private void populate(SimulationConfiguration config) {
+        System.out.println("Storing " + settings.profiles + " player profiles");
+        storage.configure(0, 0, 0, 0);
+
+        // Service de chargement sans écriture différée, au format configuré
+        config.getConfig().set("system.write-behind.enabled", false);
+        CacheService loaderCache = new CacheService();
+        PlayerService loader = new PlayerService(storage, loaderCache, config);
+        loader.initialize();
+
+        population = new VirtualPlayer[settings.profiles];
+        Map<String, PlayerData> batch = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < settings.profiles; i++) {
+            UUID uuid = new UUID(0x53494d0000000000L, i);
+            String name = "Sim" + i;
+            population[i] = new VirtualPlayer(uuid, name);
+
+            PlayerData data = new PlayerData(uuid.toString(), name, random.nextInt(Math.max(1, settings.levels / 2)),
+                now - random.nextLong(TimeUnit.DAYS.toMillis(30)), 0);
+            batch.put(uuid.toString(), data);
+            if (batch.size() == 500) {
+                loader.saveAllPlayerData(batch);
+                batch = new HashMap<>();
+            }
+        }
+        loader.saveAllPlayerData(batch);
+        loader.shutdown();
+        loaderCache.shutdown();
+
+        config.getConfig().set("system.write-behind.enabled", settings.writeBehind);
+    }
+
+    private void tearDown() {
+        missionService.shutdown();
+        playerService.shutdown();
+        cacheService.shutdown();
+        server.shutdown();
+        storage.disconnect();
+    }
+
+    // ==================== Tick ====================
+
+    private long tick(long deadline, long tickNanos) {
+        long tickStart = System.nanoTime();
+
+        // Tâches programmées par le plugin (complétions de mission en mode asynchrone)
+        Runnable task;
+        while ((task = server.pollSyncTask()) != null) {
+            long start = System.nanoTime();
+            task.run();
+            latencies.get(Activity.SCHEDULED).record(System.nanoTime() - start);
+        }
+
+        PreparedJoin join;
+        while ((join = readyToJoin.poll()) != null) {
+            latencies.get(Activity.PRE_LOGIN).record(join.preLoginNanos);
+            join(join.player);
+        }
+
+        churn();
+        fireEvents();
+        openLeaderboards();
+
+        long tickEnd = System.nanoTime();
+        ticks.record(tickEnd - tickStart);
+
+        long next = deadline + tickNanos;
+        if (tickEnd > next) {
+            // Tick trop long : le suivant démarre immédiatement, sans rattrapage
+            tickOverruns++;
+            return tickEnd;
+        }
+        while (System.nanoTime() < next) {
+            LockSupport.parkNanos(next - System.nanoTime());
+        }
+        return next;
+    }
+
+    /**
+     * Déconnexions selon la durée moyenne de session, puis connexions jusqu'au nombre de joueurs visé
+     * (montée en charge progressive, comme à l'ouverture d'une saison)
+     */
+    private void churn() {
+        double quitChance = 1.0 / (settings.sessionMinutes * 60.0 * settings.ticksPerSecond);
+        for (int i = online.size() - 1; i >= 0; i--) {
+            if (random.nextDouble() < quitChance) {
+                quit(i);
+            }
+        }
+
+        int missing = settings.players - online.size() - joining;
+        int maxJoinsPerTick = Math.max(1, settings.players / (5 * settings.ticksPerSecond));
+        for (int i = 0; i < Math.min(missing, maxJoinsPerTick); i++) {
+            VirtualPlayer candidate = pickOffline();
+            if (candidate != null) {
+                preLogin(candidate);
+            }
+        }
+    }
+
+    private VirtualPlayer pickOffline() {
+        for (int attempt = 0; attempt < 20; attempt++) {
+            VirtualPlayer candidate = population[random.nextInt(population.length)];
+            if (!candidate.online && !candidate.joining) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void preLogin(VirtualPlayer player) {
+        player.joining = true;
+        joining++;
+        server.runAsync(() -> {
+            long start = System.nanoTime();
+            listener.onPlayerPreLogin(player.preLoginEvent());
+            readyToJoin.add(new PreparedJoin(player, System.nanoTime() - start));
+        });
+    }
+
+    private void join(VirtualPlayer player) {
+        joining--;
+        player.joining = false;
+        player.online = true;
+        player.eventBudget = random.nextDouble();
+        server.addOnline(player.player);
+        online.add(player);
+
+        long start = System.nanoTime();
+        listener.onPlayerJoin(player.joinEvent());
+        latencies.get(Activity.JOIN).record(System.nanoTime() - start);
+    }
+
+    private void quit(int index) {
+        VirtualPlayer player = online.get(index);
+        long start = System.nanoTime();
+        listener.onPlayerQuit(player.quitEvent());
+        latencies.get(Activity.QUIT).record(System.nanoTime() - start);
+
+        player.online = false;
+        server.removeOnline(player.player);
+        // Retrait sans décalage : le dernier joueur prend la place libérée
+        VirtualPlayer last = online.remove(online.size() - 1);
+        if (last != player) {
+            online.set(index, last);
+        }
+    }
+
+    private void fireEvents() {
+        double perTick = settings.eventsPerPlayerSecond / settings.ticksPerSecond;
+        for (int i = 0; i < online.size(); i++) {
+            VirtualPlayer player = online.get(i);
+            player.eventBudget += perTick;
+            while (player.eventBudget >= 1.0) {
+                player.eventBudget -= 1.0;
+                fire(player);
+            }
+        }
+    }
+
+    private void fire(VirtualPlayer player) {
+        double roll = random.nextDouble();
+        long start;
+        Activity activity;
+        if (roll < BREAK_SHARE) {
+            activity = Activity.BLOCK_BREAK;
+            start = System.nanoTime();
+            listener.onBlockBreak(player.breakEvents[random.nextInt(player.breakEvents.length)]);
+        } else if (roll < BREAK_SHARE + PLACE_SHARE) {
+            activity = Activity.BLOCK_PLACE;
+            start = System.nanoTime();
+            listener.onBlockPlace(player.placeEvents[random.nextInt(player.placeEvents.length)]);
+        } else if (roll < BREAK_SHARE + PLACE_SHARE + KILL_SHARE) {
+            activity = Activity.KILL;
+            start = System.nanoTime();
+            listener.onEntityDeath(player.deathEvents[random.nextInt(player.deathEvents.length)]);
+        } else {
+            activity = Activity.FISH;
+            start = System.nanoTime();
+            listener.onPlayerFish(player.fishEvent);
+        }
+        latencies.get(activity).record(System.nanoTime() - start);
+        events++;
+    }
+
+    private void openLeaderboards() {
+        leaderboardBudget += settings.leaderboardOpensPerMinute / (60.0 * settings.ticksPerSecond);
+        while (leaderboardBudget >= 1.0) {
+            leaderboardBudget -= 1.0;
+            long start = System.nanoTime();
+            playerService.getTopPlayers(10);
+            latencies.get(Activity.LEADERBOARD).record(System.nanoTime() - start);
+        }
+    }
+
+    // ==================== Mesures ====================
+
+    private void resetMeasurements() {
+        latencies.values().forEach(LatencyHistogram::reset);
+        ticks.reset();
+        levelUps.reset();
+        events = 0;
+        tickOverruns = 0;
+        storage.resetCounters();
+    }
+
+    private void report(long elapsedNanos, AllocationProbe allocations) {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder out = new StringBuilder();
+        out.append("\n=== KrakenLevels load simulation ===\n");
+        out.append(String.format(Locale.ROOT, "players %d online (%d stored profiles), %d levels, %.1f events/player/s%n",
+            settings.players, settings.profiles, settings.levels, settings.eventsPerPlayerSecond));
+        out.append(String.format(Locale.ROOT, "storage latency %.2fms ± %.2fms, error rate %.2f%%, %s%n",
+            settings.dbLatencyMs, settings.dbJitterMs, settings.dbErrorRate * 100,
+            settings.dbMaxOpsPerSecond > 0 ? settings.dbMaxOpsPerSecond + " ops/s max" : "unlimited throughput"));
+        out.append(String.format(Locale.ROOT, "mission processing %s, save mode %s, format %s, write-behind %s%n%n",
+            settings.processing, settings.saveMode, settings.format, settings.writeBehind ? "on" : "off"));
+
+        out.append(String.format(Locale.ROOT, "events: %d in %.1fs = %.0f events/s, %d level-ups, %d joins, %d quits%n%n",
+            events, seconds, events / seconds, levelUps.sum(),
+            latencies.get(Activity.JOIN).count(), latencies.get(Activity.QUIT).count()));
+
+        out.append(String.format(Locale.ROOT, "%-20s %10s %10s %10s %10s %10s%n", "latency (µs)", "count", "p50", "p99", "p999", "max"));
+        for (Activity activity : Activity.values()) {
+            LatencyHistogram histogram = latencies.get(activity);
+            if (histogram.count() > 0) {
+                out.append(row(activity.label, histogram));
+            }
+        }
+        out.append(row("tick", ticks));
+        out.append(String.format(Locale.ROOT, "ticks over budget (%dms): %d of %d%n%n",
+            1000 / settings.ticksPerSecond, tickOverruns, ticks.count()));
+
+        long perEventDivisor = Math.max(1L, events);
+        if (allocations.isSupported()) {
+            out.append(String.format(Locale.ROOT, "allocations: %.0f B/event on the server thread, %.0f B/event across all live threads%n",
+                allocations.mainThreadBytes() / (double) perEventDivisor, allocations.allThreadsBytes() / (double) perEventDivisor));
+        } else {
+            out.append("allocations: not supported by this JVM\n");
+        }
+
+        long operations = 0;
+        long mainThreadNanos = 0;
+        for (InMemoryDatabaseService.Operation operation : InMemoryDatabaseService.Operation.values()) {
+            operations += storage.getCounters(operation).getCalls();
+            mainThreadNanos += storage.getCounters(operation).getMainThreadNanos();
+        }
+        out.append(String.format(Locale.ROOT, "storage: %d operations = %.4f ops/event, %.1fms spent on the server thread%n",
+            operations, operations / (double) perEventDivisor, mainThreadNanos / 1e6));
+        for (InMemoryDatabaseService.Operation operation : InMemoryDatabaseService.Operation.values()) {
+            InMemoryDatabaseService.OperationCounters counters = storage.getCounters(operation);
+            if (counters.getCalls() > 0) {
+                out.append(String.format(Locale.ROOT, "  %-12s %8d calls %6d failed %8d on server thread (%.1fms)%n",
+                    operation.name().toLowerCase(Locale.ROOT), counters.getCalls(), counters.getErrors(),
+                    counters.getMainThreadCalls(), counters.getMainThreadNanos() / 1e6));
+            }
+        }
+        System.out.print(out);
+    }
+
+    private static String row(String label, LatencyHistogram histogram) {
+        return String.format(Locale.ROOT, "%-20s %10d %10.1f %10.1f %10.1f %10.1f%n", label, histogram.count(),
+            histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3, histogram.percentile(99.9) / 1e3,
+            histogram.max() / 1e3);
+    }
+
+    /**
+     * Octets alloués pendant la mesure : thread principal, et ensemble des threads encore vivants à la fin
+     */
+    private static final class AllocationProbe {
+        private final com.sun.management.ThreadMXBean threads;
+        private final long mainThreadId;
+        private final Map<Long, Long> startBytes = new HashMap<>();
+        private long mainThreadBytes;
+        private long allThreadsBytes;
+
+        AllocationProbe(Thread mainThread) {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            threads = bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) bean : null;
+            mainThreadId = mainThread.threadId();
+            if (threads != null) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                snapshot(startBytes);
+            }
+        }
+
+        void stop() {
+            if (threads == null) {
+                return;
+            }
+            Map<Long, Long> endBytes = new HashMap<>();
+            snapshot(endBytes);
+            endBytes.forEach((id, bytes) -> {
+                long delta = bytes - startBytes.getOrDefault(id, 0L);
+                allThreadsBytes += delta;
+                if (id == mainThreadId) {
+                    mainThreadBytes = delta;
+                }
+            });
+        }
+
+        private void snapshot(Map<Long, Long> target) {
+            long[] ids = threads.getAllThreadIds();
+            long[] bytes = threads.getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (bytes[i] >= 0) {
+                    target.put(ids[i], bytes[i]);
+                }
+            }
+        }
+
+        boolean isSupported() { return threads != null; }
+        long mainThreadBytes() { return mainThreadBytes; }
+        long allThreadsBytes() { return allThreadsBytes; }
+    }
+
+    /**
+     * Pré-connexion terminée : le joueur entre en jeu au tick suivant
+     */
+    private static final class PreparedJoin {
+        private final VirtualPlayer player;
+        private final long preLoginNanos;
+
+        PreparedJoin(VirtualPlayer player, long preLoginNanos) {
+            this.player = player;
+            this.preLoginNanos = preLoginNanos;
+        }
+    }
+
+    /**
+     * Aucun message envoyé : les joueurs virtuels n'ont pas de client
+     */
+    private static final class SilentNotifications implements INotificationService {
+        @Override public void sendMessage(Player player, String messageKey, Object... placeholders) { }
+        @Override public void sendActionBar(Player player, String messageKey, Object... placeholders) { }
+        @Override public void queueProgressActionBar(Player player, String messageKey, int current, int target) { }
+        @Override public void queueProgressActionBar(UUID playerUuid, String messageKey, int current, int target) { }
+        @Override public void sendTitle(Player player, String titleKey, String subtitleKey, Object... placeholders) { }
+        @Override public void broadcast(String messageKey, Object... placeholders) { }
+        @Override public void logConsole(String messageKey, Object... placeholders) { }
+        @Override public String getMessage(String messageKey, Object... placeholders) { return ""; }
+        @Override public void reloadMessages() { }
+    }
+}
@@ -0,0 +1,80 @@
+package loyfael.simulation;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implémentations minimales des interfaces Bukkit : seules les méthodes utiles à la simulation répondent,
+ * les autres retournent une valeur neutre (0, false, collection vide, objet factice)
+ */
+final class Proxies {
+
+    /**
+     * Réponse d'une méthode, ou {@link #UNHANDLED} pour la valeur neutre
+     */
+    @FunctionalInterface
+    interface Answers {
+        Object answer(String method, Object[] args);
+    }
+
+    static final Object UNHANDLED = new Object();
+
+    private Proxies() {
+    }
+
+    static <T> T of(Class<T> type, Answers answers) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object[] arguments = args != null ? args : new Object[0];
+            switch (method.getName()) {
+                case "equals":
+                    if (arguments.length == 1) return proxy == arguments[0];
+                    break;
+                case "hashCode":
+                    if (arguments.length == 0) return System.identityHashCode(proxy);
+                    break;
+                default:
+                    break;
+            }
+            Object answer = answers.answer(method.getName(), arguments);
+            if (answer != UNHANDLED) {
+                return answer;
+            }
+            if (method.getName().equals("toString") && arguments.length == 0) {
+                return "Simulated" + type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            }
+            return neutralValue(method);
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * Objet factice : toutes les méthodes retournent leur valeur neutre
+     */
+    static <T> T stub(Class<T> type) {
+        return of(type, (method, args) -> UNHANDLED);
+    }
+
+    private static Object neutralValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0D;
+        if (type == float.class) return 0F;
+        if (type == char.class) return '\0';
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        if (type == int.class) return 0;
+        if (type == String.class) return "";
+        if (List.class.isAssignableFrom(type) || type == java.util.Collection.class) return Collections.emptyList();
+        if (Set.class.isAssignableFrom(type)) return Collections.emptySet();
+        if (Map.class.isAssignableFrom(type)) return Collections.emptyMap();
+        if (type.isInterface() && !type.getName().startsWith("java.")) return stub(type);
+        return null;
+    }
+}
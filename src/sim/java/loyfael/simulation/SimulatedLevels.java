@@ -0,0 +1,73 @@
+package loyfael.simulation;
+
+import loyfael.api.interfaces.ILevelsConfigService;
+import loyfael.core.services.LevelsConfigService.LevelConfig;
+import loyfael.core.services.LevelsConfigService.LevelType;
+import loyfael.core.services.LevelsConfigService.RewardConfig;
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Niveaux générés : une suite d'objectifs de mission (cassage, pose, combat, pêche) sans récompense externe
+ * L'objectif grandit avec le niveau, comme dans un levels.yml de saison
+ */
+final class SimulatedLevels implements ILevelsConfigService {
+
+    private static final String[][] OBJECTIVES = {
+        {"blockbreak", "STONE", null},
+        {"blockbreak", "COAL_ORE", null},
+        {"blockplace", "DIRT", null},
+        {"kills", null, "ZOMBIE"},
+        {"blockbreak", "IRON_ORE", null},
+        {"blockplace", "COBBLESTONE", null},
+        {"kills", null, "SKELETON"},
+        {"blockbreak", "OAK_LOG", null},
+        {"fish", null, null},
+    };
+
+    private final TreeMap<Integer, LevelConfig> levels = new TreeMap<>();
+
+    SimulatedLevels(int count, int baseAmount) {
+        RewardConfig rewards = new RewardConfig(Collections.emptyList(), Collections.emptyList(), false,
+            Collections.emptyList());
+        for (int level = 1; level <= count; level++) {
+            String[] objective = OBJECTIVES[(level - 1) % OBJECTIVES.length];
+            // Pêche et combats sont plus rares que le minage : objectifs plus courts
+            int scale = objective[0].equals("fish") ? 20 : objective[0].equals("kills") ? 5 : 1;
+            int amount = Math.max(1, (baseAmount + baseAmount * level / count) / scale);
+            LevelType type = new LevelType(objective[0], 0, objective[1], objective[2], amount);
+            levels.put(level, new LevelConfig(level, "Niveau " + level, Material.STONE, false, "", type, rewards));
+        }
+    }
+
+    @Override public LevelConfig getLevelConfig(int level) { return levels.get(level); }
+    @Override public Map<Integer, LevelConfig> getAllLevels() { return Collections.unmodifiableMap(levels); }
+    @Override public int getMaxLevel() { return levels.lastKey(); }
+    @Override public boolean levelExists(int level) { return levels.containsKey(level); }
+    @Override public int getTotalLevels() { return levels.size(); }
+    @Override public List<LevelConfig> getSortedLevels() { return new ArrayList<>(levels.values()); }
+    @Override public void reload() { }
+
+    @Override
+    public List<LevelConfig> getLevelsByType(String typeName) {
+        return levels.values().stream()
+            .filter(level -> level.getType().getName().equalsIgnoreCase(typeName))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<LevelConfig> getCurrencyLevels() {
+        return levels.values().stream().filter(level -> level.getType().isCurrency()).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<LevelConfig> getMissionLevels() {
+        return levels.values().stream().filter(level -> level.getType().isMission()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,171 @@
+package loyfael.simulation;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitScheduler;
+
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Serveur Bukkit simulé : thread principal (celui qui exécute les ticks), tâches synchrones exécutées
+ * au tick suivant, tâches asynchrones sur un pool, liste des joueurs connectés
+ */
+final class SimulatedServer {
+
+    private final Thread mainThread = Thread.currentThread();
+    private final ConcurrentLinkedQueue<Runnable> syncTasks = new ConcurrentLinkedQueue<>();
+    private final Map<UUID, Player> onlinePlayers = new ConcurrentHashMap<>();
+    private final Collection<Player> onlineView = Collections.unmodifiableCollection(onlinePlayers.values());
+    private final Logger logger = Logger.getLogger("KrakenLevels-Simulator");
+    private final ExecutorService asyncPool;
+    private final Server server;
+
+    SimulatedServer() {
+        AtomicInteger asyncThreads = new AtomicInteger();
+        asyncPool = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Simulated Async Task #" + asyncThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        BukkitScheduler scheduler = Proxies.of(BukkitScheduler.class, (method, args) -> {
+            Runnable task = firstRunnable(args);
+            if (task == null || !method.startsWith("runTask")) {
+                return Proxies.UNHANDLED;
+            }
+            // Les tâches répétées ne s'exécutent qu'une fois : aucune n'est utilisée par les chemins simulés
+            if (method.contains("Asynchronously")) {
+                asyncPool.execute(task);
+            } else {
+                syncTasks.add(task);
+            }
+            return Proxies.UNHANDLED;
+        });
+
+        server = Proxies.of(Server.class, (method, args) -> {
+            switch (method) {
+                case "isPrimaryThread": return Thread.currentThread() == mainThread;
+                case "getScheduler": return scheduler;
+                case "getOnlinePlayers": return onlineView;
+                case "getPlayer": return args.length == 1 && args[0] instanceof UUID ? onlinePlayers.get(args[0]) : null;
+                case "getLogger": return logger;
+                case "getName": return "KrakenLevels-Simulator";
+                case "getVersion":
+                case "getBukkitVersion": return "simulated";
+                case "dispatchCommand": return true;
+                case "createProfile": return profile(args);
+                default: return Proxies.UNHANDLED;
+            }
+        });
+    }
+
+    /**
+     * Installe ce serveur comme serveur Bukkit du processus
+     */
+    void install() {
+        try {
+            Bukkit.setServer(server);
+        } catch (Throwable e) {
+            // L'annonce de version de setServer peut échouer hors d'un vrai serveur : seul le singleton compte
+        }
+        if (Bukkit.getServer() != server) {
+            try {
+                Field field = Bukkit.class.getDeclaredField("server");
+                field.setAccessible(true);
+                field.set(null, server);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Impossible d'installer le serveur simulé", e);
+            }
+        }
+    }
+
+    Thread getMainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Prochaine tâche synchrone programmée par le plugin (exécutée en début de tick), ou null
+     */
+    Runnable pollSyncTask() {
+        return syncTasks.poll();
+    }
+
+    void runAsync(Runnable task) {
+        asyncPool.execute(task);
+    }
+
+    void runSync(Runnable task) {
+        syncTasks.add(task);
+    }
+
+    void addOnline(Player player) {
+        onlinePlayers.put(player.getUniqueId(), player);
+    }
+
+    void removeOnline(Player player) {
+        onlinePlayers.remove(player.getUniqueId());
+    }
+
+    Logger getLogger() {
+        return logger;
+    }
+
+    /**
+     * Attend la fin des tâches asynchrones puis exécute les dernières tâches synchrones
+     */
+    void shutdown() {
+        asyncPool.shutdown();
+        try {
+            asyncPool.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Runnable task;
+        while ((task = syncTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static Runnable firstRunnable(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof Runnable) {
+                return (Runnable) arg;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Profil de joueur (pré-connexion) : identifiant et nom passés à createProfile
+     */
+    private static Object profile(Object[] args) {
+        UUID uuid = null;
+        String name = null;
+        for (Object arg : args) {
+            if (arg instanceof UUID) uuid = (UUID) arg;
+            if (arg instanceof String) name = (String) arg;
+        }
+        UUID id = uuid;
+        String profileName = name;
+        return Proxies.of(com.destroystokyo.paper.profile.PlayerProfile.class, (method, methodArgs) -> {
+            switch (method) {
+                case "getId":
+                case "getUniqueId": return id;
+                case "getName": return profileName;
+                default: return Proxies.UNHANDLED;
+            }
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package loyfael.simulation;
+
+import loyfael.api.interfaces.IConfigurationService;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * config.yml livré avec le plugin, avec les réglages de la simulation appliqués par-dessus
+ * Rien n'est écrit sur disque
+ */
+final class SimulationConfiguration implements IConfigurationService {
+
+    private final FileConfiguration config;
+
+    SimulationConfiguration(SimulationSettings settings) {
+        config = loadDefaults();
+        config.set("database.type", "memory");
+        config.set("database.memory.latency-ms", settings.dbLatencyMs);
+        config.set("database.memory.jitter-ms", settings.dbJitterMs);
+        config.set("database.memory.error-rate", settings.dbErrorRate);
+        config.set("database.memory.max-ops-per-second", settings.dbMaxOpsPerSecond);
+        config.set("system.mission-processing.mode", settings.processing);
+        config.set("system.save-strategy.mode", settings.saveMode);
+        config.set("system.save-strategy.format", settings.format);
+        config.set("system.write-behind.enabled", settings.writeBehind);
+    }
+
+    private static FileConfiguration loadDefaults() {
+        InputStream resource = SimulationConfiguration.class.getResourceAsStream("/config.yml");
+        if (resource == null) {
+            return new YamlConfiguration();
+        }
+        try (Reader reader = new InputStreamReader(resource, StandardCharsets.UTF_8)) {
+            return YamlConfiguration.loadConfiguration(reader);
+        } catch (Exception e) {
+            throw new IllegalStateException("Lecture de config.yml impossible", e);
+        }
+    }
+
+    @Override public void initialize() { }
+    @Override public void reload() { }
+    @Override public void save() { }
+    @Override public FileConfiguration getConfig() { return config; }
+    @Override public String getMessage(String path, Object... placeholders) { return path; }
+    @Override public String getMessage(String path) { return path; }
+    @Override public boolean isInitialized() { return true; }
+    @Override public void shutdown() { }
+}
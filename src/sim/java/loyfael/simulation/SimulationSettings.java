@@ -0,0 +1,138 @@
+package loyfael.simulation;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Paramètres de la simulation, lus depuis la ligne de commande (--clé=valeur)
+ */
+final class SimulationSettings {
+
+    // Joueurs connectés simultanément et profils stockés (joueurs hors ligne inclus)
+    int players = 500;
+    int profiles = 10_000;
+
+    // Durées en secondes : la préchauffe n'entre pas dans les mesures
+    int warmupSeconds = 10;
+    int durationSeconds = 60;
+    int ticksPerSecond = 20;
+
+    // Activité par joueur connecté
+    double eventsPerPlayerSecond = 2.0;
+    double sessionMinutes = 20.0;
+    double leaderboardOpensPerMinute = 30.0;
+
+    // Niveaux générés : objectifs de mission uniquement (aucune économie dans la simulation)
+    int levels = 100;
+    int objectiveAmount = 20;
+
+    // Stockage en mémoire : latence et pannes simulées
+    double dbLatencyMs = 1.0;
+    double dbJitterMs = 0.5;
+    double dbErrorRate = 0.0;
+    int dbMaxOpsPerSecond = 0;
+
+    // Reportés dans la configuration du plugin
+    String processing = "async";
+    String saveMode = "delayed";
+    String format = "compact";
+    boolean writeBehind = true;
+
+    long seed = 42L;
+
+    static final Map<String, String> OPTIONS = new LinkedHashMap<>();
+
+    static {
+        OPTIONS.put("players", "online players (default 500)");
+        OPTIONS.put("profiles", "stored player profiles, online ones included (default 10000)");
+        OPTIONS.put("warmup", "warmup seconds, not measured (default 10)");
+        OPTIONS.put("duration", "measured seconds (default 60)");
+        OPTIONS.put("tps", "server ticks per second (default 20)");
+        OPTIONS.put("events-per-player", "mission events per online player per second (default 2.0)");
+        OPTIONS.put("session-minutes", "average session length, drives joins and quits (default 20)");
+        OPTIONS.put("leaderboard-per-minute", "leaderboard opens per minute, server-wide (default 30)");
+        OPTIONS.put("levels", "generated mission levels (default 100)");
+        OPTIONS.put("objective-amount", "actions required per level objective (default 20)");
+        OPTIONS.put("db-latency", "storage latency per operation in ms (default 1.0)");
+        OPTIONS.put("db-jitter", "extra random storage latency in ms (default 0.5)");
+        OPTIONS.put("db-error-rate", "fraction of failing storage operations (default 0)");
+        OPTIONS.put("db-max-ops", "storage operations per second, 0 = unlimited (default 0)");
+        OPTIONS.put("processing", "mission event processing: sync or async (default async)");
+        OPTIONS.put("save-mode", "mission progress saves: immediate or delayed (default delayed)");
+        OPTIONS.put("format", "player data format: map or compact (default compact)");
+        OPTIONS.put("write-behind", "batched player data writes: true or false (default true)");
+        OPTIONS.put("seed", "random seed (default 42)");
+    }
+
+    static SimulationSettings parse(String[] args) {
+        SimulationSettings settings = new SimulationSettings();
+        // Le profil Maven transmet -Dsim.args en un seul argument : les options sont séparées par des espaces
+        for (String arg : String.join(" ", args).split("\\s+")) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Option invalide (attendu --clé=valeur): " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('=')).toLowerCase(Locale.ROOT);
+            String value = arg.substring(arg.indexOf('=') + 1).trim();
+            settings.set(key, value);
+        }
+        settings.validate();
+        return settings;
+    }
+
+    private void set(String key, String value) {
+        switch (key) {
+            case "players": players = Integer.parseInt(value); break;
+            case "profiles": profiles = Integer.parseInt(value); break;
+            case "warmup": warmupSeconds = Integer.parseInt(value); break;
+            case "duration": durationSeconds = Integer.parseInt(value); break;
+            case "tps": ticksPerSecond = Integer.parseInt(value); break;
+            case "events-per-player": eventsPerPlayerSecond = Double.parseDouble(value); break;
+            case "session-minutes": sessionMinutes = Double.parseDouble(value); break;
+            case "leaderboard-per-minute": leaderboardOpensPerMinute = Double.parseDouble(value); break;
+            case "levels": levels = Integer.parseInt(value); break;
+            case "objective-amount": objectiveAmount = Integer.parseInt(value); break;
+            case "db-latency": dbLatencyMs = Double.parseDouble(value); break;
+            case "db-jitter": dbJitterMs = Double.parseDouble(value); break;
+            case "db-error-rate": dbErrorRate = Double.parseDouble(value); break;
+            case "db-max-ops": dbMaxOpsPerSecond = Integer.parseInt(value); break;
+            case "processing": processing = value.toLowerCase(Locale.ROOT); break;
+            case "save-mode": saveMode = value.toLowerCase(Locale.ROOT); break;
+            case "format": format = value.toLowerCase(Locale.ROOT); break;
+            case "write-behind": writeBehind = Boolean.parseBoolean(value); break;
+            case "seed": seed = Long.parseLong(value); break;
+            default: throw new IllegalArgumentException("Option inconnue: --" + key);
+        }
+    }
+
+    private void validate() {
+        if (players < 1 || profiles < players) {
+            throw new IllegalArgumentException("Il faut au moins un joueur et profiles >= players");
+        }
+        if (durationSeconds < 1 || warmupSeconds < 0 || ticksPerSecond < 1) {
+            throw new IllegalArgumentException("Durées et tps doivent être positifs");
+        }
+        if (levels < 1 || objectiveAmount < 1) {
+            throw new IllegalArgumentException("levels et objective-amount doivent être positifs");
+        }
+        if (!processing.equals("sync") && !processing.equals("async")) {
+            throw new IllegalArgumentException("processing doit valoir sync ou async");
+        }
+        if (!saveMode.equals("immediate") && !saveMode.equals("delayed")) {
+            throw new IllegalArgumentException("save-mode doit valoir immediate ou delayed");
+        }
+        if (!format.equals("map") && !format.equals("compact")) {
+            throw new IllegalArgumentException("format doit valoir map ou compact");
+        }
+    }
+
+    static String usage() {
+        StringBuilder usage = new StringBuilder("Usage: LoadSimulator [--option=value ...]\n");
+        OPTIONS.forEach((option, description) ->
+            usage.append(String.format("  --%-24s %s%n", option, description)));
+        return usage.toString();
+    }
+}
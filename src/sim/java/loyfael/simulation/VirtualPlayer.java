@@ -0,0 +1,115 @@
+package loyfael.simulation;
+
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.damage.DamageSource;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.FishHook;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerFishEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.EquipmentSlot;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.UUID;
+
+/**
+ * Joueur virtuel et ses événements, construits une fois : la boucle de simulation n'alloue rien par événement
+ * Toute la construction d'événements Bukkit est regroupée ici
+ */
+final class VirtualPlayer {
+
+    static final Material[] BROKEN = {
+        Material.STONE, Material.STONE, Material.STONE, Material.COAL_ORE, Material.IRON_ORE,
+        Material.DIRT, Material.OAK_LOG, Material.DEEPSLATE_COAL_ORE
+    };
+    static final Material[] PLACED = { Material.DIRT, Material.COBBLESTONE, Material.OAK_PLANKS, Material.STONE };
+    static final EntityType[] KILLED = {
+        EntityType.ZOMBIE, EntityType.ZOMBIE, EntityType.SKELETON, EntityType.SPIDER, EntityType.CREEPER, EntityType.COW
+    };
+
+    private static final InetAddress LOOPBACK = InetAddress.getLoopbackAddress();
+
+    final UUID uuid;
+    final String name;
+    final Player player;
+    volatile boolean online;
+    // Pré-connexion en cours (lu et écrit depuis le thread principal)
+    boolean joining;
+
+    final BlockBreakEvent[] breakEvents;
+    final BlockPlaceEvent[] placeEvents;
+    final EntityDeathEvent[] deathEvents;
+    final PlayerFishEvent fishEvent;
+
+    // Budget d'événements accumulé d'un tick à l'autre (taux fractionnaire par tick)
+    double eventBudget;
+
+    VirtualPlayer(UUID uuid, String name) {
+        this.uuid = uuid;
+        this.name = name;
+        this.player = Proxies.of(Player.class, (method, args) -> {
+            switch (method) {
+                case "getUniqueId": return uuid;
+                case "getName":
+                case "getDisplayName": return name;
+                case "isOnline": return online;
+                case "toString": return "VirtualPlayer[" + name + "]";
+                default: return Proxies.UNHANDLED;
+            }
+        });
+
+        breakEvents = new BlockBreakEvent[BROKEN.length];
+        for (int i = 0; i < BROKEN.length; i++) {
+            breakEvents[i] = new BlockBreakEvent(block(BROKEN[i]), player);
+        }
+
+        placeEvents = new BlockPlaceEvent[PLACED.length];
+        for (int i = 0; i < PLACED.length; i++) {
+            Block placed = block(PLACED[i]);
+            placeEvents[i] = new BlockPlaceEvent(placed, Proxies.stub(BlockState.class), block(Material.GRASS_BLOCK),
+                null, player, true, EquipmentSlot.HAND);
+        }
+
+        deathEvents = new EntityDeathEvent[KILLED.length];
+        for (int i = 0; i < KILLED.length; i++) {
+            EntityType type = KILLED[i];
+            LivingEntity victim = Proxies.of(LivingEntity.class, (method, args) -> {
+                switch (method) {
+                    case "getType": return type;
+                    case "getKiller": return player;
+                    default: return Proxies.UNHANDLED;
+                }
+            });
+            deathEvents[i] = new EntityDeathEvent(victim, Proxies.stub(DamageSource.class), new ArrayList<>());
+        }
+
+        fishEvent = new PlayerFishEvent(player, null, Proxies.stub(FishHook.class), EquipmentSlot.HAND,
+            PlayerFishEvent.State.CAUGHT_FISH);
+    }
+
+    @SuppressWarnings("deprecation")
+    AsyncPlayerPreLoginEvent preLoginEvent() {
+        return new AsyncPlayerPreLoginEvent(name, LOOPBACK, uuid);
+    }
+
+    PlayerJoinEvent joinEvent() {
+        return new PlayerJoinEvent(player, (net.kyori.adventure.text.Component) null);
+    }
+
+    PlayerQuitEvent quitEvent() {
+        return new PlayerQuitEvent(player, (net.kyori.adventure.text.Component) null, PlayerQuitEvent.QuitReason.DISCONNECTED);
+    }
+
+    private static Block block(Material material) {
+        return Proxies.of(Block.class, (method, args) -> "getType".equals(method) ? material : Proxies.UNHANDLED);
+    }
+}